@@ -0,0 +1,176 @@
+package engine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import jobs.JobPriority;
+import jobs.JobSystem;
+import world.ChunkStage;
+import world.EditJournal;
+import world.SharedArrays;
+import world.World;
+
+/**
+ * Opt-in HTTP endpoint on the loopback interface (EngineConfig.adminPort).
+ * - GET  /metrics                 Telemetry, JobSystem and chunk state in Prometheus text format
+ * - POST /admin/workers?max=N     change JobSystem's worker ceiling
+ * - POST /admin/save              fold the edit journal into chunk snapshots now
+ * Requests are served on one daemon thread and only read atomics/volatiles (plus one short
+ * scan of the job queues), so a scrape never waits on the sim or render thread.
+ */
+public final class AdminServer implements AutoCloseable {
+    private final HttpServer http;
+    private final ExecutorService exec;
+    private final Telemetry tm;
+    private final JobSystem jobs;
+    private final World world;
+    private final EditJournal journal; // null = nothing to save
+
+    private AdminServer(int port, Telemetry tm, JobSystem jobs, World world, EditJournal journal) throws IOException {
+        this.tm = tm; this.jobs = jobs; this.world = world; this.journal = journal;
+        // the JDK server writes headers and body separately; with Nagle on, every keep-alive
+        // scrape waits out the client's delayed ACK (~40 ms). Read once, by the first server created
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        exec = Executors.newSingleThreadExecutor(r -> { Thread t = new Thread(r, "AdminServer"); t.setDaemon(true); return t; });
+        http.setExecutor(exec);
+        http.createContext("/metrics", this::metrics);
+        http.createContext("/admin/workers", this::workers);
+        http.createContext("/admin/save", this::save);
+    }
+
+    /** Binds 127.0.0.1:{@code port} (0 = any free port, see {@link #port()}) and starts serving. */
+    public static AdminServer start(int port, Telemetry tm, JobSystem jobs, World world, EditJournal journal) throws IOException {
+        AdminServer s = new AdminServer(port, tm, jobs, world, journal);
+        s.http.start();
+        System.out.println("[Admin] http://127.0.0.1:" + s.port() + "/metrics");
+        return s;
+    }
+
+    public int port() { return http.getAddress().getPort(); }
+
+    @Override public void close() {
+        http.stop(0);
+        exec.shutdownNow();
+    }
+
+    // ---- handlers ----
+
+    private void metrics(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equals("GET")) { reply(ex, 405, "GET only\n"); return; }
+        StringBuilder sb = new StringBuilder(4096);
+        counter(sb, "voxel_frames_total", "Frames rendered", tm.getFrameCount());
+        gauge(sb, "voxel_render_ms", "Render frame time (EMA)", tm.renderMs());
+        gauge(sb, "voxel_frame_alloc_bytes", "Heap bytes allocated by the render thread per frame (EMA)", tm.frameAllocBytes());
+        gauge(sb, "voxel_sim_ms", "Simulation tick time (EMA)", tm.simMs());
+        gauge(sb, "voxel_tps", "Simulation ticks per second (EMA)", tm.tps());
+
+        gauge(sb, "voxel_job_workers", "Running worker threads", jobs.currentWorkers());
+        gauge(sb, "voxel_job_workers_max", "Worker ceiling", jobs.maxWorkers());
+        gauge(sb, "voxel_jobs_queued", "Queued jobs, all tenants", tm.getQueuedJobs());
+        head(sb, "voxel_jobs_queued_by_priority", "Queued jobs per priority class", "gauge");
+        for (JobPriority p : JobPriority.values())
+            sample(sb, "voxel_jobs_queued_by_priority{priority=\"" + p.name() + "\"}", jobs.queuedFor(p));
+        gauge(sb, "voxel_jobs_oldest_age_seconds", "Wait of the oldest queued job", jobs.oldestQueuedAgeNs() / 1e9);
+        counter(sb, "voxel_jobs_run_total", "Jobs executed for this telemetry's tenant", tm.jobsRun());
+        counter(sb, "voxel_jobs_cancelled_total", "Jobs dropped at dequeue", tm.jobsCancelled());
+        counter(sb, "voxel_job_cpu_seconds_total", "Time spent running jobs", tm.jobCpuMs() / 1e3);
+
+        int[] stages = world.chunkCountsByStage();
+        head(sb, "voxel_chunks", "Loaded chunks per pipeline stage (packed counted separately)", "gauge");
+        for (ChunkStage st : new ChunkStage[] { ChunkStage.GENERATED, ChunkStage.LIT, ChunkStage.MESHED, ChunkStage.PACKED })
+            sample(sb, "voxel_chunks{stage=\"" + st.name() + "\"}", stages[st.ordinal()]);
+        gauge(sb, "voxel_cold_bytes", "Memory held by packed chunks", tm.coldBytes());
+        counter(sb, "voxel_cold_prefetch_total", "Packed chunks inflated ahead of use", tm.coldPrefetches());
+        counter(sb, "voxel_cold_demand_total", "Packed chunks inflated by a reader", tm.coldDemandInflates());
+        gauge(sb, "voxel_shared_arrays", "Distinct pooled voxel/light arrays, all worlds", SharedArrays.POOL.arrays());
+        gauge(sb, "voxel_shared_bytes", "Memory held by pooled voxel/light arrays", SharedArrays.POOL.bytes());
+        gauge(sb, "voxel_shared_refs", "Chunk references to pooled arrays", SharedArrays.POOL.references());
+
+        counter(sb, "voxel_mesh_cache_hits_total", "Mesh cache hits", tm.meshCacheHits());
+        counter(sb, "voxel_mesh_cache_misses_total", "Mesh cache misses", tm.meshCacheMisses());
+        gauge(sb, "voxel_gpu_mesh_bytes", "GPU memory used by chunk meshes", tm.gpuMeshBytes());
+        gauge(sb, "voxel_gpu_meshes", "Distinct GPU meshes", tm.gpuUniqueMeshes());
+        gauge(sb, "voxel_gpu_chunk_meshes", "Chunks with a mesh on the GPU", tm.gpuChunkMeshes());
+
+        Map<String, double[]> pct = new TreeMap<>(tm.allPercentiles());
+        if (!pct.isEmpty()) {
+            head(sb, "voxel_latency_ms", "Live latency percentiles from JFR (last ~1 s)", "summary");
+            for (Map.Entry<String, double[]> e : pct.entrySet()) {
+                String s = "voxel_latency_ms{series=\"" + e.getKey() + "\",quantile=\"";
+                sample(sb, s + "0.5\"}", e.getValue()[0]);
+                sample(sb, s + "0.95\"}", e.getValue()[1]);
+                sample(sb, s + "0.99\"}", e.getValue()[2]);
+            }
+        }
+        ex.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        reply(ex, 200, sb.toString());
+    }
+
+    private void workers(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equals("POST")) { reply(ex, 405, "POST only\n"); return; }
+        String max = query(ex, "max");
+        try {
+            jobs.setMaxWorkers(Integer.parseInt(max));
+            reply(ex, 200, "maxWorkers=" + jobs.maxWorkers() + " workers=" + jobs.currentWorkers() + "\n");
+        } catch (NumberFormatException e) {
+            reply(ex, 400, "usage: POST /admin/workers?max=N\n");
+        }
+    }
+
+    private void save(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equals("POST")) { reply(ex, 405, "POST only\n"); return; }
+        if (journal == null) { reply(ex, 409, "saving is disabled\n"); return; }
+        journal.requestCompaction();
+        reply(ex, 202, "compaction requested\n");
+    }
+
+    // ---- helpers ----
+
+    private static String query(HttpExchange ex, String key) {
+        String q = ex.getRequestURI().getRawQuery();
+        if (q == null) return null;
+        for (String kv : q.split("&")) {
+            int eq = kv.indexOf('=');
+            if (eq > 0 && kv.substring(0, eq).equals(key)) return kv.substring(eq + 1);
+        }
+        return null;
+    }
+
+    private static void reply(HttpExchange ex, int status, String body) throws IOException {
+        byte[] b = body.getBytes(StandardCharsets.UTF_8);
+        ex.sendResponseHeaders(status, b.length);
+        try (OutputStream os = ex.getResponseBody()) { os.write(b); }
+    }
+
+    private static void head(StringBuilder sb, String name, String help, String type) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String series, double v) {
+        sb.append(series).append(' ');
+        if (v == Math.rint(v) && Math.abs(v) < 1e15) sb.append((long) v); else sb.append(v);
+        sb.append('\n');
+    }
+
+    private static void gauge(StringBuilder sb, String name, String help, double v) {
+        head(sb, name, help, "gauge");
+        sample(sb, name, v);
+    }
+
+    private static void counter(StringBuilder sb, String name, String help, double v) {
+        head(sb, name, help, "counter");
+        sample(sb, name, v);
+    }
+}
@@ -0,0 +1,131 @@
+package engine;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Paths;
+
+import jobs.JobSystem;
+import net.NetClient;
+import net.NetServer;
+import world.EditJournal;
+import world.World;
+
+/**
+ * Headless entry point: world + jobs + NetServer, no window and no meshing.
+ * One thread runs the fixed-step sim and the socket event loop, waiting on the selector
+ * between ticks. Args: [--port N] [--loopback-clients N] [--seconds N]
+ * With --loopback-clients the process also spawns N in-process clients that walk and dig,
+ * and the per-second report doubles as a benchmark (bytes per chunk, clients per core).
+ */
+public class DedicatedServer {
+    public static void main(String[] args) throws Exception {
+        EngineConfig cfg = new EngineConfig();
+        int loopbackClients = 0, seconds = 0;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port" -> cfg.serverPort = Integer.parseInt(args[i + 1]);
+                case "--loopback-clients" -> loopbackClients = Integer.parseInt(args[i + 1]);
+                case "--seconds" -> seconds = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        if (loopbackClients > 0) { cfg.serverBindAddress = "127.0.0.1"; cfg.saveDir = null; }
+
+        Telemetry tm = new Telemetry();
+        JobSystem jobs = new JobSystem(cfg, tm);
+        EditJournal journal = (cfg.saveDir != null) ? EditJournal.open(Paths.get(cfg.saveDir), cfg) : null;
+        World world = new World(jobs, new InputState(), journal, null);
+        world.setMeshing(false);
+        NetServer server = new NetServer(world, cfg);
+        System.out.println("[Server] listening on " + cfg.serverBindAddress + ":" + server.port());
+
+        LoopbackClients bots = null;
+        if (loopbackClients > 0) {
+            bots = new LoopbackClients(server.port(), loopbackClients, 1.0 / cfg.targetTps);
+            bots.start();
+        }
+
+        ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        long serverThread = Thread.currentThread().threadId();
+        final long stepNs = (long)(1_000_000_000L / (double)cfg.targetTps);
+        final double dt = 1.0 / cfg.targetTps;
+        long next = System.nanoTime(), start = next, reportAt = next + 1_000_000_000L;
+        long cpuAtReport = mx.getThreadCpuTime(serverThread), sentAtReport = 0;
+
+        while (seconds <= 0 || System.nanoTime() - start < seconds * 1_000_000_000L) {
+            long now = System.nanoTime();
+            if (now < next) { server.pollIo(Math.max(1, (next - now) / 1_000_000)); continue; }
+
+            long t0 = System.nanoTime();
+            server.pollIo(0);
+            world.tick(dt);
+            server.tick(dt);
+            if (jobs.currentWorkers() == 0) jobs.runInlineFor(cfg.inlineJobBudgetMsWhenNoWorkers);
+            tm.sampleSim((System.nanoTime() - t0) / 1_000_000.0);
+            tm.markSimTick();
+            next += stepNs;
+
+            if (t0 >= reportAt) {
+                long cpu = mx.getThreadCpuTime(serverThread);
+                double cpuShare = (cpu - cpuAtReport) / (double)(t0 - reportAt + 1_000_000_000L);
+                long sent = server.bytesSent();
+                System.out.printf(
+                    "[Server] clients %d | tick %.2f ms | chunks %d (%.0f B/chunk) | out %d KiB/s | cpu %.1f%% (~%.0f clients/core)%n",
+                    server.clientCount(), tm.simMs(), server.chunksSent(),
+                    server.chunksSent() == 0 ? 0.0 : server.chunkBytesSent() / (double) server.chunksSent(),
+                    (sent - sentAtReport) >> 10, cpuShare * 100.0,
+                    cpuShare > 0 ? server.clientCount() / cpuShare : 0.0);
+                cpuAtReport = cpu; sentAtReport = sent;
+                reportAt = t0 + 1_000_000_000L;
+            }
+        }
+
+        if (bots != null) bots.stopAndJoin();
+        server.close();
+        jobs.shutdown();
+        if (journal != null) journal.close();
+    }
+
+    /** In-process clients on one thread: walk circles around spawn and dig now and then. */
+    private static final class LoopbackClients extends Thread {
+        private final int port, count;
+        private final long stepNs;
+        private volatile boolean running = true;
+
+        LoopbackClients(int port, int count, double stepSec) {
+            super("LoopbackClients");
+            this.port = port; this.count = count; this.stepNs = (long)(stepSec * 1_000_000_000L);
+            setDaemon(true);
+        }
+
+        void stopAndJoin() throws InterruptedException { running = false; join(); }
+
+        @Override public void run() {
+            NetClient[] cs = new NetClient[count];
+            try {
+                for (int i = 0; i < count; i++) cs[i] = new NetClient("127.0.0.1", port, "bot-" + i);
+                long tick = 0;
+                while (running) {
+                    tick++;
+                    for (int i = 0; i < count; i++) {
+                        double a = tick * 0.01 + i * (2 * Math.PI / count);
+                        float r = 24 + (i % 8) * 8;
+                        float x = (float)(Math.cos(a) * r), z = (float)(Math.sin(a) * r);
+                        cs[i].sendPosition(x, 14, z);
+                        if ((tick + i) % 40 == 0) cs[i].sendSetBlock((int) Math.floor(x), 12, (int) Math.floor(z), World.AIR);
+                        cs[i].poll();
+                    }
+                    Thread.sleep(stepNs / 1_000_000);
+                }
+                long chunks = 0, chunkBytes = 0, deltas = 0;
+                for (NetClient c : cs) { chunks += c.chunksReceived(); chunkBytes += c.chunkBytesReceived(); deltas += c.deltasReceived(); }
+                System.out.printf("[Loopback] %d clients received %d chunks (%.0f B/chunk), %d block deltas%n",
+                    count, chunks, chunks == 0 ? 0.0 : chunkBytes / (double) chunks, deltas);
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                for (NetClient c : cs) if (c != null) try { c.close(); } catch (Exception ignored) {}
+            }
+        }
+    }
+}
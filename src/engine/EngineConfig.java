@@ -9,4 +9,33 @@ public class EngineConfig {
     public boolean enableAutoscale = true;
     public long autoscaleCooldownMs = 2500;
     public double inlineJobBudgetMsWhenNoWorkers = 2.0; // run X ms of jobs inline if workers==0
+
+    public boolean jfrLiveStats = false;  // stream our JFR events in-process into Telemetry percentiles
+    public int adminPort = 0;             // localhost metrics/admin HTTP endpoint; 0 = off
+
+    // persistence
+    public String saveDir = "save";                  // edit journal + chunk snapshots; null = no saving
+    public long journalCommitIntervalMs = 5;         // group-commit window (one fsync per window)
+    public long journalCompactBytes = 1L << 20;      // fold journal into chunk snapshots past this size
+
+    // streaming
+    public int spawnWarmupRadius = 3;                // chunks generated, lit and meshed before the first frame
+    public int spawnWarmupRadiusY = 2;               // ...and above/below the spawn chunk
+    public int viewRadiusChunks = 8;                 // chunks kept loaded around the player; 0 = no streaming
+    public int viewRadiusChunksY = 3;                // ...and above/below the player's chunk
+    public int coldChunkRadius = 4;                  // chunks farther than this get packed in memory; 0 = off
+    public int coldChunkDelayTicks = 600;            // ...after this many ticks without an edit
+
+    // mesh cache
+    public String meshCacheDir = "cache/meshes";     // on-disk tier; null = memory only
+    public long meshCacheMemBytes = 64L << 20;       // in-memory LRU budget
+    public long meshCacheDiskBytes = 256L << 20;     // on-disk budget; oldest files are deleted past it
+
+    // dedicated server
+    public String serverBindAddress = "0.0.0.0";
+    public int serverPort = 24454;
+    public int serverViewRadius = 6;                 // chunks streamed around each client
+    public int serverViewRadiusY = 2;                // ...and above/below it
+    public long serverClientBytesPerSec = 1L << 20;  // per-client token bucket refill
+    public long serverClientBurstBytes = 256L << 10; // bucket size / max queued bytes per client
 }
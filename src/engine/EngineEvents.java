@@ -0,0 +1,57 @@
+package engine;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder events emitted by the engine, all under the "Voxel Engine" category.
+ * Disabled events cost a field check: callers allocate, begin() and commit() unconditionally
+ * and JIT removes the rest. None of them record stack traces.
+ */
+public final class EngineEvents {
+    private EngineEvents() {}
+
+    @Name("voxel.JobRun") @Label("Job Run") @Category({"Voxel Engine", "Jobs"})
+    @Description("One job executed by the JobSystem") @StackTrace(false)
+    public static final class JobRun extends Event {
+        @Label("Job") public String job;
+        @Label("Priority") public String priority;
+        @Label("Tenant") public String tenant;
+        @Label("Queue Wait") @Timespan(Timespan.NANOSECONDS) public long queueWait;
+    }
+
+    @Name("voxel.ChunkStage") @Label("Chunk Stage") @Category({"Voxel Engine", "Chunks"})
+    @Description("A chunk reached a pipeline stage") @StackTrace(false)
+    public static final class ChunkStage extends Event {
+        @Label("Chunk X") public int chunkX;
+        @Label("Chunk Y") public int chunkY;
+        @Label("Chunk Z") public int chunkZ;
+        @Label("Stage") public String stage;
+    }
+
+    @Name("voxel.SimTick") @Label("Simulation Tick") @Category({"Voxel Engine", "Simulation"})
+    @StackTrace(false)
+    public static final class SimTick extends Event {
+        @Label("Queued Jobs") public int queuedJobs;
+    }
+
+    @Name("voxel.Frame") @Label("Render Frame") @Category({"Voxel Engine", "Render"})
+    @StackTrace(false)
+    public static final class Frame extends Event {
+        @Label("Frame") public long frame;
+    }
+
+    @Name("voxel.UploadBatch") @Label("GPU Upload Batch") @Category({"Voxel Engine", "Render"})
+    @Description("Meshes moved from World.gpuUploads to the GPU in one drain") @StackTrace(false)
+    public static final class UploadBatch extends Event {
+        @Label("Uploads") public int uploads;
+        @Label("Unloads") public int unloads;
+        @Label("Bytes") @DataAmount public long bytes;
+    }
+}
@@ -13,6 +13,9 @@ public class InputState {
     public volatile boolean keyW, keyA, keyS, keyD, keySpace, keyCtrl, keyShift;
     public volatile boolean keyEsc;
 
+    // Absolute view angles (degrees). Written only by the render thread, copied by the sim each tick.
+    public volatile float lookYaw = -90f, lookPitch = 0f;
+
     // Mouse-look deltas (accumulate on RT, consume on ST)
     private final AtomicReference<double[]> mouseDelta = new AtomicReference<>(new double[]{0,0});
     // Clicks (edge-triggered flags set by RT, consumed/cleared by ST)
@@ -27,6 +30,15 @@ public class InputState {
         return mouseDelta.getAndSet(new double[]{0,0});
     }
 
+    /** Render thread: applies a mouse-look delta (degrees) to the view angles. */
+    public void addLook(float dYaw, float dPitch) {
+        lookYaw += dYaw;
+        float p = lookPitch - dPitch;
+        if (p > 89.9f) p = 89.9f;
+        if (p < -89.9f) p = -89.9f;
+        lookPitch = p;
+    }
+
     public void signalLeftClick() { leftClick.set(true); }
     public void signalRightClick() { rightClick.set(true); }
     public boolean consumeLeftClick() { return leftClick.getAndSet(false); }
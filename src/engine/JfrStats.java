@@ -0,0 +1,77 @@
+package engine;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * In-process consumer of the engine's JFR events: collects durations per series between
+ * flushes (about once a second) and publishes p50/p95/p99 to {@link Telemetry}.
+ * Series: "sim.tick", "frame", "upload.batch", "job.wait", "job.&lt;JobName&gt;", "gc.pause".
+ */
+public final class JfrStats implements AutoCloseable {
+    private final Telemetry tm;
+    private final RecordingStream rs = new RecordingStream();
+    // stream thread only
+    private final Map<String, Samples> window = new HashMap<>();
+
+    private static final class Samples {
+        long[] ns = new long[256];
+        int n;
+        void add(long v) {
+            if (n == ns.length) ns = Arrays.copyOf(ns, n * 2);
+            ns[n++] = v;
+        }
+    }
+
+    private JfrStats(Telemetry tm) {
+        this.tm = tm;
+        rs.enable(EngineEvents.JobRun.class);
+        rs.enable(EngineEvents.SimTick.class);
+        rs.enable(EngineEvents.Frame.class);
+        rs.enable(EngineEvents.UploadBatch.class);
+        rs.enable("jdk.GCPhasePause").withThreshold(Duration.ZERO);
+        rs.setMaxAge(Duration.ofSeconds(10));
+
+        rs.onEvent("voxel.SimTick", e -> sample("sim.tick", e));
+        rs.onEvent("voxel.Frame", e -> sample("frame", e));
+        rs.onEvent("voxel.UploadBatch", e -> sample("upload.batch", e));
+        rs.onEvent("jdk.GCPhasePause", e -> sample("gc.pause", e));
+        rs.onEvent("voxel.JobRun", e -> {
+            sample("job." + e.getString("job"), e);
+            add("job.wait", e.getLong("queueWait"));
+        });
+        rs.onFlush(this::publish);
+    }
+
+    /** Starts streaming on a daemon thread. */
+    public static JfrStats start(Telemetry tm) {
+        JfrStats s = new JfrStats(tm);
+        s.rs.startAsync();
+        return s;
+    }
+
+    private void sample(String series, RecordedEvent e) { add(series, e.getDuration().toNanos()); }
+
+    private void add(String series, long ns) { window.computeIfAbsent(series, k -> new Samples()).add(ns); }
+
+    private void publish() {
+        for (Map.Entry<String, Samples> en : window.entrySet()) {
+            Samples s = en.getValue();
+            if (s.n == 0) continue;
+            Arrays.sort(s.ns, 0, s.n);
+            tm.setPercentiles(en.getKey(), pct(s, 0.50), pct(s, 0.95), pct(s, 0.99));
+            s.n = 0;
+        }
+    }
+
+    private static double pct(Samples s, double p) {
+        return s.ns[Math.min(s.n - 1, (int) (s.n * p))] / 1e6;
+    }
+
+    @Override public void close() { rs.close(); }
+}
@@ -0,0 +1,174 @@
+package engine;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import jobs.JobPriority;
+import jobs.JobSystem;
+import world.Player;
+import world.World;
+
+/**
+ * Soak benchmark: N scripted bot players walking waypoint paths, digging and building through
+ * raycast + setBlock, against one in-process World with the full light/mesh pipeline running.
+ * Meshes are drained and dropped, as if a renderer consumed them.
+ *
+ * Reports once per second: achieved TPS, tick p50/p99/max, job backlog per JobPriority,
+ * loaded chunks and heap; at the end, whether the tick budget held and whether the job
+ * pipeline kept up (the sim can stay at 20 TPS while lighting/meshing silently fall behind).
+ * Args: [--bots N] [--edits N per bot per second] [--seconds N] [--ramp STEP]
+ * With --ramp the bot count grows by STEP every --seconds until the budget breaks.
+ */
+public class LoadGenerator {
+    /** A tick "holds" if p99 stays inside the step and the loop keeps up with the target rate. */
+    private static final double MIN_TPS_FRACTION = 0.97;
+    /** The job pipeline keeps up if its backlog ends a stage no larger than this or than it started. */
+    private static final int BACKLOG_SLACK = 256;
+
+    private static final class Bot {
+        final Player p = new Player();
+        final Random rnd;
+        final float[] path = new float[8]; // 4 waypoints (x,z)
+        int wp;
+        double editBudget;
+        int lastCx = Integer.MIN_VALUE, lastCy = Integer.MIN_VALUE, lastCz = Integer.MIN_VALUE;
+        float lastX, lastZ;
+
+        Bot(long seed, float radius) {
+            rnd = new Random(seed);
+            for (int i = 0; i < path.length; i++) path[i] = (rnd.nextFloat() * 2 - 1) * radius;
+            p.pos.set(path[0], 14, path[1]);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int bots = 16, seconds = 30, ramp = 0;
+        double edits = 1.0;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--bots" -> bots = Integer.parseInt(args[i + 1]);
+                case "--edits" -> edits = Double.parseDouble(args[i + 1]);
+                case "--seconds" -> seconds = Integer.parseInt(args[i + 1]);
+                case "--ramp" -> ramp = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        EngineConfig cfg = new EngineConfig();
+        cfg.saveDir = null;      // measure the sim, not the disk
+        cfg.meshCacheDir = null;
+        Telemetry tm = new Telemetry();
+        JobSystem jobs = new JobSystem(cfg, tm);
+        World world = new World(jobs, new InputState(), null, null);
+
+        Bot[] all = new Bot[0];
+        int stage = 0;
+        for (;;) {
+            int target = bots + stage * ramp;
+            int have = all.length;
+            all = Arrays.copyOf(all, target);
+            for (int i = have; i < target; i++) all[i] = new Bot(i * 7919L, 24 + 4 * (float)Math.sqrt(i));
+            System.out.printf("[Load] stage %d: %d bots, %.1f edits/s each, %d s%n", stage, target, edits, seconds);
+
+            boolean held = runStage(world, jobs, tm, cfg, all, edits, seconds, stage == 0);
+            System.out.printf("[Load] %d bots: %s%n", target, held ? "20 TPS budget held, jobs keeping up" : "BROKEN");
+            if (ramp <= 0 || !held) break;
+            stage++;
+        }
+        jobs.shutdown();
+    }
+
+    private static boolean runStage(World world, JobSystem jobs, Telemetry tm, EngineConfig cfg,
+                                    Bot[] bots, double editsPerSec, int seconds, boolean warmup) {
+        final long stepNs = (long)(1_000_000_000L / (double)cfg.targetTps);
+        final float dt = 1.0f / cfg.targetTps;
+        double[] tickMs = new double[cfg.targetTps * 4];
+        int ticks = 0, totalTicks = 0, slowTicks = 0;
+        boolean held = true;
+        int firstBacklog = -1, backlog = 0;
+        long start = System.nanoTime(), next = start, reportAt = start + 1_000_000_000L;
+        long meshes = 0;
+
+        while (System.nanoTime() - start < seconds * 1_000_000_000L) {
+            long now = System.nanoTime();
+            if (now < next) { java.util.concurrent.locks.LockSupport.parkNanos(next - now); continue; }
+
+            long t0 = System.nanoTime();
+            for (Bot b : bots) stepBot(world, b, dt, editsPerSec);
+            world.tick(dt);
+            world.processChunkPipelines();
+            if (jobs.currentWorkers() == 0) jobs.runInlineFor(cfg.inlineJobBudgetMsWhenNoWorkers);
+            while (world.gpuUploads.poll() != null) meshes++;
+            double ms = (System.nanoTime() - t0) / 1_000_000.0;
+            tm.sampleSim(ms);
+            tm.markSimTick();
+            if (ticks == tickMs.length) tickMs = Arrays.copyOf(tickMs, ticks * 2);
+            tickMs[ticks++] = ms;
+            totalTicks++;
+            if (ms > stepNs / 1_000_000.0) slowTicks++;
+            next += stepNs;
+
+            if (t0 >= reportAt) {
+                double secs = (t0 - reportAt + 1_000_000_000L) / 1e9;
+                Arrays.sort(tickMs, 0, ticks);
+                double p50 = tickMs[ticks / 2], p99 = tickMs[Math.min(ticks - 1, (int)(ticks * 0.99))];
+                double tps = ticks / secs;
+                Runtime rt = Runtime.getRuntime();
+                System.out.printf(
+                    "[Load] tps %.1f | tick p50 %.2f p99 %.2f max %.2f ms | backlog P0 %d P1H %d P1N %d P2 %d | chunks %d | meshes %d | heap %d MiB | workers %d%n",
+                    tps, p50, p99, tickMs[ticks - 1],
+                    jobs.queuedFor(JobPriority.P0_CRITICAL), jobs.queuedFor(JobPriority.P1_HIGH),
+                    jobs.queuedFor(JobPriority.P1_NEAR), jobs.queuedFor(JobPriority.P2_BACKGROUND),
+                    world.loadedChunkCount(), meshes, (rt.totalMemory() - rt.freeMemory()) >> 20, jobs.currentWorkers());
+                // the very first second is JIT + spawn-area generation, not steady state
+                boolean judged = !warmup || t0 - start > 1_500_000_000L;
+                if (judged && (p99 > stepNs / 1_000_000.0 || tps < cfg.targetTps * MIN_TPS_FRACTION)) held = false;
+                backlog = tm.getQueuedJobs();
+                if (judged && firstBacklog < 0) firstBacklog = backlog;
+                ticks = 0;
+                meshes = 0;
+                reportAt = t0 + 1_000_000_000L;
+            }
+        }
+        boolean keptUp = backlog <= Math.max(BACKLOG_SLACK, firstBacklog);
+        System.out.printf("[Load] %d/%d ticks over budget, job backlog %d -> %d (%s)%n", slowTicks, totalTicks,
+            Math.max(0, firstBacklog), backlog, keptUp ? "keeping up" : "falling behind");
+        return held && keptUp;
+    }
+
+    private static void stepBot(World world, Bot b, float dt, double editsPerSec) {
+        Player p = b.p;
+        // walk toward the current waypoint, hop when blocked
+        float tx = b.path[b.wp * 2], tz = b.path[b.wp * 2 + 1];
+        float dx = tx - p.pos.x, dz = tz - p.pos.z;
+        if (dx * dx + dz * dz < 4f) b.wp = (b.wp + 1) % (b.path.length / 2);
+        p.yaw = (float)Math.toDegrees(Math.atan2(dz, dx));
+        boolean stuck = Math.abs(p.pos.x - b.lastX) + Math.abs(p.pos.z - b.lastZ) < 0.01f;
+        b.lastX = p.pos.x; b.lastZ = p.pos.z;
+        p.tick(world, true, false, false, false, false, false, false, stuck, dt);
+        p.postSimTick();
+
+        // keep the bot's neighborhood resident
+        int cx = Math.floorDiv((int)Math.floor(p.pos.x), World.CHUNK_SIZE_X);
+        int cy = Math.floorDiv((int)Math.floor(p.pos.y), World.CHUNK_SIZE_Y);
+        int cz = Math.floorDiv((int)Math.floor(p.pos.z), World.CHUNK_SIZE_Z);
+        if (cx != b.lastCx || cy != b.lastCy || cz != b.lastCz) {
+            world.requestInitialChunks(cx, cy, cz, 2);
+            b.lastCx = cx; b.lastCy = cy; b.lastCz = cz;
+        }
+
+        // dig or build at a random spot ahead and below
+        b.editBudget += editsPerSec * dt;
+        while (b.editBudget >= 1) {
+            b.editBudget -= 1;
+            float yaw = (float)Math.toRadians(p.yaw + (b.rnd.nextFloat() - 0.5f) * 60f);
+            float pitch = (float)Math.toRadians(-30f - b.rnd.nextFloat() * 40f);
+            float ex = p.pos.x, ey = p.pos.y + World.PLAYER_EYE_HEIGHT / 2f, ez = p.pos.z;
+            World.RayHit hit = world.rays.cast(ex, ey, ez,
+                (float)(Math.cos(yaw) * Math.cos(pitch)), (float)Math.sin(pitch), (float)(Math.sin(yaw) * Math.cos(pitch)), 6f);
+            if (hit == null) continue;
+            if (b.rnd.nextBoolean()) world.setBlock(hit.x, hit.y, hit.z, World.AIR);
+            else world.setBlock(hit.x + hit.nx, hit.y + hit.ny, hit.z + hit.nz, World.STONE);
+        }
+    }
+}
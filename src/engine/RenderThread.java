@@ -1,14 +1,29 @@
 package engine;
 
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
 import render.Renderer;
 
 public final class RenderThread extends Thread {
-    private final Renderer renderer;
+    private final Supplier<Renderer> factory;
+    private final CountDownLatch worldReady; // null = start drawing right away
     private final Telemetry tm;
     private volatile boolean running = true;
 
     public RenderThread(Renderer renderer, Telemetry tm) {
-        this.renderer = renderer;
+        this(() -> renderer, tm, null);
+    }
+
+    /**
+     * Builds the renderer on this thread, so the render package (and LWJGL with it) is loaded
+     * and the window created while the main thread warms up the world; the first frame waits
+     * for {@code worldReady}.
+     */
+    public RenderThread(Supplier<Renderer> factory, Telemetry tm, CountDownLatch worldReady) {
+        this.factory = factory;
+        this.worldReady = worldReady;
         this.tm = tm;
         setName("RenderThread");
     }
@@ -20,15 +35,22 @@ public final class RenderThread extends Thread {
     @Override
     public void run() {
         System.out.println("[RenderThread] start");
+        Renderer renderer = factory.get();
         try {
             System.out.println("[RenderThread] calling renderer.init()");
             renderer.init();
-            System.out.println("[RenderThread] init OK, entering loop");
+            System.out.println("[RenderThread] init OK at " + ManagementFactory.getRuntimeMXBean().getUptime() + " ms");
+            if (worldReady != null) worldReady.await();
+
+            // the steady-state loop should not allocate; this keeps the number visible
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            boolean measureAlloc = threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled();
 
             // Render until either:
             //  - someone calls requestStop(), OR
             //  - the window asks to close.
             while (running) {
+                long alloc0 = measureAlloc ? threads.getCurrentThreadAllocatedBytes() : 0;
                 renderer.pollInput();
 
                 if (renderer.shouldClose()) {
@@ -36,11 +58,20 @@ public final class RenderThread extends Thread {
                     break;
                 }
 
+                EngineEvents.Frame ev = new EngineEvents.Frame();
+                ev.begin();
                 renderer.drainGpuUploadQueue();
                 renderer.cullAndRenderFrame();
 
                 tm.markFrame();  // updates FPS
+                ev.frame = tm.getFrameCount();
+                ev.commit();
+                if (measureAlloc) tm.recordFrameAlloc(threads.getCurrentThreadAllocatedBytes() - alloc0);
+                if (ev.frame == 1)
+                    System.out.println("[Startup] first complete frame at " + ManagementFactory.getRuntimeMXBean().getUptime() + " ms after JVM start");
             }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
         } finally {
             System.out.println("[RenderThread] calling renderer.shutdown()");
             renderer.shutdown();
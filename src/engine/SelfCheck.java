@@ -0,0 +1,689 @@
+package engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import jobs.Job;
+import jobs.JobHandle;
+import jobs.JobPriority;
+import jobs.JobSystem;
+import world.EditJournal;
+import world.EntityPhysics;
+import world.RaycastEngine;
+import world.World;
+import world.WorldCheck;
+import world.World.Chunk;
+import world.World.ChunkPos;
+
+/**
+ * Headless checks and benchmarks for guarantees the engine makes, one mode per run.
+ * Checks exit with status 1 when the guarantee does not hold; benchmarks only report.
+ * Args: MODE [options]
+ * - journal-crash [--rounds N]: a child process appends edits and reports how many are
+ *   durable; it is killed (SIGKILL) at a random point, possibly mid-compaction, and every
+ *   edit it reported must come back when the journal is reopened. First, in process: chunks
+ *   edited, unloaded and regenerated within one commit interval must keep those edits
+ * - torn-read [--workers N] [--seconds N]: the sim thread toggles voxels that change one
+ *   chunk's geometry (its own voxels, a neighbor's border) and its light (a lid in the chunk
+ *   above) while N workers relight and remesh it; every mesh uploaded must match one the
+ *   single-threaded pipeline builds for some combination of those states. Also reports the
+ *   uncontended ms per mesh with and without the stamp validation
+ * - entities [--count N] [--ticks N] [--workers N]: benchmark; N entities hopping around
+ *   the spawn area, EntityPhysics.step per tick (p50/p99/max ms, heap bytes per step on
+ *   the sim thread), then a neighbor query per entity against the spatial hash
+ * - raycast [--rays N] [--workers N]: benchmark; rays/sec through RaycastEngine for short
+ *   (8-block, interaction reach) and long (160-block, line of sight) rays over the spawn
+ *   area with scattered pillars, single casts on this thread and castBatch across workers
+ * - empty-chunks: spawn warmup, then an edit in the sky made and undone; all-air chunks must
+ *   be lit and posted as "nothing to draw" without a single LightJob or MeshJob
+ * - mesher [--rounds N]: MeshJob.build against a per-voxel reference mesher after N rounds
+ *   of random edits across chunk borders (quads, colours and light must match exactly),
+ *   then ms per chunk of both on half-solid random terrain
+ * - lod: ChunkLod level thresholds, the 2×2×2 merge rule on hand-built cells, border faces
+ *   of a full chunk at every level, and a pyramid rebuilt once its chunk is edited
+ * - shared: SharedArrays; an edit to pooled content stays in its chunk, pool references
+ *   and arrays return to where they were after loading and unloading an area, and heap
+ *   per chunk for the flat world and a heightfield
+ * - pack [--chunks N] [--workers N] [--seconds N]: the cold tier; N random chunks through
+ *   PackJob and InflateJob (and ChunkCodec.packRuns) must come back with the same voxels,
+ *   light and solidity masks, then Chunk.set races packing and inflating on N workers and
+ *   no edit may be lost
+ * - jobs [--workers N]: the dependency graph on a JobSystem with N workers: a diamond,
+ *   a chain of continuations (also off JobHandle.DONE), the first released dependent
+ *   running on the finishing worker, a fence timing out on a blocked job, and dependents
+ *   of a cancelled job still running
+ * - admin: AdminServer on a free loopback port next to a running SimulationThread; every
+ *   endpoint, its wrong-method and bad-argument replies, well-formed Prometheus text, a
+ *   worker ceiling change showing up in /metrics and a save leaving chunk snapshots on disk
+ */
+public class SelfCheck {
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) throw new IllegalArgumentException("usage: SelfCheck MODE [options]");
+        String[] opts = Arrays.copyOfRange(args, 1, args.length);
+        boolean ok = switch (args[0]) {
+            case "journal-crash" -> journalCrash(intOpt(opts, "--rounds", 5));
+            case "torn-read" -> tornRead(intOpt(opts, "--workers", 8), intOpt(opts, "--seconds", 10));
+            case "entities" -> entities(intOpt(opts, "--count", 10_000), intOpt(opts, "--ticks", 600),
+                intOpt(opts, "--workers", new EngineConfig().maxWorkers));
+            case "raycast" -> raycast(intOpt(opts, "--rays", 200_000), intOpt(opts, "--workers", new EngineConfig().maxWorkers));
+            case "empty-chunks" -> emptyChunks();
+            case "mesher" -> WorldCheck.mesher(intOpt(opts, "--rounds", 200));
+            case "lod" -> WorldCheck.lod();
+            case "shared" -> WorldCheck.shared();
+            case "pack" -> WorldCheck.pack(intOpt(opts, "--chunks", 500), intOpt(opts, "--workers", 4),
+                intOpt(opts, "--seconds", 5));
+            case "jobs" -> jobs(intOpt(opts, "--workers", 2));
+            case "admin" -> admin();
+            case "journal-writer" -> { journalWriter(Path.of(opts[0]), Long.parseLong(opts[1])); yield true; } // child of journal-crash
+            default -> throw new IllegalArgumentException("unknown mode " + args[0]);
+        };
+        System.out.println(ok ? "[SelfCheck] " + args[0] + ": ok" : "[SelfCheck] " + args[0] + ": FAILED");
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static int intOpt(String[] opts, String name, int dflt) {
+        for (int i = 0; i + 1 < opts.length; i += 2) {
+            if (opts[i].equals(name)) return Integer.parseInt(opts[i + 1]);
+            if (!opts[i].startsWith("--")) break;
+        }
+        return dflt;
+    }
+
+    // ---- journal-crash ----
+
+    // edit i goes to its own air voxel, so any lost or misplaced edit shows
+    private static int editX(long i) { return (int) (i & 255); }
+    private static int editY(long i) { return 100 + (int) (i >> 16); }
+    private static int editZ(long i) { return (int) ((i >> 8) & 255); }
+    private static byte editId(long i) { return (byte) (1 + i % 3); }
+
+    private static boolean journalCrash(int rounds) throws Exception {
+        Path dir = Files.createTempDirectory("voxel-journal-crash");
+        Random rnd = new Random(7);
+        long acked = 0;
+        boolean ok;
+        try {
+            ok = regenerateBeforeCommit(dir.resolve("regen"));
+            for (int round = 1; round <= rounds && ok; round++) {
+                Process child = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"), SelfCheck.class.getName(),
+                    "journal-writer", dir.toString(), Long.toString(acked))
+                    .redirectErrorStream(true).start();
+                AtomicLong reported = new AtomicLong(acked);
+                Thread reader = new Thread(() -> {
+                    try (BufferedReader r = new BufferedReader(new InputStreamReader(child.getInputStream()))) {
+                        for (String line; (line = r.readLine()) != null; )
+                            if (line.startsWith("durable ")) reported.set(Long.parseLong(line.substring(8)));
+                    } catch (IOException ignored) {}
+                });
+                reader.start();
+                Thread.sleep(300 + rnd.nextInt(700));
+                child.destroyForcibly().waitFor();
+                reader.join();
+                acked = reported.get();
+
+                try (EditJournal j = EditJournal.open(dir, new EngineConfig())) {
+                    long missing = verify(j, acked);
+                    System.out.printf("[SelfCheck] round %d: %d acknowledged edits, %d missing%n", round, acked, missing);
+                    ok = missing == 0;
+                }
+            }
+        } finally {
+            try (var files = Files.walk(dir)) {
+                for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.deleteIfExists(p);
+            }
+        }
+        return ok;
+    }
+
+    /**
+     * Edits still queued for the writer (the commit interval is far off) must reach a chunk
+     * generated again after an unload, and be durable once the journal closes.
+     */
+    private static boolean regenerateBeforeCommit(Path dir) throws Exception {
+        EngineConfig cfg = new EngineConfig();
+        cfg.journalCommitIntervalMs = 60_000;
+        int[][] edits = { { 5, 100, 5, World.STONE }, { 5, 3, 5, World.AIR } }; // into sky, out of terrain
+        boolean ok = true;
+        JobSystem jobs = tornJobs(0);
+        try {
+            EditJournal j = EditJournal.open(dir, cfg);
+            World w = new World(jobs, new InputState(), j, null);
+            w.setMeshing(false);
+            for (int[] e : edits) w.setBlock(e[0], e[1], e[2], (byte) e[3]);
+            ok &= expect(j.durableEdits() == 0, "edits committed before the check could run");
+            for (int[] e : edits) w.unloadChunk(new ChunkPos(0, Math.floorDiv(e[1], World.CHUNK_SIZE_Y), 0));
+            int kept = 0;
+            for (int[] e : edits) if (regenerated(w, e) == e[3]) kept++;
+            System.out.printf("[SelfCheck] regenerated before the group commit: %d of %d edits kept%n", kept, edits.length);
+            ok &= expect(kept == edits.length, "edits queued for the writer missing from a regenerated chunk");
+            j.close();
+
+            try (EditJournal again = EditJournal.open(dir, new EngineConfig())) {
+                World w2 = new World(jobs, new InputState(), again, null);
+                w2.setMeshing(false);
+                for (int[] e : edits)
+                    ok &= expect(regenerated(w2, e) == e[3], "edit at y=" + e[1] + " lost on close");
+            }
+        } finally {
+            jobs.shutdown();
+        }
+        return ok;
+    }
+
+    /** Block at edit {@code e}, generating its chunk if it is not loaded. */
+    private static byte regenerated(World w, int[] e) {
+        w.ensureChunk(Math.floorDiv(e[0], World.CHUNK_SIZE_X), Math.floorDiv(e[1], World.CHUNK_SIZE_Y),
+            Math.floorDiv(e[2], World.CHUNK_SIZE_Z));
+        return w.getBlock(e[0], e[1], e[2]);
+    }
+
+    /** Edits [0, acked) that the reopened journal does not reproduce. */
+    private static long verify(EditJournal j, long acked) {
+        Map<ChunkPos, Chunk> chunks = new HashMap<>();
+        long missing = 0;
+        for (long i = 0; i < acked; i++) {
+            int x = editX(i), y = editY(i), z = editZ(i);
+            ChunkPos pos = new ChunkPos(Math.floorDiv(x, World.CHUNK_SIZE_X), Math.floorDiv(y, World.CHUNK_SIZE_Y),
+                Math.floorDiv(z, World.CHUNK_SIZE_Z));
+            Chunk c = chunks.computeIfAbsent(pos, p -> { Chunk n = new Chunk(); j.applyTo(p, n); return n; });
+            if (c.get(Math.floorMod(x, World.CHUNK_SIZE_X), Math.floorMod(y, World.CHUNK_SIZE_Y),
+                    Math.floorMod(z, World.CHUNK_SIZE_Z)) != editId(i)) missing++;
+        }
+        return missing;
+    }
+
+    /** Child side: appends edits from {@code first} on, printing how far they are durable, until killed. */
+    private static void journalWriter(Path dir, long first) throws Exception {
+        EngineConfig cfg = new EngineConfig();
+        EditJournal j = EditJournal.open(dir, cfg);
+        long next = first, printed = -1;
+        for (int burst = 0; ; burst++) {
+            for (int k = 0; k < 100; k++, next++) j.append(editX(next), editY(next), editZ(next), editId(next));
+            if (burst % 50 == 49) j.requestCompaction();
+            long durable = first + j.durableEdits();
+            if (durable != printed) { System.out.println("durable " + durable); printed = durable; }
+            Thread.sleep(2);
+        }
+    }
+
+    // ---- torn-read ----
+
+    // flat terrain (stone below y=9, air from TERRAIN_TOP up); all toggles concern chunk (0,0,0)
+    private static final ChunkPos TORN_CHUNK = new ChunkPos(0, 0, 0);
+    private static final int[][] TOGGLES = {
+        { 4, 3, 4 },  // buried in the chunk: geometry only (light stays 0 around it)
+        { 16, 3, 4 }, // buried on the east neighbor's border: this chunk's east faces
+        { 8, 16, 8 }, // a lid above a shaft dug into the chunk: its light only
+    };
+
+    private static boolean tornRead(int workers, int seconds) throws Exception {
+        // reference meshes: one worker-less world, drained inline after every change
+        JobSystem refJobs = tornJobs(0);
+        World ref = tornWorld(refJobs);
+        long[] expected = new long[1 << TOGGLES.length];
+        for (int n = 0; n < expected.length; n++) {
+            int state = n ^ (n >> 1); // Gray code: one toggle per step, so every step remeshes the chunk
+            applyTornState(ref, state);
+            quiesce(refJobs);
+            World.GpuUpload last = null;
+            for (World.GpuUpload up; (up = ref.gpuUploads.poll()) != null; )
+                if (up.pos.equals(TORN_CHUNK) && up.mesh != null) last = up;
+            if (last == null) throw new IllegalStateException("no mesh for state " + state);
+            expected[state] = last.mesh.contentHash;
+        }
+        double[] readMs = WorldCheck.meshReadMs(ref, TORN_CHUNK, 2_000);
+        System.out.printf("[SelfCheck] torn-read: uncontended mesh %.3f ms/chunk plain, %.3f ms with stamp validation (%+.1f%%)%n",
+            readMs[0], readMs[1], 100 * (readMs[1] / readMs[0] - 1));
+        refJobs.shutdown();
+        Set<Long> valid = new HashSet<>();
+        for (long h : expected) valid.add(h);
+        if (valid.size() != expected.length) // some toggle did not reach the mesh: the check would prove nothing
+            throw new IllegalStateException("toggles do not all change the mesh: " + valid.size() + " distinct of " + expected.length);
+
+        JobSystem jobs = tornJobs(workers);
+        World w = tornWorld(jobs);
+        w.gpuUploads.clear(); // setup meshes
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong meshes = new AtomicLong(), torn = new AtomicLong();
+        AtomicLong lastHash = new AtomicLong();
+        Thread consumer = new Thread(() -> {
+            while (!stop.get() || !w.gpuUploads.isEmpty()) {
+                World.GpuUpload up = w.gpuUploads.poll();
+                if (up == null) { Thread.onSpinWait(); continue; }
+                if (!up.pos.equals(TORN_CHUNK) || up.mesh == null) continue;
+                meshes.incrementAndGet();
+                lastHash.set(up.mesh.contentHash);
+                if (!valid.contains(up.mesh.contentHash)) torn.incrementAndGet();
+            }
+        }, "torn-read-consumer");
+        consumer.start();
+
+        Random rnd = new Random(42);
+        int state = 0;
+        long toggles = 0, end = System.nanoTime() + seconds * 1_000_000_000L;
+        while (System.nanoTime() < end) {
+            state ^= 1 << rnd.nextInt(TOGGLES.length);
+            applyTornState(w, state);
+            toggles++;
+            LockSupport.parkNanos(20_000); // leave the workers room to mesh between edits
+        }
+        quiesce(jobs); // the last mesh must be the one for the final state
+        stop.set(true);
+        consumer.join();
+        jobs.shutdown();
+
+        boolean settled = lastHash.get() == expected[state];
+        System.out.printf("[SelfCheck] torn-read: %d workers, %d toggles, %d meshes, %d torn, final mesh %s%n",
+            workers, toggles, meshes.get(), torn.get(), settled ? "current" : "STALE");
+        return torn.get() == 0 && meshes.get() > 0 && settled;
+    }
+
+    private static JobSystem tornJobs(int workers) {
+        EngineConfig cfg = new EngineConfig();
+        cfg.enableAutoscale = false;
+        cfg.minWorkers = cfg.maxWorkers = workers;
+        return new JobSystem(cfg, new Telemetry());
+    }
+
+    /** The flat spawn area with a shaft dug under the lid position, fully lit and meshed. */
+    private static World tornWorld(JobSystem jobs) throws InterruptedException {
+        World w = new World(jobs, new InputState(), null, null);
+        w.warmup(0, 0, 0, 1, 1);
+        int[] lid = TOGGLES[2];
+        for (int y = 6; y < lid[1]; y++) w.setBlock(lid[0], y, lid[2], World.AIR);
+        quiesce(jobs);
+        return w;
+    }
+
+    /** Bit i of {@code state} set = TOGGLES[i] flipped from its generated content. */
+    private static void applyTornState(World w, int state) {
+        for (int i = 0; i < TOGGLES.length; i++) {
+            int[] t = TOGGLES[i];
+            byte id = (i == 2) == ((state >> i & 1) != 0) ? World.STONE : World.AIR;
+            if (w.getBlock(t[0], t[1], t[2]) != id) w.setBlock(t[0], t[1], t[2], id);
+        }
+    }
+
+    private static int queued(JobSystem jobs) {
+        int q = 0;
+        for (JobPriority p : JobPriority.values()) q += jobs.queuedFor(p);
+        return q;
+    }
+
+    /** Until no job is queued or (with workers) still running: inline without workers, else 200 ms of empty queues. */
+    private static void quiesce(JobSystem jobs) throws InterruptedException {
+        if (jobs.currentWorkers() == 0) {
+            while (queued(jobs) > 0) jobs.runInlineFor(50);
+            return;
+        }
+        for (int idle = 0; idle < 10; idle = queued(jobs) == 0 ? idle + 1 : 0) Thread.sleep(20);
+    }
+
+    // ---- empty-chunks ----
+
+    private static boolean emptyChunks() throws Exception {
+        JobSystem jobs = tornJobs(0);
+        Telemetry tm = new Telemetry();
+        World w = new World(jobs.newTenant("empty-chunks", 1, tm), new InputState(), null, null);
+        int r = 2, ry = 2, side = 2 * r + 1;
+        w.warmup(0, 0, 0, r, ry);
+        quiesce(jobs);
+
+        int n = side * side * (2 * ry + 1), empty = 0;
+        boolean ok = true;
+        for (int cy = -ry; cy <= ry; cy++)
+            for (int cz = -r; cz <= r; cz++)
+                for (int cx = -r; cx <= r; cx++) {
+                    Chunk c = w.chunkAt(cx, cy, cz);
+                    if (!c.isEmpty()) continue;
+                    empty++;
+                    ok &= expect(c.getLight(0, 0, 0) == World.MAX_LIGHT && c.getLight(15, 15, 15) == World.MAX_LIGHT,
+                        "sky chunk " + cx + "," + cy + "," + cz + " is not fully lit");
+                }
+        long warmupJobs = tm.jobsRun();
+        Map<ChunkPos, Integer> uploads = new HashMap<>();
+        for (World.GpuUpload up; (up = w.gpuUploads.poll()) != null; ) uploads.merge(up.pos, 1, Integer::sum);
+        ok &= expect(empty > 0 && empty < n, "the spawn area should mix sky and terrain chunks");
+        ok &= expect(warmupJobs == n + 2L * (n - empty), "warmup ran " + warmupJobs + " jobs, expected "
+            + n + " generate + " + (n - empty) + " light + " + (n - empty) + " mesh");
+        ok &= expect(uploads.size() == n && uploads.values().stream().allMatch(k -> k == 1), "not one upload per chunk");
+        // the surface under the sky chunks got its skylight through them
+        ok &= expect(w.chunkAt(0, 0, 0).getLight(0, World.TERRAIN_TOP, 0) == World.MAX_LIGHT, "surface not lit from the sky");
+
+        // a block placed in the sky takes the job pair and shades the column down to the surface;
+        // taking it away again settles both sky chunks inline, only the surface chunk is relit
+        w.setBlock(8, 40, 8, World.STONE);
+        quiesce(jobs);
+        w.gpuUploads.clear();
+        long before = tm.jobsRun();
+        w.setBlock(8, 40, 8, World.AIR);
+        quiesce(jobs);
+        Set<ChunkPos> cleared = new HashSet<>();
+        for (World.GpuUpload up; (up = w.gpuUploads.poll()) != null; ) if (up.mesh == null) cleared.add(up.pos);
+        ok &= expect(tm.jobsRun() - before == 2, "clearing the sky ran " + (tm.jobsRun() - before)
+            + " jobs, expected the surface chunk's light + mesh");
+        ok &= expect(cleared.contains(new ChunkPos(0, 2, 0)) && cleared.contains(new ChunkPos(0, 1, 0)),
+            "the sky chunks were not posted as nothing to draw");
+        ok &= expect(w.chunkAt(0, 0, 0).getLight(8, World.TERRAIN_TOP, 8) == World.MAX_LIGHT, "the shadow stayed on the surface");
+        jobs.shutdown();
+        System.out.printf("[SelfCheck] empty-chunks: %d chunks, %d all air, %d jobs in warmup%n", n, empty, warmupJobs);
+        return ok;
+    }
+
+    // ---- jobs ----
+
+    /** A job that logs its name and thread, optionally cancelled or blocked on a latch. */
+    private record Step(String name, ConcurrentLinkedQueue<String> log, JobPriority priority, boolean cancelled,
+                        CountDownLatch gate) implements Job {
+        Step(String name, ConcurrentLinkedQueue<String> log) { this(name, log, JobPriority.P1_HIGH, false, null); }
+        @Override public boolean isCancelled() { return cancelled; }
+        @Override public void run() {
+            try { if (gate != null) gate.await(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            log.add(name + "@" + Thread.currentThread().getName());
+        }
+    }
+
+    private static boolean jobs(int workers) {
+        if (workers < 1) throw new IllegalArgumentException("jobs needs at least one worker");
+        JobSystem js = tornJobs(workers);
+        JobSystem.Tenant t = js.newTenant("jobs", 1, new Telemetry());
+        boolean ok = true;
+
+        // diamond: a, then b and c, then d once both are done. a waits until the graph is built,
+        // so b and c are released by a's completion; the worker that ran a keeps b (its first
+        // released dependent) on its local queue. b is background priority, so from the shared
+        // queue that worker would take c first; repeated, as another worker could take b by chance
+        ConcurrentLinkedQueue<String> log = new ConcurrentLinkedQueue<>();
+        for (int round = 0; round < 20 && ok; round++) {
+            log.clear();
+            CountDownLatch built = new CountDownLatch(1);
+            JobHandle a = t.submit(new Step("a", log, JobPriority.P1_HIGH, false, built));
+            JobHandle b = a.then(t, new Step("b", log, JobPriority.P2_BACKGROUND, false, null)), c = a.then(t, new Step("c", log));
+            JobHandle d = t.submit(new Step("d", log), b, c);
+            built.countDown();
+            ok &= expect(t.fence(2_000, d), "diamond did not finish");
+            List<String> order = names(log);
+            ok &= expect(order.size() == 4 && order.get(0).equals("a") && order.get(3).equals("d"),
+                "diamond ran as " + order);
+            Map<String, String> thread = threads(log);
+            ok &= expect(thread.get("b").equals(thread.get("a")), "first dependent ran on " + thread.get("b")
+                + ", its dependency on " + thread.get("a"));
+        }
+
+        // a chain of continuations, the first one off an already finished handle
+        log.clear();
+        JobHandle h = JobHandle.DONE;
+        for (int i = 0; i < 8; i++) h = h.then(t, new Step("chain" + i, log));
+        ok &= expect(t.fence(2_000, h), "chain did not finish");
+        List<String> order = names(log);
+        for (int i = 0; i < 8; i++)
+            ok &= expect(order.size() == 8 && order.get(i).equals("chain" + i), "chain ran as " + order);
+
+        // a fence gives up on a job that cannot finish yet, and succeeds once it can
+        log.clear();
+        CountDownLatch gate = new CountDownLatch(1);
+        JobHandle blocked = t.submit(new Step("blocked", log, JobPriority.P1_HIGH, false, gate));
+        long t0 = System.nanoTime();
+        boolean early = t.fence(50, blocked);
+        long waitedMs = (System.nanoTime() - t0) / 1_000_000;
+        ok &= expect(!early && waitedMs >= 50, "fence on a blocked job returned " + early + " after " + waitedMs + " ms");
+        gate.countDown();
+        ok &= expect(t.fence(2_000, blocked), "fence after unblocking timed out");
+
+        // a cancelled job is dropped without running, its dependents still run
+        log.clear();
+        JobHandle dropped = t.submit(new Step("dropped", log, JobPriority.P1_HIGH, true, null));
+        JobHandle after = dropped.then(t, new Step("after", log));
+        JobHandle also = t.submit(new Step("also", log), dropped, JobHandle.DONE);
+        ok &= expect(t.fence(2_000, after, also), "dependents of a cancelled job never ran");
+        order = names(log);
+        ok &= expect(!order.contains("dropped") && order.contains("after") && order.contains("also"),
+            "around a cancelled job ran " + order);
+
+        js.shutdown();
+        System.out.printf("[SelfCheck] jobs: %d workers, fence gave up after %d ms%n", workers, waitedMs);
+        return ok;
+    }
+
+    private static List<String> names(ConcurrentLinkedQueue<String> log) {
+        List<String> out = new ArrayList<>();
+        for (String s : log) out.add(s.substring(0, s.indexOf('@')));
+        return out;
+    }
+
+    private static Map<String, String> threads(ConcurrentLinkedQueue<String> log) {
+        Map<String, String> out = new HashMap<>();
+        for (String s : log) out.put(s.substring(0, s.indexOf('@')), s.substring(s.indexOf('@') + 1));
+        return out;
+    }
+
+    // ---- entities ----
+
+    private static boolean entities(int count, int ticks, int workers) throws Exception {
+        JobSystem jobs = tornJobs(workers);
+        World w = new World(jobs, new InputState(), null, null);
+        w.warmup(0, 0, 0, 4, 1);
+        float dt = 1f / new EngineConfig().targetTps, range = 4 * World.CHUNK_SIZE_X - 8;
+        EntityPhysics ents = w.entities;
+        Random rnd = new Random(11);
+        for (int i = 0; i < count; i++)
+            ents.spawn((rnd.nextFloat() * 2 - 1) * range, World.TERRAIN_TOP + 1 + rnd.nextFloat() * 16,
+                (rnd.nextFloat() * 2 - 1) * range, 0.3f, 0.45f, 0.3f);
+
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        double[] stepMs = new double[ticks];
+        long allocated = 0;
+        for (int t = -ticks / 4; t < ticks; t++) { // the first quarter warms up the JIT
+            for (int id = 0; id < count; id++) { // mobs: hop in a random direction, back toward the middle if far out
+                if (!ents.onGround(id) || rnd.nextInt(8) != 0) continue;
+                float x = ents.x(id), z = ents.z(id);
+                float vx = Math.abs(x) > range ? -Math.signum(x) * 4 : (rnd.nextFloat() * 2 - 1) * 4;
+                float vz = Math.abs(z) > range ? -Math.signum(z) * 4 : (rnd.nextFloat() * 2 - 1) * 4;
+                ents.setVelocity(id, vx, 7, vz);
+            }
+            long a0 = threads.getCurrentThreadAllocatedBytes(), t0 = System.nanoTime();
+            ents.step(dt);
+            long ns = System.nanoTime() - t0;
+            if (t < 0) continue;
+            allocated += threads.getCurrentThreadAllocatedBytes() - a0;
+            stepMs[t] = ns / 1e6;
+        }
+        Arrays.sort(stepMs);
+        System.out.printf("[SelfCheck] entities: %d entities, %d workers | step p50 %.2f p99 %.2f max %.2f ms | %.1f B/step%n",
+            count, jobs.currentWorkers(), stepMs[ticks / 2], stepMs[Math.min(ticks - 1, (int) (ticks * 0.99))],
+            stepMs[ticks - 1], allocated / (double) ticks);
+
+        int[] out = new int[256];
+        long found = 0, t0 = System.nanoTime();
+        for (int id = 0; id < count; id++) {
+            float x = ents.x(id), y = ents.y(id), z = ents.z(id);
+            found += ents.query(x - 2, y - 2, z - 2, x + 2, y + 2, z + 2, out);
+        }
+        double queryUs = (System.nanoTime() - t0) / 1e3 / count;
+        System.out.printf("[SelfCheck] entities: neighbor query %.2f us, %.1f entities within 2 blocks on average%n",
+            queryUs, found / (double) count);
+        jobs.shutdown();
+        return true;
+    }
+
+    // ---- raycast ----
+
+    private static boolean raycast(int rays, int workers) throws Exception {
+        JobSystem jobs = tornJobs(workers);
+        World w = new World(jobs, new InputState(), null, null);
+        w.setMeshing(false); // voxels only: generation happens inline, nothing is queued
+        w.requestInitialChunks(0, 0, 0, 8);
+        Random rnd = new Random(3);
+        int span = 8 * World.CHUNK_SIZE_X;
+        for (int i = 0; i < 400; i++) { // pillars, so long rays hit something besides the ground
+            int x = rnd.nextInt(2 * span) - span, z = rnd.nextInt(2 * span) - span, h = 2 + rnd.nextInt(24);
+            for (int y = World.TERRAIN_TOP; y < World.TERRAIN_TOP + h; y++) w.setBlock(x, y, z, World.STONE);
+        }
+
+        RaycastEngine engine = w.rays;
+        RaycastEngine.Batch batch = new RaycastEngine.Batch(rays);
+        for (int i = 0; i < rays; i++) { // eyes above the ground, looking around and slightly down
+            float yaw = rnd.nextFloat() * 6.2831855f, pitch = -0.5f + rnd.nextFloat() * 0.6f;
+            batch.set(i, (rnd.nextFloat() * 2 - 1) * 64, World.TERRAIN_TOP + 1.6f + rnd.nextFloat() * 8,
+                (rnd.nextFloat() * 2 - 1) * 64, (float) (Math.cos(yaw) * Math.cos(pitch)), (float) Math.sin(pitch),
+                (float) (Math.sin(yaw) * Math.cos(pitch)));
+        }
+        batch.count = rays;
+
+        for (float maxDist : new float[] { 8, 160 }) {
+            double single = 0, batched = 0;
+            int hits = 0;
+            for (int round = 0; round < 3; round++) { // the last round counts; earlier ones warm up the JIT
+                long t0 = System.nanoTime();
+                hits = 0;
+                for (int i = 0; i < rays; i++) {
+                    int r = i * 6;
+                    float[] q = batch.rays;
+                    if (engine.cast(q[r], q[r + 1], q[r + 2], q[r + 3], q[r + 4], q[r + 5], maxDist) != null) hits++;
+                }
+                single = rays / ((System.nanoTime() - t0) / 1e9);
+                t0 = System.nanoTime();
+                engine.castBatch(batch, maxDist);
+                batched = rays / ((System.nanoTime() - t0) / 1e9);
+            }
+            System.out.printf("[SelfCheck] raycast %3.0f blocks: %.2f Mrays/s single, %.2f Mrays/s batched (%d workers), %.0f%% hit%n",
+                maxDist, single / 1e6, batched / 1e6, jobs.currentWorkers(), 100.0 * hits / rays);
+        }
+        jobs.shutdown();
+        return true;
+    }
+
+    // ---- admin ----
+
+    private static final String[] METRIC_FAMILIES = {
+        "voxel_frames_total", "voxel_tps", "voxel_job_workers", "voxel_job_workers_max", "voxel_jobs_queued",
+        "voxel_jobs_queued_by_priority", "voxel_jobs_oldest_age_seconds", "voxel_chunks", "voxel_shared_bytes",
+        "voxel_gpu_mesh_bytes",
+    };
+
+    private static boolean admin() throws Exception {
+        EngineConfig cfg = new EngineConfig();
+        cfg.enableAutoscale = false;
+        cfg.minWorkers = 0;
+        cfg.maxWorkers = 1;
+        Telemetry tm = new Telemetry();
+        JobSystem jobs = new JobSystem(cfg, tm);
+        Path dir = Files.createTempDirectory("voxel-admin");
+        EditJournal journal = EditJournal.open(dir, cfg);
+        World w = new World(jobs, new InputState(), journal, null);
+        w.setStreamRadius(3, 1);
+        SimulationThread sim = new SimulationThread(w, jobs, tm, cfg);
+        Thread simThread = new Thread(sim, "Simulation");
+        simThread.start();
+        boolean ok = true;
+        try (AdminServer admin = AdminServer.start(0, tm, jobs, w, journal);
+             AdminServer unsaved = AdminServer.start(0, tm, jobs, w, null)) {
+            HttpClient http = HttpClient.newHttpClient();
+            String base = "http://127.0.0.1:" + admin.port();
+            Thread.sleep(500); // a few ticks: chunks streaming, jobs queued
+
+            HttpResponse<String> r = send(http, "GET", base + "/metrics");
+            ok &= expect(r.statusCode() == 200, "GET /metrics: " + r.statusCode());
+            ok &= expect(r.headers().firstValue("Content-Type").orElse("").startsWith("text/plain; version=0.0.4"),
+                "GET /metrics: content type " + r.headers().firstValue("Content-Type"));
+            ok &= checkPrometheus(r.body());
+            ok &= expect(send(http, "POST", base + "/metrics").statusCode() == 405, "POST /metrics not refused");
+
+            r = send(http, "POST", base + "/admin/workers?max=3");
+            ok &= expect(r.statusCode() == 200 && jobs.maxWorkers() == 3, "POST /admin/workers?max=3: " + r.statusCode() + " " + r.body().trim());
+            ok &= expect(send(http, "GET", base + "/metrics").body().contains("\nvoxel_job_workers_max 3\n"),
+                "/metrics does not show the new worker ceiling");
+            ok &= expect(send(http, "POST", base + "/admin/workers").statusCode() == 400, "POST /admin/workers without max not refused");
+            ok &= expect(send(http, "POST", base + "/admin/workers?max=x").statusCode() == 400, "POST /admin/workers?max=x not refused");
+            ok &= expect(send(http, "GET", base + "/admin/workers?max=2").statusCode() == 405, "GET /admin/workers not refused");
+
+            journal.append(3, World.TERRAIN_TOP, 3, World.STONE);
+            Thread.sleep(50); // one group commit
+            r = send(http, "POST", base + "/admin/save");
+            ok &= expect(r.statusCode() == 202, "POST /admin/save: " + r.statusCode());
+            boolean saved = false;
+            for (int i = 0; i < 100 && !saved; i++) {
+                Thread.sleep(20);
+                try (var files = Files.list(dir.resolve("chunks"))) { saved = files.findAny().isPresent(); }
+            }
+            ok &= expect(saved, "POST /admin/save left no chunk snapshot");
+            ok &= expect(send(http, "GET", base + "/admin/save").statusCode() == 405, "GET /admin/save not refused");
+            ok &= expect(send(http, "POST", "http://127.0.0.1:" + unsaved.port() + "/admin/save").statusCode() == 409,
+                "POST /admin/save without a journal not refused");
+
+            // scrapes are served off the sim thread: time a burst while it runs
+            double[] ms = new double[50];
+            for (int i = 0; i < ms.length; i++) {
+                long t0 = System.nanoTime();
+                send(http, "GET", base + "/metrics");
+                ms[i] = (System.nanoTime() - t0) / 1e6;
+            }
+            Arrays.sort(ms);
+            System.out.printf("[SelfCheck] admin: /metrics p50 %.2f max %.2f ms, sim %.1f TPS%n", ms[ms.length / 2], ms[ms.length - 1], tm.tps());
+        } finally {
+            sim.stop();
+            simThread.join();
+            journal.close();
+            jobs.shutdown();
+            try (var files = Files.walk(dir)) {
+                for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.deleteIfExists(p);
+            }
+        }
+        return ok;
+    }
+
+    private static HttpResponse<String> send(HttpClient http, String method, String url) throws Exception {
+        HttpRequest req = HttpRequest.newBuilder(URI.create(url)).method(method, HttpRequest.BodyPublishers.noBody()).build();
+        return http.send(req, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /** Every sample line is "name[{labels}] number", every family has HELP and TYPE, the expected families are there. */
+    private static boolean checkPrometheus(String body) {
+        Set<String> typed = new HashSet<>(), sampled = new HashSet<>();
+        boolean ok = true;
+        for (String line : body.split("\n")) {
+            if (line.startsWith("# TYPE ")) { typed.add(line.split(" ")[2]); continue; }
+            if (line.startsWith("#")) continue;
+            int sp = line.lastIndexOf(' ');
+            String series = sp > 0 ? line.substring(0, sp) : line;
+            String name = series.contains("{") ? series.substring(0, series.indexOf('{')) : series;
+            try {
+                Double.parseDouble(line.substring(sp + 1));
+            } catch (RuntimeException e) {
+                ok = expect(false, "malformed sample: " + line);
+            }
+            ok &= expect(typed.contains(name), "sample before its # TYPE: " + line);
+            sampled.add(name);
+        }
+        for (String f : METRIC_FAMILIES) ok &= expect(sampled.contains(f), "/metrics lacks " + f);
+        return ok;
+    }
+
+    private static boolean expect(boolean cond, String failure) {
+        if (!cond) System.out.println("[SelfCheck] " + failure);
+        return cond;
+    }
+}
@@ -26,6 +26,8 @@ public class SimulationThread implements Runnable {
             if (now < next) { LockSupport.parkNanos(next - now); continue; }
 
             long start = System.nanoTime();
+            EngineEvents.SimTick ev = new EngineEvents.SimTick();
+            ev.begin();
             world.consumeInputs();
             world.tick(1.0 / cfg.targetTps);
             world.processChunkPipelines();
@@ -34,6 +36,8 @@ public class SimulationThread implements Runnable {
                 jobs.runInlineFor(cfg.inlineJobBudgetMsWhenNoWorkers);
             }
 
+            ev.queuedJobs = tm.getQueuedJobs();
+            ev.commit();
             tm.sampleSim((System.nanoTime() - start) / 1_000_000.0);
             tm.markSimTick();
             next += stepNs;
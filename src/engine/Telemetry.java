@@ -1,5 +1,7 @@
 package engine;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -9,13 +11,21 @@ public class Telemetry {
     private static final double ALPHA = 0.1;
     
     private volatile long lastSimTickNs = System.nanoTime();
+    private final AtomicReference<Double> tps = new AtomicReference<>(0.0);
     private volatile long simStepNs = 50_000_000L; // default for 20 TPS (50ms)
     
  // call this once from SimulationThread to set actual step
     public void setSimStepNs(long ns) { simStepNs = ns; }
 
     // call this at the end of every sim tick
-    public void markSimTick() { lastSimTickNs = System.nanoTime(); }
+    public void markSimTick() {
+        long now = System.nanoTime(), dt = now - lastSimTickNs;
+        lastSimTickNs = now;
+        if (dt > 0) ema(tps, 1e9 / dt);
+    }
+
+    /** Measured sim ticks per second (EMA), independent per World when each has its own Telemetry. */
+    public double tps() { return tps.get(); }
 
     // render thread calls this to get interpolation factor in [0..1]
     public double interpAlpha() {
@@ -30,6 +40,21 @@ public class Telemetry {
     private final AtomicReference<Double> simMs = new AtomicReference<>(0.0);
     private final AtomicInteger queuedJobs = new AtomicInteger(0);
     private final AtomicLong frameCount = new AtomicLong(0);
+    private final AtomicLong jobsRun = new AtomicLong(0);
+    private final AtomicLong jobsCancelled = new AtomicLong(0);
+    private final AtomicLong jobNs = new AtomicLong(0);
+    private volatile int tenantBacklog;
+    private final AtomicLong meshCacheHits = new AtomicLong(0);
+    private final AtomicLong meshCacheMisses = new AtomicLong(0);
+    private final AtomicLong meshBytesSaved = new AtomicLong(0);
+    private volatile int gpuChunkMeshes, gpuUniqueMeshes;
+    private final AtomicInteger coldChunks = new AtomicInteger(0);
+    private final AtomicLong coldBytes = new AtomicLong(0);
+    private final AtomicLong coldPrefetches = new AtomicLong(0);
+    private final AtomicLong coldDemandInflates = new AtomicLong(0);
+    private final AtomicReference<Double> inflateMs = new AtomicReference<>(0.0);
+    private volatile long gpuMeshBytes;
+    private volatile long frameAllocBytes;
 
     public void setQueuedJobs(int q) { queuedJobs.set(q); }
     public int getQueuedJobs() { return queuedJobs.get(); }
@@ -42,6 +67,57 @@ public class Telemetry {
     public double renderMs() { return renderMs.get(); }
     public double simMs() { return simMs.get(); }
 
+    // per-world job accounting (JobSystem.Tenant with this Telemetry)
+    public void recordJobRun(long ns) { jobsRun.incrementAndGet(); jobNs.addAndGet(ns); }
+    public void setTenantBacklog(int q) { tenantBacklog = q; }
+    public long jobsRun() { return jobsRun.get(); }
+    public void recordJobCancelled() { jobsCancelled.incrementAndGet(); }
+    public long jobsCancelled() { return jobsCancelled.get(); }
+    public double jobCpuMs() { return jobNs.get() / 1e6; }
+    public int tenantBacklog() { return tenantBacklog; }
+
+    // mesh cache: a hit means lighting + meshing were skipped for that chunk
+    public void recordMeshCacheHit(long meshBytes) { meshCacheHits.incrementAndGet(); meshBytesSaved.addAndGet(meshBytes); }
+    public void recordMeshCacheMiss() { meshCacheMisses.incrementAndGet(); }
+    public long meshCacheHits() { return meshCacheHits.get(); }
+    public long meshCacheMisses() { return meshCacheMisses.get(); }
+    public long meshBytesSaved() { return meshBytesSaved.get(); }
+    // cold chunk tier: a prefetch (inflated in the background before use) is a hit,
+    // a reader finding the chunk still packed and inflating it inline is a miss
+    public void addColdChunks(int chunks, long bytes) { coldChunks.addAndGet(chunks); coldBytes.addAndGet(bytes); }
+    public void recordChunkInflate(long ns, boolean demand) {
+        if (demand) coldDemandInflates.incrementAndGet(); else coldPrefetches.incrementAndGet();
+        ema(inflateMs, ns / 1e6);
+    }
+    public int coldChunks() { return coldChunks.get(); }
+    public long coldBytes() { return coldBytes.get(); }
+    public long coldPrefetches() { return coldPrefetches.get(); }
+    public long coldDemandInflates() { return coldDemandInflates.get(); }
+    public double inflateMs() { return inflateMs.get(); }
+    // renderer: chunks drawn vs distinct GPU meshes behind them (identical chunks share one)
+    public void setGpuMeshes(int chunks, int unique, long bytes) { gpuChunkMeshes = chunks; gpuUniqueMeshes = unique; gpuMeshBytes = bytes; }
+    public int gpuChunkMeshes() { return gpuChunkMeshes; }
+    public int gpuUniqueMeshes() { return gpuUniqueMeshes; }
+    public long gpuMeshBytes() { return gpuMeshBytes; }
+
+    // heap bytes the render thread allocates per frame (EMA, kept as a long so sampling is garbage-free)
+    public void recordFrameAlloc(long bytes) { frameAllocBytes += (bytes - frameAllocBytes) / 8; }
+    public long frameAllocBytes() { return frameAllocBytes; }
+
+    public double meshCacheHitRate() {
+        long h = meshCacheHits.get(), total = h + meshCacheMisses.get();
+        return (total == 0) ? 0.0 : h / (double) total;
+    }
+
+    // live percentiles from JfrStats: series -> {p50, p95, p99} in ms, last ~1 s window
+    private final Map<String, double[]> percentiles = new ConcurrentHashMap<>();
+    public void setPercentiles(String series, double p50, double p95, double p99) {
+        percentiles.put(series, new double[] { p50, p95, p99 });
+    }
+    /** {p50, p95, p99} in ms, or null if the series was never reported. */
+    public double[] percentiles(String series) { return percentiles.get(series); }
+    public Map<String, double[]> allPercentiles() { return percentiles; }
+
     private void ema(AtomicReference<Double> ref, double v) {
         ref.getAndUpdate(prev -> prev + ALPHA * (v - prev));
     }
@@ -1,32 +1,54 @@
 package engine;
 
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import java.nio.file.Paths;
+
 import jobs.JobSystem;
 import render.LwjglRenderer;
-import render.Renderer;
+import world.EditJournal;
+import world.MeshCache;
 import world.World;
 import engine.InputState;
 
 /** Entry point: wires config, telemetry, jobs, world, renderer, and threads. */
 public class VoxelEngine {
     public static void main(String[] args) throws Exception {
+        long mainAtMs = ManagementFactory.getRuntimeMXBean().getUptime();
         EngineConfig cfg = new EngineConfig();
         InputState input = new InputState();
         Telemetry tm = new Telemetry();
         JobSystem jobs = new JobSystem(cfg, tm);
-        World world = new World(jobs, input);
-        Renderer renderer = new LwjglRenderer(world, tm, cfg, input);
+        EditJournal journal = (cfg.saveDir != null) ? EditJournal.open(Paths.get(cfg.saveDir), cfg) : null;
+        MeshCache meshCache = new MeshCache(
+            (cfg.meshCacheDir != null) ? Paths.get(cfg.meshCacheDir) : null, cfg, tm);
+        World world = new World(jobs, input, journal, meshCache);
 
-        SimulationThread sim = new SimulationThread(world, jobs, tm, cfg);
-        RenderThread rt = new RenderThread(renderer, tm);
+        // window + GL (and the render classes) come up on the render thread while the spawn area
+        // is generated, lit and meshed here; the first frame waits for both
+        CountDownLatch worldReady = new CountDownLatch(1);
+        RenderThread rt = new RenderThread(() -> new LwjglRenderer(world, tm, cfg, input), tm, worldReady);
+        Thread renderThread = new Thread(rt, "RenderThread");
+        renderThread.start();
+
+        long warmupAtMs = ManagementFactory.getRuntimeMXBean().getUptime();
+        World.WarmupStats warm = world.warmup(0, 0, 0, cfg.spawnWarmupRadius, cfg.spawnWarmupRadiusY);
+        System.out.printf("[Startup] main at %d ms | setup %d ms | spawn %s%n",
+            mainAtMs, warmupAtMs - mainAtMs, warm);
 
+        world.setStreamRadius(cfg.viewRadiusChunks, cfg.viewRadiusChunksY);
+        world.enableColdTier(cfg.coldChunkRadius, cfg.coldChunkDelayTicks, tm);
+        JfrStats jfr = cfg.jfrLiveStats ? JfrStats.start(tm) : null;
+        AdminServer admin = (cfg.adminPort > 0) ? AdminServer.start(cfg.adminPort, tm, jobs, world, journal) : null;
+
+        SimulationThread sim = new SimulationThread(world, jobs, tm, cfg);
         Thread simThread = new Thread(sim, "SimThread");
-        Thread renderThread = new Thread(rt, "RenderThread");
+        worldReady.countDown();
         simThread.start();
-        renderThread.start();
 
         // Console debug once per second
         ScheduledExecutorService dbg = Executors.newSingleThreadScheduledExecutor();
@@ -48,14 +70,18 @@ public class VoxelEngine {
             double stime = tm.simMs();
 
             System.out.printf(
-                "FPS %.0f | RT %.2f ms | ST %.2f ms | Q=%d | workers=%d%n",
-                fps, rtime, stime, tm.getQueuedJobs(), jobs.currentWorkers()
+                "FPS %.0f | RT %.2f ms | ST %.2f ms | Q=%d (%d cancelled) | workers=%d | mesh cache %.0f%% (%d KiB saved) | gpu meshes %d/%d (%d KiB) | cold %d (%d KiB, %d misses)%n",
+                fps, rtime, stime, tm.getQueuedJobs(), tm.jobsCancelled(), jobs.currentWorkers(),
+                tm.meshCacheHitRate() * 100.0, tm.meshBytesSaved() >> 10,
+                tm.gpuUniqueMeshes(), tm.gpuChunkMeshes(), tm.gpuMeshBytes() >> 10,
+                tm.coldChunks(), tm.coldBytes() >> 10, tm.coldDemandInflates()
             );
+            double[] frame = tm.percentiles("frame"), tick = tm.percentiles("sim.tick");
+            if (frame != null && tick != null)
+                System.out.printf("  frame p50/p99 %.2f/%.2f ms | tick p50/p99 %.2f/%.2f ms | %d B allocated/frame%n",
+                    frame[0], frame[2], tick[0], tick[2], tm.frameAllocBytes());
         }, 1, 1, java.util.concurrent.TimeUnit.SECONDS);
 
-        // Seed some chunk work so you can see geometry
-        world.requestInitialChunks(0, 0, 2);
-
         renderThread.join();
         dbg.shutdownNow();
         
@@ -63,5 +89,8 @@ public class VoxelEngine {
         sim.stop();
         jobs.shutdown();
         simThread.join();
+        if (admin != null) admin.close();
+        if (jfr != null) jfr.close();
+        if (journal != null) journal.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jobs.JobSystem;
+import world.World;
+
+/**
+ * Several independent worlds (dimensions / shards) in one JVM sharing one JobSystem.
+ * Each world is its own JobSystem tenant with its own Telemetry and SimulationThread, so TPS
+ * and job time are measured per world and one world's burst cannot starve the others.
+ * Headless: meshes are drained and dropped.
+ * Args: [--worlds N] [--weights w0,w1,...] [--burst-radius R] [--seconds N]
+ * World 0 starts with a (2R+1)³ chunk generation burst; the rest load the usual spawn area.
+ */
+public class WorldHost {
+    public static final class Shard {
+        public final String name;
+        public final Telemetry tm;
+        public final World world;
+        final SimulationThread sim;
+        final Thread thread;
+        long readyAtNs = -1;
+
+        Shard(String name, Telemetry tm, World world, SimulationThread sim) {
+            this.name = name; this.tm = tm; this.world = world; this.sim = sim;
+            this.thread = new Thread(sim, "Sim-" + name);
+        }
+    }
+
+    private final EngineConfig cfg;
+    private final JobSystem jobs;
+    private final List<Shard> shards = new ArrayList<>();
+
+    public WorldHost(EngineConfig cfg, JobSystem jobs) { this.cfg = cfg; this.jobs = jobs; }
+
+    /** Creates a world with its own tenant (share of the pool ∝ weight) and sim thread. */
+    public Shard addWorld(String name, int weight) {
+        Telemetry wtm = new Telemetry();
+        JobSystem.Tenant tenant = jobs.newTenant(name, weight, wtm);
+        World w = new World(tenant, new InputState(), null, null);
+        Shard s = new Shard(name, wtm, w, new SimulationThread(w, jobs, wtm, cfg));
+        shards.add(s);
+        return s;
+    }
+
+    public List<Shard> shards() { return shards; }
+
+    public static void main(String[] args) throws Exception {
+        int worlds = 3, burst = 7, seconds = 15;
+        int[] weights = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--worlds" -> worlds = Integer.parseInt(args[i + 1]);
+                case "--burst-radius" -> burst = Integer.parseInt(args[i + 1]);
+                case "--seconds" -> seconds = Integer.parseInt(args[i + 1]);
+                case "--weights" -> {
+                    String[] p = args[i + 1].split(",");
+                    weights = new int[p.length];
+                    for (int k = 0; k < p.length; k++) weights[k] = Integer.parseInt(p[k].trim());
+                }
+                default -> throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        EngineConfig cfg = new EngineConfig();
+        cfg.saveDir = null;
+        JobSystem jobs = new JobSystem(cfg, new Telemetry());
+        WorldHost host = new WorldHost(cfg, jobs);
+        for (int i = 0; i < worlds; i++)
+            host.addWorld("world-" + i, (weights != null && i < weights.length) ? weights[i] : 1);
+        for (Shard s : host.shards) s.world.requestInitialChunks(0, 0, 0, 2);
+        host.shards.get(0).world.requestInitialChunks(0, 0, 0, burst);
+
+        long start = System.nanoTime();
+        for (Shard s : host.shards) s.thread.start();
+        for (int sec = 1; sec <= seconds; sec++) {
+            // drain meshes often enough that the queues stay small
+            for (int k = 0; k < 20; k++) {
+                Thread.sleep(50);
+                for (Shard s : host.shards) {
+                    while (s.world.gpuUploads.poll() != null) { }
+                    if (s.readyAtNs < 0 && s.tm.tenantBacklog() == 0 && s.tm.jobsRun() > 0) s.readyAtNs = System.nanoTime() - start;
+                }
+            }
+            StringBuilder line = new StringBuilder("[Host] " + sec + "s");
+            for (Shard s : host.shards)
+                line.append(String.format(" | %s tps %.1f sim %.2f ms jobs %d (%.0f ms) q %d ready %s",
+                    s.name, s.tm.tps(), s.tm.simMs(), s.tm.jobsRun(), s.tm.jobCpuMs(), s.tm.tenantBacklog(),
+                    s.readyAtNs < 0 ? "-" : String.format("%.2fs", s.readyAtNs / 1e9)));
+            System.out.println(line);
+        }
+        for (Shard s : host.shards) { s.sim.stop(); s.thread.join(); }
+        jobs.shutdown();
+    }
+}
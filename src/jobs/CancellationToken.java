@@ -0,0 +1,9 @@
+package jobs;
+
+/** Shared flag for a group of jobs (e.g. everything queued for one chunk). */
+public final class CancellationToken {
+    private volatile boolean cancelled;
+
+    public void cancel() { cancelled = true; }
+    public boolean isCancelled() { return cancelled; }
+}
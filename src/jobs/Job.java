@@ -2,4 +2,11 @@ package jobs;
 public interface Job extends Runnable {
     JobPriority priority();
     default String name() { return getClass().getSimpleName(); }
+    /**
+     * Order within a priority class, lower first (e.g. squared distance to the player).
+     * Read at submit and again when the job reaches the head of its queue, so keys may drift.
+     */
+    default double priorityKey() { return 0; }
+    /** Cancelled jobs are dropped at dequeue without running; their dependents are still released. */
+    default boolean isCancelled() { return false; }
 }
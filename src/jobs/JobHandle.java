@@ -0,0 +1,77 @@
+package jobs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One submitted job in the dependency graph.
+ * - A job becomes runnable when every handle it was submitted with has finished
+ * - {@link #then} chains a continuation; the finishing worker runs the first released
+ *   dependent itself (warm caches) and queues the rest for other workers
+ * - {@link JobSystem.Tenant#fence} waits for a group of handles with a timeout
+ */
+public final class JobHandle {
+    final JobSystem.ScheduledJob sj;            // null for an already-completed handle
+    // unfinished dependencies + 1 while submit() is still registering them
+    final AtomicInteger pending = new AtomicInteger(1);
+    private List<JobHandle> dependents;         // guarded by this
+    private volatile boolean started, done;
+
+    /** A handle that is already complete; handy as a neutral dependency. */
+    public static final JobHandle DONE = new JobHandle(null);
+    static { DONE.done = true; }
+
+    JobHandle(JobSystem.ScheduledJob sj) { this.sj = sj; }
+
+    public boolean isStarted() { return started || done; }
+    public boolean isDone() { return done; }
+
+    /**
+     * Submits {@code next} to {@code tenant}, to run after this job (right away if it already
+     * finished, {@link #DONE} included).
+     */
+    public JobHandle then(JobSystem.Tenant tenant, Job next) {
+        return tenant.submit(next, this);
+    }
+
+    void markStarted() { started = true; }
+
+    /** Registers a dependent; false if this handle already finished (dependent need not wait). */
+    synchronized boolean addDependent(JobHandle d) {
+        if (done) return false;
+        if (dependents == null) dependents = new ArrayList<>(2);
+        dependents.add(d);
+        return true;
+    }
+
+    /** Marks done and returns dependents whose last dependency this was. */
+    List<JobHandle> complete() {
+        List<JobHandle> ds;
+        synchronized (this) {
+            done = true;
+            ds = dependents;
+            dependents = null;
+            notifyAll();
+        }
+        if (ds == null) return null;
+        List<JobHandle> ready = null;
+        for (JobHandle d : ds) {
+            if (d.pending.decrementAndGet() == 0) {
+                if (ready == null) ready = new ArrayList<>(ds.size());
+                ready.add(d);
+            }
+        }
+        return ready;
+    }
+
+    /** Blocks until done or the deadline passes; true if done. */
+    synchronized boolean awaitUntil(long deadlineNs) throws InterruptedException {
+        while (!done) {
+            long left = deadlineNs - System.nanoTime();
+            if (left <= 0) return false;
+            wait(Math.max(1, left / 1_000_000));
+        }
+        return true;
+    }
+}
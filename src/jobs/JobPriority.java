@@ -1,2 +1,3 @@
 package jobs;
-public enum JobPriority { P0_CRITICAL, P1_NEAR, P2_BACKGROUND, P1_HIGH }
+/** Scheduling class, most urgent first; ties are broken by {@link Job#priorityKey()}. */
+public enum JobPriority { P0_CRITICAL, P1_HIGH, P1_NEAR, P2_BACKGROUND }
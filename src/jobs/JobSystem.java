@@ -1,6 +1,9 @@
 package jobs;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -8,23 +11,86 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicLong;
 
 import engine.EngineConfig;
+import engine.EngineEvents;
 import engine.Telemetry;
 
 /**
  * Priority job queue + worker threads + simple autoscaler.
- * Uses a synchronized PriorityQueue for clarity (fine for a prototype).
+ * Jobs belong to a {@link Tenant} (one per World); workers pick the tenant that has received
+ * the least weighted CPU time so far (weighted fair queuing), then that tenant's most urgent job.
+ * A burst in one world therefore delays other worlds by at most their fair share.
+ * One lock guards all tenant queues (fine for a prototype).
  */
 public class JobSystem {
     private final EngineConfig cfg;
     private final Telemetry tm;
 
-    private final Queue<ScheduledJob> queue = new PriorityQueue<>(
-        Comparator.<ScheduledJob>comparingInt(sj -> sj.job.priority().ordinal())
-                  .thenComparingLong(sj -> sj.order)
-    );
+    private static final Comparator<ScheduledJob> ORDER =
+        Comparator.<ScheduledJob>comparingInt(sj -> sj.priority)
+                  .thenComparingDouble(sj -> sj.key)
+                  .thenComparingLong(sj -> sj.order);
+
+    // how often a head whose key got worse may be pushed back before it runs anyway
+    private static final int REKEY_TRIES = 4;
+
+    /**
+     * A world's share of the worker pool. Virtual time advances by job nanoseconds / weight;
+     * the tenant with the smallest virtual time runs next.
+     */
+    public static final class Tenant {
+        private final JobSystem js;
+        private final String name;
+        private final int weight;
+        private final Telemetry tm; // per-tenant accounting, may be null
+        private final Queue<ScheduledJob> queue = new PriorityQueue<>(ORDER);
+        private long vtime;                     // guarded by js.lock
+        private long estJobNs = 100_000;        // EMA of job cost, pre-charged at dispatch
+
+        private Tenant(JobSystem js, String name, int weight, Telemetry tm) {
+            this.js = js; this.name = name; this.weight = Math.max(1, weight); this.tm = tm;
+        }
+
+        public JobHandle submit(Job job) { return js.submit(this, job); }
+        /** Runs {@code job} once all {@code deps} have finished. */
+        public JobHandle submit(Job job, JobHandle... deps) { return js.submit(this, job, deps); }
+        public int currentWorkers() { return js.currentWorkers(); }
+        public void awaitHelping(JobHandle... hs) throws InterruptedException { js.awaitHelping(hs); }
+        /** See {@link JobSystem#fence}. */
+        public boolean fence(long timeoutMs, JobHandle... hs) { return js.fence(timeoutMs, hs); }
+        public String name() { return name; }
+        public int weight() { return weight; }
+        public int queued() { synchronized (js.lock) { return queue.size(); } }
+
+        /**
+         * Re-reads every queued job's key and drops cancelled ones. Call after a big shift in
+         * what the keys depend on (e.g. the player entered another chunk); O(n log n).
+         */
+        public void reprioritize() {
+            synchronized (js.lock) {
+                List<ScheduledJob> all = new ArrayList<>(queue);
+                queue.clear();
+                for (ScheduledJob sj : all) {
+                    if (sj.job.isCancelled()) { js.queued--; js.dropLocked(sj); continue; }
+                    sj.key = sj.job.priorityKey();
+                    queue.offer(sj);
+                }
+                if (tm != null) tm.setTenantBacklog(queue.size());
+            }
+        }
+    }
+
+    private final Object lock = new Object();
+    private final List<Tenant> tenants = new ArrayList<>(); // guarded by lock
+    private Tenant defaultTenant;                           // created on first use, guarded by lock
+    private int queued;                                     // all tenants, guarded by lock
+    private long virtualClock;                              // vtime of the last dispatch
+
+    // backlog per JobPriority ordinal, for load reports
+    private final AtomicIntegerArray queuedByPriority = new AtomicIntegerArray(JobPriority.values().length);
 
     private final ConcurrentLinkedQueue<Worker> workers = new ConcurrentLinkedQueue<>();
     private final AtomicInteger workerCount = new AtomicInteger(0);
@@ -39,11 +105,165 @@ public class JobSystem {
         if (cfg.enableAutoscale) scaler.scheduleAtFixedRate(this::autoscaleTick, 1, 1, TimeUnit.SECONDS);
     }
 
+    /** Registers a world (or any job source) with a share of the pool proportional to {@code weight}. */
+    public Tenant newTenant(String name, int weight, Telemetry tenantTelemetry) {
+        Tenant t = new Tenant(this, name, weight, tenantTelemetry);
+        synchronized (lock) { tenants.add(t); }
+        return t;
+    }
+
+    /** Tenant used by {@link #submit} and by single-world setups. */
+    public Tenant defaultTenant() {
+        synchronized (lock) {
+            if (defaultTenant == null) defaultTenant = newTenant("default", 1, tm);
+            return defaultTenant;
+        }
+    }
+
     public void shutdown() { scaler.shutdownNow(); setWorkerCount(0); }
     public int currentWorkers() { return workerCount.get(); }
+    public int queuedFor(JobPriority p) { return queuedByPriority.get(p.ordinal()); }
+    public int maxWorkers() { return cfg.maxWorkers; }
+
+    /**
+     * Changes the worker ceiling at runtime. With autoscaling the pool only shrinks to fit and
+     * grows again on its own; without it the pool is resized to {@code max} right away.
+     */
+    public void setMaxWorkers(int max) {
+        cfg.maxWorkers = Math.max(cfg.minWorkers, max);
+        int wc = workerCount.get();
+        setWorkerCount(cfg.enableAutoscale ? Math.min(wc, cfg.maxWorkers) : cfg.maxWorkers);
+    }
+
+    /** Age of the longest-waiting queued job in ns (0 when idle); scans every queue under the lock. */
+    public long oldestQueuedAgeNs() {
+        long oldest = Long.MAX_VALUE;
+        synchronized (lock) {
+            for (Tenant t : tenants)
+                for (ScheduledJob sj : t.queue) oldest = Math.min(oldest, sj.readyNs);
+        }
+        return (oldest == Long.MAX_VALUE) ? 0 : System.nanoTime() - oldest;
+    }
+
+    public JobHandle submit(Job job) { return submit(defaultTenant(), job); }
+    public JobHandle submit(Job job, JobHandle... deps) { return submit(defaultTenant(), job, deps); }
+
+    JobHandle submit(Tenant t, Job job, JobHandle... deps) {
+        ScheduledJob sj = new ScheduledJob(job, t);
+        for (JobHandle d : deps)
+            if (d.addDependent(sj.handle)) sj.handle.pending.incrementAndGet();
+        // drop the registration guard; if nothing is outstanding the job is runnable now
+        if (sj.handle.pending.decrementAndGet() == 0) enqueue(sj);
+        return sj.handle;
+    }
+
+    /**
+     * Waits until every handle is done or {@code timeoutMs} passes; true if all finished.
+     * With no workers the caller runs queued jobs itself so the fence can make progress
+     * (the timeout is then only checked between jobs).
+     */
+    public boolean fence(long timeoutMs, JobHandle... handles) {
+        long deadline = System.nanoTime() + timeoutMs * 1_000_000L;
+        try {
+            for (JobHandle h : handles) {
+                while (!h.isDone()) {
+                    if (System.nanoTime() >= deadline) return false;
+                    if (workerCount.get() == 0) {
+                        ScheduledJob sj;
+                        synchronized (lock) { sj = pollLocked(); }
+                        if (sj != null) { executeJob(sj); continue; }
+                    }
+                    if (!h.awaitUntil(Math.min(deadline, System.nanoTime() + 1_000_000L)) && System.nanoTime() >= deadline)
+                        return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Waits for every handle with the caller working through the queue alongside the workers
+     * (whichever tenant's job is next). For threads that have nothing better to do, e.g. startup.
+     */
+    public void awaitHelping(JobHandle... handles) throws InterruptedException {
+        for (JobHandle h : handles) {
+            while (!h.isDone()) {
+                ScheduledJob sj;
+                synchronized (lock) { sj = pollLocked(); }
+                if (sj != null) executeJob(sj);
+                else h.awaitUntil(System.nanoTime() + 1_000_000L);
+            }
+        }
+    }
+
+    private void enqueue(ScheduledJob sj) {
+        Tenant t = sj.tenant;
+        queuedByPriority.incrementAndGet(sj.priority);
+        sj.readyNs = System.nanoTime();
+        synchronized (lock) {
+            // an idle tenant rejoins at the current virtual time instead of cashing in saved credit
+            if (t.queue.isEmpty()) t.vtime = Math.max(t.vtime, virtualClock);
+            t.queue.offer(sj);
+            queued++;
+            tm.setQueuedJobs(queued);
+            if (t.tm != null) t.tm.setTenantBacklog(t.queue.size());
+            lock.notify();
+        }
+    }
 
-    public void submit(Job job) {
-        synchronized (queue) { queue.offer(new ScheduledJob(job)); tm.setQueuedJobs(queue.size()); queue.notify(); }
+    /** Next job by weighted fairness across tenants, or null. Caller holds the lock. */
+    private ScheduledJob pollLocked() {
+        Tenant best;
+        ScheduledJob sj;
+        do { // a tenant may drain to nothing but cancelled jobs; then look again
+            best = null;
+            for (int i = 0, n = tenants.size(); i < n; i++) {
+                Tenant t = tenants.get(i);
+                if (!t.queue.isEmpty() && (best == null || t.vtime < best.vtime)) best = t;
+            }
+            if (best == null) return null;
+        } while ((sj = pollFresh(best)) == null);
+        virtualClock = best.vtime;
+        sj.charged = best.estJobNs;
+        best.vtime += sj.charged / best.weight;
+        tm.setQueuedJobs(queued);
+        if (best.tm != null) best.tm.setTenantBacklog(best.queue.size());
+        return sj;
+    }
+
+    /**
+     * Head of a tenant's queue with its key re-read: if the key got worse than the next job's,
+     * the head goes back and we retry (bounded). Cancelled jobs are dropped on the way.
+     */
+    private ScheduledJob pollFresh(Tenant t) {
+        for (int tries = 0; ; tries++) {
+            ScheduledJob sj = t.queue.poll();
+            if (sj == null) return null;
+            queued--;
+            if (sj.job.isCancelled()) { dropLocked(sj); continue; }
+            if (tries < REKEY_TRIES) {
+                double fresh = sj.job.priorityKey();
+                ScheduledJob next = t.queue.peek();
+                if (fresh > sj.key && next != null && next.priority == sj.priority && fresh > next.key) {
+                    sj.key = fresh;
+                    t.queue.offer(sj);
+                    queued++;
+                    continue;
+                }
+            }
+            return sj;
+        }
+    }
+
+    /** Discards a cancelled job (already removed from its queue). Caller holds the lock. */
+    private void dropLocked(ScheduledJob sj) {
+        queuedByPriority.decrementAndGet(sj.priority);
+        tm.recordJobCancelled();
+        sj.handle.markStarted();
+        release(sj.handle.complete(), false); // dependents decide for themselves whether they are cancelled
     }
 
     public void runInlineFor(double budgetMs) {
@@ -52,14 +272,14 @@ public class JobSystem {
         for (;;) {
             if (System.nanoTime() - start >= budgetNs) break;
             ScheduledJob sj;
-            synchronized (queue) { sj = queue.poll(); tm.setQueuedJobs(queue.size()); }
+            synchronized (lock) { sj = pollLocked(); }
             if (sj == null) break;
             executeJob(sj);
         }
     }
 
     private void autoscaleTick() {
-        int q; synchronized (queue) { q = queue.size(); }
+        int q; synchronized (lock) { q = queued; }
         tm.setQueuedJobs(q);
         double render = tm.renderMs(), sim = tm.simMs();
         int wc = workerCount.get();
@@ -74,7 +294,7 @@ public class JobSystem {
         }
     }
 
-    private void setWorkerCount(int target) {
+    private synchronized void setWorkerCount(int target) {
         int cur = workerCount.get();
         if (target == cur) return;
         if (target > cur) {
@@ -90,35 +310,96 @@ public class JobSystem {
         System.out.println("[JobSystem] Workers set to " + target);
     }
 
-    private ScheduledJob takeJob() throws InterruptedException {
-        synchronized (queue) {
-            while (queue.isEmpty()) queue.wait();
-            tm.setQueuedJobs(queue.size());
-            return queue.poll();
+    private ScheduledJob takeJob(Worker w) throws InterruptedException {
+        ScheduledJob local = w.local.poll();
+        if (local != null) return local;
+        synchronized (lock) {
+            ScheduledJob sj;
+            while ((sj = pollLocked()) == null) lock.wait();
+            return sj;
         }
     }
 
     private void executeJob(ScheduledJob sj) {
+        if (sj.job.isCancelled()) { // continuations from a worker's local queue never saw pollFresh
+            synchronized (lock) { dropLocked(sj); }
+            return;
+        }
+        queuedByPriority.decrementAndGet(sj.priority);
+        sj.handle.markStarted();
+        EngineEvents.JobRun ev = new EngineEvents.JobRun();
+        ev.begin();
+        long t0 = System.nanoTime();
         try { sj.job.run(); }
         catch (Throwable t) { t.printStackTrace(); }
+        long ns = System.nanoTime() - t0;
+        if (ev.shouldCommit()) {
+            ev.job = sj.job.name();
+            ev.priority = sj.job.priority().name();
+            ev.tenant = sj.tenant.name;
+            ev.queueWait = t0 - sj.readyNs;
+            ev.commit();
+        }
+        release(sj.handle.complete(), true);
+
+        Tenant t = sj.tenant;
+        synchronized (lock) {
+            t.vtime += (ns - sj.charged) / t.weight; // settle the dispatch-time estimate
+            t.estJobNs += (ns - t.estJobNs) >> 3;
+        }
+        if (t.tm != null) t.tm.recordJobRun(ns);
+    }
+
+    /**
+     * Queues dependents released by a finished job. When a worker just ran that job ({@code ran}),
+     * the first one stays on the worker's local queue (its inputs are still in cache); the rest go
+     * out for other workers. Dependents of a dropped job always go out: the dropping worker may be
+     * about to wait on the lock, where nobody else could reach its local queue.
+     */
+    private void release(List<JobHandle> ready, boolean ran) {
+        if (ready == null) return;
+        int i = 0;
+        if (ran && Thread.currentThread() instanceof Worker w && w.js == this && w.running) {
+            ScheduledJob sj = ready.get(i++).sj;
+            queuedByPriority.incrementAndGet(sj.priority);
+            sj.readyNs = System.nanoTime();
+            w.local.add(sj);
+        }
+        for (; i < ready.size(); i++) enqueue(ready.get(i).sj);
     }
 
     private static final class Worker extends Thread {
         private final JobSystem js; private volatile boolean running = true;
+        // continuations released by this worker's own jobs; only this thread touches it
+        private final ArrayDeque<ScheduledJob> local = new ArrayDeque<>();
         Worker(JobSystem js, int idx) { super("Worker-" + idx); this.js = js; setDaemon(true); }
         void stopWorker() { running = false; interrupt(); }
         public void run() {
             while (running) {
-                try { js.executeJob(js.takeJob()); }
+                try { js.executeJob(js.takeJob(this)); }
                 catch (InterruptedException ie) { if (!running) break; }
                 catch (Throwable t) { t.printStackTrace(); }
             }
+            // hand anything still local back to the shared queues
+            ScheduledJob sj;
+            while ((sj = local.poll()) != null) {
+                js.queuedByPriority.decrementAndGet(sj.priority);
+                js.enqueue(sj);
+            }
         }
     }
 
-    private static final class ScheduledJob {
+    static final class ScheduledJob {
         static final AtomicLong COUNTER = new AtomicLong();
         final Job job; final long order = COUNTER.getAndIncrement();
-        ScheduledJob(Job j) { this.job = j; }
+        final int priority; // ordinal at submit time, for the per-priority counters
+        final Tenant tenant;
+        long charged;       // ns pre-charged to the tenant at dispatch
+        double key;         // last read Job.priorityKey()
+        long readyNs;       // when it became runnable (queue wait for JFR)
+        final JobHandle handle = new JobHandle(this);
+        ScheduledJob(Job j, Tenant t) {
+            this.job = j; this.tenant = t; this.priority = j.priority().ordinal(); this.key = j.priorityKey();
+        }
     }
 }
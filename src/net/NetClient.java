@@ -0,0 +1,132 @@
+package net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import world.ChunkCodec;
+import world.World;
+import world.World.Chunk;
+
+/**
+ * Minimal client for {@link NetServer}: keeps decoded chunks and applies block deltas.
+ * Non-blocking after connect; the owner calls {@link #poll} from a single thread.
+ * Used for in-process loopback runs (engine.DedicatedServer --loopback-clients).
+ */
+public final class NetClient implements AutoCloseable {
+    private final SocketChannel ch;
+    private final ByteBuffer in = ByteBuffer.allocate(Protocol.MAX_FRAME + 4);
+    private final ByteBuffer out = ByteBuffer.allocate(256);
+    private final Map<Long, Chunk> chunks = new HashMap<>();
+
+    private int clientId = -1, viewRadius, viewRadiusY;
+    private long bytesReceived, chunksReceived, chunkBytesReceived, deltasReceived;
+
+    public NetClient(String host, int port, String name) throws IOException {
+        ch = SocketChannel.open(new InetSocketAddress(host, port));
+        ch.socket().setTcpNoDelay(true);
+        ch.configureBlocking(false);
+        int f = Protocol.begin(out, Protocol.HELLO);
+        out.put(name.getBytes(StandardCharsets.UTF_8));
+        Protocol.end(out, f);
+        send();
+    }
+
+    public void sendPosition(float x, float y, float z) throws IOException {
+        int f = Protocol.begin(out, Protocol.POSITION);
+        out.putFloat(x).putFloat(y).putFloat(z);
+        Protocol.end(out, f);
+        send();
+    }
+
+    public void sendSetBlock(int wx, int wy, int wz, byte id) throws IOException {
+        int f = Protocol.begin(out, Protocol.SET_BLOCK);
+        out.putInt(wx).putInt(wy).putInt(wz).put(id);
+        Protocol.end(out, f);
+        send();
+    }
+
+    private void send() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) ch.write(out); // tiny frames; the socket buffer takes them
+        out.clear();
+    }
+
+    /** Reads whatever arrived and applies it. Returns false once the server closed the connection. */
+    public boolean poll() throws IOException {
+        int n;
+        boolean open = true;
+        while ((n = ch.read(in)) > 0) {
+            bytesReceived += n;
+            drainFrames();
+        }
+        if (n < 0) open = false;
+        drainFrames();
+        return open;
+    }
+
+    private void drainFrames() {
+        in.flip();
+        int len;
+        while ((len = Protocol.completeFrame(in)) > 0) {
+            int end = in.position() + len;
+            byte type = in.get(in.position() + 4);
+            handle(type, in.slice(in.position() + Protocol.HEADER_BYTES, len - Protocol.HEADER_BYTES), len);
+            in.position(end);
+        }
+        in.compact();
+    }
+
+    private void handle(byte type, ByteBuffer m, int frameBytes) {
+        switch (type) {
+            case Protocol.WELCOME -> { clientId = m.getInt(); viewRadius = m.getInt(); viewRadiusY = m.getInt(); }
+            case Protocol.CHUNK -> {
+                int cx = m.getInt(), cy = m.getInt(), cz = m.getInt();
+                chunks.put(World.packChunk(cx, cy, cz), ChunkCodec.decode(m));
+                chunksReceived++;
+                chunkBytesReceived += frameBytes;
+            }
+            case Protocol.UNLOAD -> chunks.remove(World.packChunk(m.getInt(), m.getInt(), m.getInt()));
+            case Protocol.BLOCK_DELTA -> {
+                int count = ChunkCodec.getVarInt(m), x = 0, y = 0, z = 0;
+                for (int i = 0; i < count; i++) {
+                    x += ChunkCodec.unzigzag(ChunkCodec.getVarInt(m));
+                    y += ChunkCodec.unzigzag(ChunkCodec.getVarInt(m));
+                    z += ChunkCodec.unzigzag(ChunkCodec.getVarInt(m));
+                    byte id = m.get();
+                    Chunk c = chunks.get(chunkKey(x, y, z));
+                    if (c != null)
+                        c.set(Math.floorMod(x, World.CHUNK_SIZE_X), Math.floorMod(y, World.CHUNK_SIZE_Y), Math.floorMod(z, World.CHUNK_SIZE_Z), id);
+                    deltasReceived++;
+                }
+            }
+            default -> throw new IllegalStateException("unknown message " + type);
+        }
+    }
+
+    /** Block at world coords as this client knows it (AIR if its chunk is not held). */
+    public byte getBlock(int wx, int wy, int wz) {
+        Chunk c = chunks.get(chunkKey(wx, wy, wz));
+        if (c == null) return World.AIR;
+        return c.get(Math.floorMod(wx, World.CHUNK_SIZE_X), Math.floorMod(wy, World.CHUNK_SIZE_Y), Math.floorMod(wz, World.CHUNK_SIZE_Z));
+    }
+
+    private static long chunkKey(int wx, int wy, int wz) {
+        return World.packChunk(Math.floorDiv(wx, World.CHUNK_SIZE_X), Math.floorDiv(wy, World.CHUNK_SIZE_Y), Math.floorDiv(wz, World.CHUNK_SIZE_Z));
+    }
+
+    public int clientId() { return clientId; }
+    public int viewRadius() { return viewRadius; }
+    public int viewRadiusY() { return viewRadiusY; }
+    public int chunkCount() { return chunks.size(); }
+    public long bytesReceived() { return bytesReceived; }
+    public long chunksReceived() { return chunksReceived; }
+    public long chunkBytesReceived() { return chunkBytesReceived; }
+    public long deltasReceived() { return deltasReceived; }
+
+    @Override public void close() throws IOException { ch.close(); }
+}
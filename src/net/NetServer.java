@@ -0,0 +1,352 @@
+package net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import engine.EngineConfig;
+import world.ChunkCodec;
+import world.World;
+
+/**
+ * Non-blocking chunk streaming server. Runs entirely on the thread that ticks the world
+ * (see engine.DedicatedServer), so client edits and chunk reads never race the simulation.
+ * - Interest: each client gets the chunks within viewRadius (viewRadiusY vertically) of its
+ *   last POSITION, nearest first; chunks beyond that + 1 are unloaded (1 chunk of hysteresis).
+ *   The world drops chunks no client is near (World.unloadAwayFrom), so memory follows players
+ * - Deltas: setBlock changes are batched per tick and sent only to clients holding that chunk
+ * - Shaping: per-client token bucket; chunk sends stop while a client is out of tokens or
+ *   its socket backs up, deltas are always sent
+ * - Trust: nothing but HELLO before the handshake; a POSITION moves the client at most
+ *   MAX_STEP blocks, and SET_BLOCK only reaches chunks the client can be sent
+ */
+public final class NetServer implements AutoCloseable, World.BlockListener {
+    private static final float MAX_STEP = World.CHUNK_SIZE_X; // blocks per POSITION message
+    private static final int UNLOAD_CHECK_TICKS = 20;
+
+    private final World world;
+    private final int viewRadius, viewRadiusY;
+    private final long bytesPerSec, burstBytes;
+    private final Selector selector;
+    private final ServerSocketChannel listener;
+    private final List<Client> clients = new ArrayList<>();
+    private final int[] spiral; // packed (dx,dy,dz) offsets sorted by distance
+
+    // block changes since the last tick: wx, wy, wz, id per entry
+    private int[] changes = new int[256];
+    private int changeCount;
+
+    // scratch for encoding (server thread only)
+    private final ByteBuffer scratch = ByteBuffer.allocate(ChunkCodec.maxEncodedBytes() + 64);
+    private int nextClientId = 1;
+    private int unloadTick;
+
+    // stats
+    private long chunksSent, chunkBytesSent, deltaBytesSent, bytesSent;
+
+    private static final class Client {
+        final int id;
+        final SocketChannel ch;
+        final ByteBuffer in = ByteBuffer.allocate(16 * (Protocol.MAX_CLIENT_FRAME + 4));
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        long queuedBytes;
+        final Set<Long> sent = new HashSet<>();
+        boolean hello;
+        float x, y, z;
+        double tokens;
+        Client(int id, SocketChannel ch, double tokens) { this.id = id; this.ch = ch; this.tokens = tokens; }
+    }
+
+    public NetServer(World world, EngineConfig cfg) throws IOException {
+        this.world = world;
+        this.viewRadius = cfg.serverViewRadius;
+        this.viewRadiusY = cfg.serverViewRadiusY;
+        this.bytesPerSec = cfg.serverClientBytesPerSec;
+        this.burstBytes = cfg.serverClientBurstBytes;
+        this.spiral = buildSpiral(viewRadius, viewRadiusY);
+        this.selector = Selector.open();
+        this.listener = ServerSocketChannel.open();
+        listener.bind(new InetSocketAddress(cfg.serverBindAddress, cfg.serverPort));
+        listener.configureBlocking(false);
+        listener.register(selector, SelectionKey.OP_ACCEPT);
+        world.addBlockListener(this);
+    }
+
+    public int port() {
+        try { return ((InetSocketAddress) listener.getLocalAddress()).getPort(); }
+        catch (IOException e) { return -1; }
+    }
+
+    public int clientCount() { return clients.size(); }
+    public long chunksSent() { return chunksSent; }
+    public long chunkBytesSent() { return chunkBytesSent; }
+    public long deltaBytesSent() { return deltaBytesSent; }
+    public long bytesSent() { return bytesSent; }
+
+    @Override public void onBlockChanged(int wx, int wy, int wz, byte id) {
+        if (changeCount * 4 + 4 > changes.length) changes = Arrays.copyOf(changes, changes.length * 2);
+        int i = changeCount++ * 4;
+        changes[i] = wx; changes[i + 1] = wy; changes[i + 2] = wz; changes[i + 3] = id;
+    }
+
+    /**
+     * Waits up to {@code timeoutMs} for socket activity (0 = just poll), accepting clients
+     * and applying their messages to the world.
+     */
+    public void pollIo(long timeoutMs) throws IOException {
+        if (timeoutMs > 0) selector.select(timeoutMs); else selector.selectNow();
+        Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while (it.hasNext()) {
+            SelectionKey k = it.next();
+            it.remove();
+            if (!k.isValid()) continue;
+            if (k.isAcceptable()) { accept(); continue; }
+            Client c = (Client) k.attachment();
+            try {
+                if (k.isReadable()) read(c);
+                if (k.isValid() && k.isWritable()) flush(c);
+            } catch (IOException | RuntimeException e) {
+                drop(c, e.toString());
+            }
+        }
+    }
+
+    /** Once per sim tick: refill buckets, stream chunks, fan out this tick's block deltas. */
+    public void tick(double dt) {
+        for (int i = clients.size() - 1; i >= 0; i--) {
+            Client c = clients.get(i);
+            try {
+                c.tokens = Math.min(burstBytes, c.tokens + bytesPerSec * dt);
+                if (c.hello) {
+                    sendDeltas(c);
+                    streamChunks(c);
+                }
+                flush(c);
+            } catch (IOException | RuntimeException e) {
+                drop(c, e.toString());
+            }
+        }
+        changeCount = 0;
+        if (++unloadTick >= UNLOAD_CHECK_TICKS) { unloadTick = 0; unloadUnwatched(); }
+    }
+
+    private void unloadUnwatched() {
+        List<World.ChunkPos> centers = new ArrayList<>(clients.size());
+        for (Client c : clients)
+            if (c.hello) centers.add(new World.ChunkPos(Math.floorDiv((int) Math.floor(c.x), World.CHUNK_SIZE_X),
+                Math.floorDiv((int) Math.floor(c.y), World.CHUNK_SIZE_Y), Math.floorDiv((int) Math.floor(c.z), World.CHUNK_SIZE_Z)));
+        world.unloadAwayFrom(centers, viewRadius, viewRadiusY);
+    }
+
+    // ---- io ----
+
+    private void accept() throws IOException {
+        SocketChannel ch;
+        while ((ch = listener.accept()) != null) {
+            ch.configureBlocking(false);
+            ch.socket().setTcpNoDelay(true);
+            Client c = new Client(nextClientId++, ch, burstBytes);
+            ch.register(selector, SelectionKey.OP_READ, c);
+            clients.add(c);
+        }
+    }
+
+    private void read(Client c) throws IOException {
+        int n = c.ch.read(c.in);
+        if (n < 0) { drop(c, "closed"); return; }
+        c.in.flip();
+        int len;
+        while ((len = Protocol.completeFrame(c.in, Protocol.MAX_CLIENT_FRAME)) > 0) {
+            int end = c.in.position() + len;
+            byte type = c.in.get(c.in.position() + 4);
+            handle(c, type, c.in.slice(c.in.position() + Protocol.HEADER_BYTES, len - Protocol.HEADER_BYTES));
+            c.in.position(end);
+        }
+        c.in.compact();
+    }
+
+    private void handle(Client c, byte type, ByteBuffer in) {
+        if (!c.hello && type != Protocol.HELLO) throw new IllegalStateException("message " + type + " before HELLO");
+        switch (type) {
+            case Protocol.HELLO -> {
+                byte[] name = new byte[Math.min(in.remaining(), 64)];
+                in.get(name);
+                c.hello = true;
+                ByteBuffer b = ByteBuffer.allocate(Protocol.HEADER_BYTES + 12);
+                int f = Protocol.begin(b, Protocol.WELCOME);
+                b.putInt(c.id).putInt(viewRadius).putInt(viewRadiusY);
+                Protocol.end(b, f);
+                enqueue(c, b.flip());
+                System.out.println("[NetServer] client " + c.id + " joined as " + new String(name, StandardCharsets.UTF_8));
+            }
+            case Protocol.POSITION -> {
+                float x = in.getFloat(), y = in.getFloat(), z = in.getFloat();
+                if (!Float.isFinite(x) || !Float.isFinite(y) || !Float.isFinite(z)) throw new IllegalStateException("bad position");
+                c.x += Math.clamp(x - c.x, -MAX_STEP, MAX_STEP);
+                c.y += Math.clamp(y - c.y, -MAX_STEP, MAX_STEP);
+                c.z += Math.clamp(z - c.z, -MAX_STEP, MAX_STEP);
+            }
+            case Protocol.SET_BLOCK -> {
+                int wx = in.getInt(), wy = in.getInt(), wz = in.getInt();
+                byte id = in.get();
+                if (inView(c, wx, wy, wz)) world.setBlock(wx, wy, wz, id); // else: out of reach, ignored
+            }
+            default -> throw new IllegalStateException("unknown message " + type);
+        }
+    }
+
+    private boolean inView(Client c, int wx, int wy, int wz) {
+        int dx = Math.floorDiv(wx, World.CHUNK_SIZE_X) - Math.floorDiv((int) Math.floor(c.x), World.CHUNK_SIZE_X);
+        int dy = Math.floorDiv(wy, World.CHUNK_SIZE_Y) - Math.floorDiv((int) Math.floor(c.y), World.CHUNK_SIZE_Y);
+        int dz = Math.floorDiv(wz, World.CHUNK_SIZE_Z) - Math.floorDiv((int) Math.floor(c.z), World.CHUNK_SIZE_Z);
+        return Math.max(Math.abs(dx), Math.abs(dz)) <= viewRadius && Math.abs(dy) <= viewRadiusY;
+    }
+
+    private void enqueue(Client c, ByteBuffer frame) {
+        c.out.add(frame);
+        c.queuedBytes += frame.remaining();
+        c.tokens -= frame.remaining();
+    }
+
+    private void flush(Client c) throws IOException {
+        ByteBuffer b;
+        while ((b = c.out.peek()) != null) {
+            int n = c.ch.write(b);
+            bytesSent += n;
+            c.queuedBytes -= n;
+            if (b.hasRemaining()) break;
+            c.out.poll();
+        }
+        SelectionKey k = c.ch.keyFor(selector);
+        if (k != null && k.isValid())
+            k.interestOps(c.out.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    private void drop(Client c, String why) {
+        clients.remove(c);
+        try { c.ch.close(); } catch (IOException ignored) {}
+        System.out.println("[NetServer] client " + c.id + " dropped: " + why);
+    }
+
+    // ---- interest management ----
+
+    private void streamChunks(Client c) {
+        int pcx = Math.floorDiv((int) Math.floor(c.x), World.CHUNK_SIZE_X);
+        int pcy = Math.floorDiv((int) Math.floor(c.y), World.CHUNK_SIZE_Y);
+        int pcz = Math.floorDiv((int) Math.floor(c.z), World.CHUNK_SIZE_Z);
+
+        // unload what fell out of range
+        for (Iterator<Long> it = c.sent.iterator(); it.hasNext(); ) {
+            long key = it.next();
+            int cx = World.packedX(key), cy = World.packedY(key), cz = World.packedZ(key);
+            if (Math.max(Math.abs(cx - pcx), Math.abs(cz - pcz)) <= viewRadius + 1 && Math.abs(cy - pcy) <= viewRadiusY + 1) continue;
+            it.remove();
+            ByteBuffer b = ByteBuffer.allocate(Protocol.HEADER_BYTES + 12);
+            int f = Protocol.begin(b, Protocol.UNLOAD);
+            b.putInt(cx).putInt(cy).putInt(cz);
+            Protocol.end(b, f);
+            enqueue(c, b.flip());
+        }
+
+        // nearest missing chunks while the budget and the socket allow
+        for (int off : spiral) {
+            if (c.tokens <= 0 || c.queuedBytes > burstBytes) return;
+            int cx = pcx + (off >> 20), cy = pcy + (off << 12 >> 22), cz = pcz + (off << 22 >> 22);
+            long key = World.packChunk(cx, cy, cz);
+            if (c.sent.contains(key)) continue;
+
+            World.Chunk chunk = world.ensureChunk(cx, cy, cz);
+            scratch.clear();
+            int f = Protocol.begin(scratch, Protocol.CHUNK);
+            scratch.putInt(cx).putInt(cy).putInt(cz);
+            ChunkCodec.encode(chunk, scratch);
+            Protocol.end(scratch, f);
+            scratch.flip();
+            ByteBuffer frame = ByteBuffer.allocate(scratch.remaining()).put(scratch).flip();
+            chunksSent++;
+            chunkBytesSent += frame.remaining();
+            c.sent.add(key);
+            enqueue(c, frame);
+        }
+    }
+
+    /** This tick's changes in chunks the client holds; frames are split when scratch fills up. */
+    private void sendDeltas(Client c) {
+        if (changeCount == 0) return;
+        int f = beginDeltas();
+        int n = 0, px = 0, py = 0, pz = 0;
+        for (int i = 0; i < changeCount; i++) {
+            int wx = changes[i * 4], wy = changes[i * 4 + 1], wz = changes[i * 4 + 2];
+            long key = World.packChunk(Math.floorDiv(wx, World.CHUNK_SIZE_X), Math.floorDiv(wy, World.CHUNK_SIZE_Y),
+                Math.floorDiv(wz, World.CHUNK_SIZE_Z));
+            if (!c.sent.contains(key)) continue; // the chunk itself will carry it later
+            if (scratch.remaining() < 16) { // edit storm: ship this frame and continue in a fresh one
+                endDeltas(c, f, n);
+                f = beginDeltas();
+                n = px = py = pz = 0;
+            }
+            ChunkCodec.putVarInt(scratch, ChunkCodec.zigzag(wx - px));
+            ChunkCodec.putVarInt(scratch, ChunkCodec.zigzag(wy - py));
+            ChunkCodec.putVarInt(scratch, ChunkCodec.zigzag(wz - pz));
+            scratch.put((byte) changes[i * 4 + 3]);
+            px = wx; py = wy; pz = wz;
+            n++;
+        }
+        if (n > 0) endDeltas(c, f, n);
+    }
+
+    private int beginDeltas() {
+        scratch.clear();
+        int f = Protocol.begin(scratch, Protocol.BLOCK_DELTA);
+        scratch.position(scratch.position() + 5); // count as a padded 5-byte varint, patched by endDeltas
+        return f;
+    }
+
+    private void endDeltas(Client c, int f, int n) {
+        int countPos = f + Protocol.HEADER_BYTES;
+        for (int i = 0; i < 5; i++) scratch.put(countPos + i, (byte) (((n >>> (7 * i)) & 0x7F) | (i < 4 ? 0x80 : 0)));
+        Protocol.end(scratch, f);
+        scratch.flip();
+        ByteBuffer frame = ByteBuffer.allocate(scratch.remaining()).put(scratch).flip();
+        deltaBytesSent += frame.remaining();
+        enqueue(c, frame);
+    }
+
+    /**
+     * (dx,dy,dz) within radius (ry vertically) packed as 10 bits each, dx<<20 | dy<<10 | dz,
+     * nearest (euclidean) first.
+     */
+    private static int[] buildSpiral(int r, int ry) {
+        List<int[]> offs = new ArrayList<>();
+        for (int dy = -ry; dy <= ry; dy++)
+            for (int dz = -r; dz <= r; dz++)
+                for (int dx = -r; dx <= r; dx++) offs.add(new int[] { dx, dy, dz });
+        offs.sort((a, b) -> Integer.compare(a[0] * a[0] + a[1] * a[1] + a[2] * a[2], b[0] * b[0] + b[1] * b[1] + b[2] * b[2]));
+        int[] out = new int[offs.size()];
+        for (int i = 0; i < out.length; i++) {
+            int[] o = offs.get(i);
+            out[i] = (o[0] << 20) | ((o[1] & 0x3FF) << 10) | (o[2] & 0x3FF);
+        }
+        return out;
+    }
+
+    @Override public void close() throws IOException {
+        world.removeBlockListener(this);
+        for (Client c : clients) c.ch.close();
+        clients.clear();
+        listener.close();
+        selector.close();
+    }
+}
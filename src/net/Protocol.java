@@ -0,0 +1,54 @@
+package net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Wire protocol shared by {@link NetServer} and {@link NetClient}.
+ * Every message is framed as length:int (type + payload bytes) type:ubyte payload.
+ *
+ * Client → server
+ * - HELLO        name:utf8
+ * - POSITION     x:float y:float z:float
+ * - SET_BLOCK    wx:int wy:int wz:int id:byte
+ * Server → client
+ * - WELCOME      clientId:int viewRadius:int viewRadiusY:int
+ * - CHUNK        cx:int cy:int cz:int ChunkCodec bytes
+ * - UNLOAD       cx:int cy:int cz:int
+ * - BLOCK_DELTA  count:varint then per change zigzag-varint dx,dy,dz (from the previous
+ *                change, first from 0,0,0) and id:byte
+ */
+final class Protocol {
+    static final byte HELLO = 1, POSITION = 2, SET_BLOCK = 3;
+    static final byte WELCOME = 16, CHUNK = 17, UNLOAD = 18, BLOCK_DELTA = 19;
+
+    static final int HEADER_BYTES = 5;
+    static final int MAX_FRAME = 1 << 20;
+    /** Client → server messages are tiny; the server refuses anything longer. */
+    static final int MAX_CLIENT_FRAME = 256;
+
+    private Protocol() {}
+
+    /** Starts a frame; the length is patched by {@link #end}. Returns the frame start. */
+    static int begin(ByteBuffer out, byte type) {
+        int start = out.position();
+        out.putInt(0).put(type);
+        return start;
+    }
+
+    static void end(ByteBuffer out, int start) {
+        out.putInt(start, out.position() - start - 4);
+    }
+
+    /**
+     * Length of the complete frame at the buffer's position (header included), or -1 if
+     * more bytes are needed. Rejects nonsense lengths.
+     */
+    static int completeFrame(ByteBuffer in) { return completeFrame(in, MAX_FRAME); }
+
+    static int completeFrame(ByteBuffer in, int maxFrame) {
+        if (in.remaining() < 4) return -1;
+        int len = in.getInt(in.position());
+        if (len < 1 || len > maxFrame) throw new IllegalStateException("bad frame length " + len);
+        return (in.remaining() >= len + 4) ? len + 4 : -1;
+    }
+}
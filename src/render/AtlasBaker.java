@@ -0,0 +1,192 @@
+package render;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Offline/first-run atlas bake: pack decoded tiles, build the mip chain on the CPU and
+ * store everything in one binary file keyed by a hash of the source PNG bytes.
+ * Later launches memory-map that file and hand the level buffers straight to GL.
+ *
+ * File layout (little endian):
+ *   magic:int version:int hash:long width:int height:int levels:int tiles:int
+ *   tiles × (nameLen:short name:utf8 x:int y:int w:int h:int)
+ *   levels × RGBA8 pixels (level L is (width>>L) × (height>>L))
+ * No GL in here, so bake/read round trips run headless.
+ */
+final class AtlasBaker {
+    private static final int MAGIC = 0x56584154; // "VXAT"
+    private static final int VERSION = 1;
+
+    /** Decoded RGBA8 tile. */
+    static final class Tile {
+        final String name; final int w, h; final byte[] rgba;
+        Tile(String name, int w, int h, byte[] rgba) { this.name = name; this.w = w; this.h = h; this.rgba = rgba; }
+    }
+
+    /** Packed atlas: tile rects in pixels and one direct buffer per mip level. */
+    static final class Baked {
+        final long hash;
+        final int width, height;
+        final String[] names;
+        final int[] rects; // x, y, w, h per tile
+        final ByteBuffer[] levels;
+        Baked(long hash, int width, int height, String[] names, int[] rects, ByteBuffer[] levels) {
+            this.hash = hash; this.width = width; this.height = height;
+            this.names = names; this.rects = rects; this.levels = levels;
+        }
+    }
+
+    private AtlasBaker() {}
+
+    /** 64-bit FNV-1a over tile names and their undecoded source bytes. */
+    static long contentHash(String[] names, byte[][] sources) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < names.length; i++) {
+            for (byte b : names[i].getBytes(StandardCharsets.UTF_8)) { h ^= (b & 0xFF); h *= 0x100000001b3L; }
+            h ^= 0xFF; h *= 0x100000001b3L; // separator
+            for (byte b : sources[i]) { h ^= (b & 0xFF); h *= 0x100000001b3L; }
+        }
+        return h;
+    }
+
+    static Baked bake(Tile[] tiles, long hash) {
+        int n = tiles.length;
+        int[] ws = new int[n], hs = new int[n];
+        int align = 0;
+        for (int i = 0; i < n; i++) {
+            ws[i] = tiles[i].w; hs[i] = tiles[i].h;
+            align = gcd(align, gcd(ws[i], hs[i]));
+        }
+        // mips stop where a level would split a texel of the smallest common tile grid
+        align = Math.max(1, Integer.lowestOneBit(Math.max(1, align)));
+        int levels = Integer.numberOfTrailingZeros(align) + 1;
+
+        AtlasPacker p = AtlasPacker.pack(ws, hs, align);
+        byte[] base = new byte[p.width * p.height * 4];
+        String[] names = new String[n];
+        int[] rects = new int[n * 4];
+        for (int i = 0; i < n; i++) {
+            Tile t = tiles[i];
+            for (int row = 0; row < t.h; row++)
+                System.arraycopy(t.rgba, row * t.w * 4, base, ((p.y[i] + row) * p.width + p.x[i]) * 4, t.w * 4);
+            names[i] = t.name;
+            rects[i * 4] = p.x[i]; rects[i * 4 + 1] = p.y[i]; rects[i * 4 + 2] = t.w; rects[i * 4 + 3] = t.h;
+        }
+
+        ByteBuffer[] out = new ByteBuffer[levels];
+        byte[] cur = base;
+        int w = p.width, h = p.height;
+        for (int l = 0; l < levels; l++) {
+            if (l > 0) { cur = downsample(cur, w, h); w >>= 1; h >>= 1; }
+            out[l] = ByteBuffer.allocateDirect(cur.length).put(cur).flip();
+        }
+        return new Baked(hash, p.width, p.height, names, rects, out);
+    }
+
+    // sRGB <-> linear tables: the atlas is sampled as SRGB8_ALPHA8, so average in linear space
+    private static final float[] TO_LINEAR = new float[256];
+    static {
+        for (int i = 0; i < 256; i++) {
+            double c = i / 255.0;
+            TO_LINEAR[i] = (float) (c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4));
+        }
+    }
+
+    private static int toSrgb(float l) {
+        double c = l <= 0.0031308 ? l * 12.92 : 1.055 * Math.pow(l, 1 / 2.4) - 0.055;
+        return Math.max(0, Math.min(255, (int) Math.round(c * 255.0)));
+    }
+
+    // 2×2 box filter, RGBA8 (color in linear space, alpha as is)
+    private static byte[] downsample(byte[] src, int w, int h) {
+        int dw = w >> 1, dh = h >> 1;
+        byte[] dst = new byte[dw * dh * 4];
+        for (int y = 0; y < dh; y++)
+            for (int x = 0; x < dw; x++) {
+                int i00 = ((2 * y) * w + 2 * x) * 4, i01 = i00 + 4;
+                int i10 = i00 + w * 4, i11 = i10 + 4;
+                int o = (y * dw + x) * 4;
+                for (int c = 0; c < 3; c++) {
+                    float l = TO_LINEAR[src[i00 + c] & 0xFF] + TO_LINEAR[src[i01 + c] & 0xFF]
+                            + TO_LINEAR[src[i10 + c] & 0xFF] + TO_LINEAR[src[i11 + c] & 0xFF];
+                    dst[o + c] = (byte) toSrgb(l * 0.25f);
+                }
+                int a = (src[i00 + 3] & 0xFF) + (src[i01 + 3] & 0xFF) + (src[i10 + 3] & 0xFF) + (src[i11 + 3] & 0xFF);
+                dst[o + 3] = (byte) ((a + 2) >> 2);
+            }
+        return dst;
+    }
+
+    /** Writes via tmp file + atomic rename so a crash never leaves a half-written cache. */
+    static void write(Baked b, Path file) throws IOException {
+        int header = 4 + 4 + 8 + 4 * 4;
+        for (String n : b.names) header += 2 + n.getBytes(StandardCharsets.UTF_8).length + 16;
+        ByteBuffer head = ByteBuffer.allocate(header).order(ByteOrder.LITTLE_ENDIAN);
+        head.putInt(MAGIC).putInt(VERSION).putLong(b.hash)
+            .putInt(b.width).putInt(b.height).putInt(b.levels.length).putInt(b.names.length);
+        for (int i = 0; i < b.names.length; i++) {
+            byte[] nb = b.names[i].getBytes(StandardCharsets.UTF_8);
+            head.putShort((short) nb.length).put(nb);
+            for (int k = 0; k < 4; k++) head.putInt(b.rects[i * 4 + k]);
+        }
+        head.flip();
+
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel fc = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (head.hasRemaining()) fc.write(head);
+            for (ByteBuffer lvl : b.levels) {
+                ByteBuffer d = lvl.duplicate().rewind();
+                while (d.hasRemaining()) fc.write(d);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Maps a baked atlas. Returns null if the file is missing, malformed or was baked from
+     * different sources ({@code expectedHash}); the caller then re-bakes.
+     */
+    static Baked read(Path file, long expectedHash) throws IOException {
+        if (!Files.isRegularFile(file)) return null;
+        MappedByteBuffer m;
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+            m = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size()); // mapping outlives the channel
+        }
+        m.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (m.getInt() != MAGIC || m.getInt() != VERSION || m.getLong() != expectedHash) return null;
+            int w = m.getInt(), h = m.getInt(), levels = m.getInt(), n = m.getInt();
+            String[] names = new String[n];
+            int[] rects = new int[n * 4];
+            for (int i = 0; i < n; i++) {
+                byte[] nb = new byte[m.getShort()];
+                m.get(nb);
+                names[i] = new String(nb, StandardCharsets.UTF_8);
+                for (int k = 0; k < 4; k++) rects[i * 4 + k] = m.getInt();
+            }
+            ByteBuffer[] lv = new ByteBuffer[levels];
+            int pos = m.position();
+            for (int l = 0; l < levels; l++) {
+                int bytes = (w >> l) * (h >> l) * 4;
+                lv[l] = m.slice(pos, bytes);
+                pos += bytes;
+            }
+            return new Baked(expectedHash, w, h, names, rects, lv);
+        } catch (RuntimeException malformed) { // truncated / corrupt file
+            return null;
+        }
+    }
+
+    private static int gcd(int a, int b) { while (b != 0) { int t = a % b; a = b; b = t; } return a; }
+}
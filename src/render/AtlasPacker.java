@@ -0,0 +1,59 @@
+package render;
+
+import java.util.Arrays;
+
+/**
+ * Skyline bin packing for atlas tiles of mixed sizes. Pure CPU, no GL.
+ * Positions are snapped to {@code align} pixels so every tile covers whole texels at
+ * each baked mip level (no bleeding between neighbors when sampling smaller levels).
+ */
+final class AtlasPacker {
+    final int width, height;
+    final int[] x, y; // placement per input rect
+
+    private AtlasPacker(int width, int height, int[] x, int[] y) {
+        this.width = width; this.height = height; this.x = x; this.y = y;
+    }
+
+    /** Packs rects into the smallest power-of-two atlas (width ≥ height) that fits them. */
+    static AtlasPacker pack(int[] ws, int[] hs, int align) {
+        int n = ws.length;
+        long area = 0; int maxW = align;
+        for (int i = 0; i < n; i++) { area += (long) ws[i] * hs[i]; maxW = Math.max(maxW, ws[i]); }
+
+        int w = Integer.highestOneBit(Math.max(maxW, (int) Math.ceil(Math.sqrt(area))) - 1) << 1;
+        int h = w;
+        if (area > 0 && (long) w * (h / 2) >= area) h /= 2; // try a 2:1 atlas first
+        for (;;) {
+            int[] xs = new int[n], ys = new int[n];
+            if (tryPack(ws, hs, align, w, h, xs, ys)) return new AtlasPacker(w, h, xs, ys);
+            if (h < w) h *= 2; else w *= 2;
+        }
+    }
+
+    private static boolean tryPack(int[] ws, int[] hs, int align, int W, int H, int[] xs, int[] ys) {
+        // tallest first, then widest: fewer holes under the skyline
+        Integer[] order = new Integer[ws.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> hs[a] != hs[b] ? hs[b] - hs[a] : ws[b] - ws[a]);
+
+        // skyline height per column of 'align' pixels
+        int cols = W / align;
+        int[] sky = new int[cols];
+        for (int idx : order) {
+            int cw = (ws[idx] + align - 1) / align;
+            int ch = ((hs[idx] + align - 1) / align) * align;
+            int bestX = -1, bestY = Integer.MAX_VALUE;
+            for (int cx = 0; cx + cw <= cols; cx++) {
+                int top = 0;
+                for (int k = cx; k < cx + cw; k++) top = Math.max(top, sky[k]);
+                if (top + ch <= H && top < bestY) { bestY = top; bestX = cx; }
+            }
+            if (bestX < 0) return false;
+            for (int k = bestX; k < bestX + cw; k++) sky[k] = bestY + ch;
+            xs[idx] = bestX * align;
+            ys[idx] = bestY;
+        }
+        return true;
+    }
+}
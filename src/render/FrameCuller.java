@@ -0,0 +1,67 @@
+package render;
+
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+
+import world.RenderState;
+import world.World;
+import world.World.ChunkPos;
+
+/**
+ * The CPU half of a frame: camera matrices from the sim snapshot, then cave culling and a
+ * frustum test per chunk. No GL calls, so RenderCheck runs it headless. Everything below is
+ * reused from frame to frame; a steady-state frame allocates nothing.
+ */
+final class FrameCuller {
+    // camera-relative: the view sits at the origin and each draw is offset by (chunk origin - eye),
+    // so vertex math on the GPU stays small wherever the player is. The eye and the offsets are
+    // computed in double and rounded once; the limit is the sim's own float positions
+    // (Player, RenderState), about 1/16 block a million blocks out
+    private final Vector3f eye = new Vector3f(), center = new Vector3f(), up = new Vector3f(0, 1, 0);
+    private final Matrix4f proj = new Matrix4f(), view = new Matrix4f();
+    final Matrix4f vp = new Matrix4f();
+    private final FrustumIntersection frustum = new FrustumIntersection();
+    final OcclusionCuller occlusion = new OcclusionCuller(32, 16);
+    private boolean culled;
+
+    // interpolated eye, world space
+    double ex, ey, ez;
+    // origin of the chunk last passed by visible(), relative to the eye
+    float offX, offY, offZ;
+
+    /**
+     * Camera for this frame: eye interpolated between the snapshot's ticks, look angles in
+     * degrees (the render thread's own, fresher than the snapshot's).
+     */
+    void begin(RenderState.Snapshot snap, float alpha, float yaw, float pitch, float aspect) {
+        ex = snap.prevX + ((double) snap.currX - snap.prevX) * alpha;
+        ey = snap.prevY + ((double) snap.currY - snap.prevY) * alpha + World.PLAYER_EYE_HEIGHT / 2.0;
+        ez = snap.prevZ + ((double) snap.currZ - snap.prevZ) * alpha;
+
+        float cy = (float) Math.cos(Math.toRadians(yaw));
+        float sy = (float) Math.sin(Math.toRadians(yaw));
+        float cp = (float) Math.cos(Math.toRadians(pitch));
+        float sp = (float) Math.sin(Math.toRadians(pitch));
+        eye.set(0, 0, 0);
+        center.set(cy * cp, sp, sy * cp);
+        proj.setPerspective((float) Math.toRadians(70), aspect, 0.05f, 500f);
+        view.setLookAt(eye, center, up);
+        proj.mul(view, vp); // VP = proj * view
+
+        // cave culling (false = camera chunk not meshed yet → draw all), then frustum per chunk
+        culled = occlusion.computeVisible(ex, ey, ez);
+        frustum.set(vp);
+    }
+
+    /** Whether the chunk at {@code at} is drawn this frame; if so, offX/offY/offZ place it. */
+    boolean visible(RenderState.Snapshot snap, ChunkPos at) {
+        if (snap.sequence != 0 && !snap.containsChunk(at.x, at.y, at.z)) return false;
+        if (culled && !occlusion.isVisible(at.x, at.y, at.z)) return false;
+        offX = (float) ((double) at.x * World.CHUNK_SIZE_X - ex);
+        offY = (float) ((double) at.y * World.CHUNK_SIZE_Y - ey);
+        offZ = (float) ((double) at.z * World.CHUNK_SIZE_Z - ez);
+        return frustum.testAab(offX, offY, offZ,
+            offX + World.CHUNK_SIZE_X, offY + World.CHUNK_SIZE_Y, offZ + World.CHUNK_SIZE_Z);
+    }
+}
@@ -7,9 +7,11 @@ import static org.lwjgl.opengl.GL30.*;
 final class GLMesh {
     final int vao, vbo, ebo;
     final int indexCount;
+    final long bytes; // VRAM held by vbo + ebo
 
     GLMesh(float[] vertices, int[] indices) {
         indexCount = indices.length;
+        bytes = 4L * (vertices.length + indices.length);
 
         vao = glGenVertexArrays();
         glBindVertexArray(vao);
@@ -22,10 +24,9 @@ final class GLMesh {
         glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo);
         glBufferData(GL_ELEMENT_ARRAY_BUFFER, indices, GL_STATIC_DRAW);
 
-        int stride = 8 * Float.BYTES;
+        int stride = 6 * Float.BYTES; // xyz rgb, matches MeshBlob
         glEnableVertexAttribArray(0); glVertexAttribPointer(0,3,GL_FLOAT,false,stride,0L);
         glEnableVertexAttribArray(1); glVertexAttribPointer(1,3,GL_FLOAT,false,stride,3L*Float.BYTES);
-        glEnableVertexAttribArray(2); glVertexAttribPointer(2,2,GL_FLOAT,false,stride,6L*Float.BYTES);
 
 
         glBindVertexArray(0);
@@ -3,18 +3,21 @@ package render;
 import static org.lwjgl.glfw.GLFW.*;
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.system.MemoryStack.stackPush;
 import static org.lwjgl.system.MemoryUtil.NULL;
 
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
-import java.util.List;
 
-import org.joml.Matrix4f;
 import org.lwjgl.opengl.GL;
+import org.lwjgl.system.MemoryStack;
 
 import engine.EngineConfig;
+import engine.EngineEvents;
 import engine.Telemetry;
+import world.RenderState;
 import world.World;
-import world.World.MeshBlob;
 import engine.InputState;
 
 import java.util.HashMap;
@@ -28,6 +31,10 @@ import world.World.MeshBlob;
 /**
  * Real renderer: opens a window, uploads MeshBlob objects to GL, draws them.
  * WASD + Space/Ctrl to move, hold Right Mouse Button to capture mouse for look.
+ * Steady-state frames allocate nothing on the heap: camera math and culling reuse
+ * FrameCuller's scratch, native out-parameters come from the thread's MemoryStack, and the
+ * draw loop walks a plain list of slots. Allocation only happens when meshes are uploaded
+ * or unloaded; RenderCheck frame-alloc measures the CPU side.
  */
 public class LwjglRenderer implements Renderer {
 	private final InputState input;
@@ -38,45 +45,50 @@ public class LwjglRenderer implements Renderer {
 
     private long window = 0;
     private boolean init = false;
+    private boolean shown = false; // window stays hidden until the first frame is drawn
+
+    /** One GPU allocation shared by every chunk whose mesh has the same content. */
+    private static final class SharedMesh {
+        final long hash;
+        final GLMesh gl;
+        int refs;
+        SharedMesh(long hash, GLMesh gl) { this.hash = hash; this.gl = gl; }
+    }
+
+    /**
+     * A chunk's place in the draw list; removal swaps the last slot into the hole. The mesh is
+     * full detail or a LOD level, whichever arrived last (null = nothing to draw).
+     */
+    private static final class ChunkDraw {
+        final ChunkPos pos;
+        SharedMesh mesh;
+        int index;
+        ChunkDraw(ChunkPos pos) { this.pos = pos; }
+    }
 
-    private final Map<ChunkPos, GLMesh> meshesByChunk = new HashMap<>();
+    private final Map<ChunkPos, ChunkDraw> meshesByChunk = new HashMap<>();
+    private final ArrayList<ChunkDraw> drawList = new ArrayList<>();
+    private final Map<Long, SharedMesh> meshesByContent = new HashMap<>();
+    private long meshBytes;
     private Shader shader;
-    private final Matrix4f vp = new Matrix4f();
+
+    // camera and culling, reused every frame
+    private final FrameCuller culler = new FrameCuller();
     private int hiVao = 0, hiVbo = 0;
 
     public LwjglRenderer(World world, Telemetry tm, EngineConfig cfg, InputState input) {
     	this.world = world; this.tm = tm; this.cfg = cfg; this.input = input;
     }
     
-    private void ensureHighlightBuffers() {
-        if (hiVao != 0) return;
-        hiVao = org.lwjgl.opengl.GL30.glGenVertexArrays();
-        org.lwjgl.opengl.GL30.glBindVertexArray(hiVao);
-        hiVbo = org.lwjgl.opengl.GL15.glGenBuffers();
-        org.lwjgl.opengl.GL15.glBindBuffer(org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER, hiVbo);
-        // 24 verts * (3 pos + 3 color) * 4 bytes = 576 bytes, but we’ll allow more
-        org.lwjgl.opengl.GL15.glBufferData(org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER, 4096, org.lwjgl.opengl.GL15.GL_DYNAMIC_DRAW);
-
-        int stride = 6 * Float.BYTES; // xyz rgb
-        org.lwjgl.opengl.GL20.glEnableVertexAttribArray(0);
-        org.lwjgl.opengl.GL20.glVertexAttribPointer(0, 3, org.lwjgl.opengl.GL11.GL_FLOAT, false, stride, 0L);
-        org.lwjgl.opengl.GL20.glEnableVertexAttribArray(1);
-        org.lwjgl.opengl.GL20.glVertexAttribPointer(1, 3, org.lwjgl.opengl.GL11.GL_FLOAT, false, stride, 3L * Float.BYTES);
-
-        org.lwjgl.opengl.GL30.glBindVertexArray(0);
-    }
-
-    /** Draws a yellow wireframe box around the given block (world coords). */
-    private void drawBlockOutline(int bx, int by, int bz) {
-        ensureHighlightBuffers();
+    // block outline: 12 edges (24 vertices, xyz rgb) of a yellow unit box in block-local space
+    private static final float[] OUTLINE = outlineVertices();
 
-        // Build 12 edges (24 vertices). Offset by half-voxel to sit on the block boundary.
-        final float x = bx, y = by, z = bz;
-        final float x0 = x,     y0 = y,     z0 = z;
-        final float x1 = x + 1, y1 = y + 1, z1 = z + 1;
+    private static float[] outlineVertices() {
+        final float x0 = 0, y0 = 0, z0 = 0;
+        final float x1 = 1, y1 = 1, z1 = 1;
         final float r=1f,g=0.9f,b=0f; // yellow
 
-        float[] v = {
+        return new float[] {
             // bottom rectangle
             x0,y0,z0, r,g,b,   x1,y0,z0, r,g,b,
             x1,y0,z0, r,g,b,   x1,y0,z1, r,g,b,
@@ -95,14 +107,34 @@ public class LwjglRenderer implements Renderer {
             x1,y0,z1, r,g,b,   x1,y1,z1, r,g,b,
             x0,y0,z1, r,g,b,   x0,y1,z1, r,g,b,
         };
+    }
 
+    /** The outline never changes, so it is uploaded once, with the buffers. */
+    private void ensureHighlightBuffers() {
+        if (hiVao != 0) return;
+        hiVao = org.lwjgl.opengl.GL30.glGenVertexArrays();
         org.lwjgl.opengl.GL30.glBindVertexArray(hiVao);
+        hiVbo = org.lwjgl.opengl.GL15.glGenBuffers();
         org.lwjgl.opengl.GL15.glBindBuffer(org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER, hiVbo);
-        org.lwjgl.opengl.GL15.glBufferSubData(org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER, 0, v);
+        org.lwjgl.opengl.GL15.glBufferData(org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER, OUTLINE, org.lwjgl.opengl.GL15.GL_STATIC_DRAW);
+
+        int stride = 6 * Float.BYTES; // xyz rgb
+        org.lwjgl.opengl.GL20.glEnableVertexAttribArray(0);
+        org.lwjgl.opengl.GL20.glVertexAttribPointer(0, 3, org.lwjgl.opengl.GL11.GL_FLOAT, false, stride, 0L);
+        org.lwjgl.opengl.GL20.glEnableVertexAttribArray(1);
+        org.lwjgl.opengl.GL20.glVertexAttribPointer(1, 3, org.lwjgl.opengl.GL11.GL_FLOAT, false, stride, 3L * Float.BYTES);
+
+        org.lwjgl.opengl.GL30.glBindVertexArray(0);
+    }
+
+    /** Draws a yellow wireframe unit box; uChunkOffset places it on the target block. */
+    private void drawBlockOutline() {
+        ensureHighlightBuffers();
+        org.lwjgl.opengl.GL30.glBindVertexArray(hiVao);
 
         // Thick-ish lines so it’s visible
         org.lwjgl.opengl.GL11.glLineWidth(2.0f);
-        org.lwjgl.opengl.GL11.glDrawArrays(org.lwjgl.opengl.GL11.GL_LINES, 0, v.length / 6);
+        org.lwjgl.opengl.GL11.glDrawArrays(org.lwjgl.opengl.GL11.GL_LINES, 0, OUTLINE.length / 6);
         org.lwjgl.opengl.GL30.glBindVertexArray(0);
     }
 
@@ -125,17 +157,18 @@ public class LwjglRenderer implements Renderer {
         }
 
         // Accumulate mouse delta since last frame (hidden cursor still moves virtually)
-        double[] cx = new double[1], cy = new double[1];
-        glfwGetCursorPos(window, cx, cy);
-        if (!Double.isNaN(lastX)) {
-            double dx = cx[0] - lastX;
-            double dy = cy[0] - lastY;
-            // Sensitivity: increase this if it feels sluggish (0.2–0.4 is typical)
-            double sens = 0.25;
-            world.player.addLook((float)(dx * sens), (float)(dy * sens));
-            input.addMouseDelta(dx * sens, dy * sens);
+        try (MemoryStack stack = stackPush()) {
+            DoubleBuffer cx = stack.mallocDouble(1), cy = stack.mallocDouble(1);
+            glfwGetCursorPos(window, cx, cy);
+            if (!Double.isNaN(lastX)) {
+                double dx = cx.get(0) - lastX;
+                double dy = cy.get(0) - lastY;
+                // Sensitivity: increase this if it feels sluggish (0.2–0.4 is typical)
+                double sens = 0.25;
+                input.addLook((float)(dx * sens), (float)(dy * sens));
+            }
+            lastX = cx.get(0); lastY = cy.get(0);
         }
-        lastX = cx[0]; lastY = cy[0];
 
 
         boolean lNow = glfwGetMouseButton(window, GLFW_MOUSE_BUTTON_LEFT)  == GLFW_PRESS;
@@ -156,20 +189,67 @@ public class LwjglRenderer implements Renderer {
 
     @Override
     public void drainGpuUploadQueue() {
-        if (!init) return;
-        int uploads = 0;
+        if (!init || world.gpuUploads.isEmpty()) return;
+        EngineEvents.UploadBatch ev = new EngineEvents.UploadBatch();
+        ev.begin();
+        int uploads = 0, unloads = 0;
+        long bytes0 = meshBytes;
+        // the first frame takes everything (the warmed-up spawn area); later ones spread the cost
+        int limit = shown ? 8 : Integer.MAX_VALUE;
         GpuUpload up;
-        while (uploads < 8 && (up = world.gpuUploads.poll()) != null) {
-            // build GL mesh
-            MeshBlob blob = up.mesh;
-            GLMesh newMesh = new GLMesh(blob.vertices, blob.indices);
-
-            // replace old one if present
-            GLMesh old = meshesByChunk.put(up.pos, newMesh);
-            if (old != null) old.destroy();
+        while (uploads < limit && (up = world.gpuUploads.poll()) != null) {
+            if (up.unload) {
+                ChunkDraw gone = meshesByChunk.remove(up.pos);
+                if (gone != null) { if (gone.mesh != null) release(gone.mesh); removeDraw(gone); }
+                culler.occlusion.remove(up.pos);
+                unloads++;
+                continue;
+            }
+            ChunkDraw slot = meshesByChunk.get(up.pos);
+            if (slot == null) {
+                slot = new ChunkDraw(up.pos);
+                slot.index = drawList.size();
+                drawList.add(slot);
+                meshesByChunk.put(up.pos, slot);
+            }
+            // take the new reference before dropping the old one, so unchanged content stays on the GPU
+            SharedMesh old = slot.mesh;
+            slot.mesh = (up.mesh == null) ? null : acquire(up.mesh);
+            if (old != null) release(old);
+            culler.occlusion.update(up.pos, up.visibility);
 
             uploads++;
         }
+        if (uploads + unloads == 0) return;
+        tm.setGpuMeshes(meshesByChunk.size(), meshesByContent.size(), meshBytes);
+        ev.uploads = uploads; ev.unloads = unloads; ev.bytes = Math.max(0, meshBytes - bytes0);
+        ev.commit();
+    }
+
+    private void removeDraw(ChunkDraw d) {
+        ChunkDraw last = drawList.remove(drawList.size() - 1);
+        if (last != d) { last.index = d.index; drawList.set(d.index, last); }
+    }
+
+    /** One more reference to the GPU copy of {@code blob}, reusing an identical mesh if one is already there. */
+    private SharedMesh acquire(MeshBlob blob) {
+        SharedMesh mesh = meshesByContent.get(blob.contentHash);
+        if (mesh == null || mesh.gl.indexCount != blob.indices.length) {
+            // new content (or a hash collision: the old mesh stays alive for the chunks using it)
+            mesh = new SharedMesh(blob.contentHash, new GLMesh(blob.vertices, blob.indices));
+            meshesByContent.put(mesh.hash, mesh);
+            meshBytes += mesh.gl.bytes;
+        }
+        mesh.refs++;
+        return mesh;
+    }
+
+    /** Drops one reference; the GPU buffers go with the last one. */
+    private void release(SharedMesh m) {
+        if (--m.refs > 0) return;
+        meshesByContent.remove(m.hash, m);
+        m.gl.destroy();
+        meshBytes -= m.gl.bytes;
     }
 
 
@@ -186,66 +266,54 @@ public class LwjglRenderer implements Renderer {
         shader.use();
 
         // Get current framebuffer size to compute aspect ratio
-        int[] wArr = new int[1], hArr = new int[1];
-        glfwGetFramebufferSize(window, wArr, hArr);
-        float aspect = Math.max(1, wArr[0]) / (float) Math.max(1, hArr[0]);
-
-        // ------ Build the camera from the PLAYER (yaw/pitch/pos) ------
-        // Forward from yaw/pitch (in degrees)
-        float yaw   = world.player.yaw;
-        float pitch = world.player.pitch;
-        float cy = (float) Math.cos(Math.toRadians(yaw));
-        float sy = (float) Math.sin(Math.toRadians(yaw));
-        float cp = (float) Math.cos(Math.toRadians(pitch));
-        float sp = (float) Math.sin(Math.toRadians(pitch));
-        float fx = cy * cp, fy = sp, fz = sy * cp;
-
-        // Interpolation factor from Telemetry
-        float alpha = (float) tm.interpAlpha();
-
-        // Interpolated eye = lerp(prevPos, currPos, alpha)
-        org.joml.Vector3f p0 = world.player.prevPos;
-        org.joml.Vector3f p1 = world.player.currPos;
-        float ex = p0.x + (p1.x - p0.x) * alpha;
-        float ey = p0.y + (p1.y - p0.y) * alpha + World.PLAYER_EYE_HEIGHT / 2f;
-        float ez = p0.z + (p1.z - p0.z) * alpha;
-
-        org.joml.Vector3f eye    = new org.joml.Vector3f(ex, ey, ez);
-        org.joml.Vector3f center = new org.joml.Vector3f(ex + fx, ey + fy, ez + fz);
-
-        org.joml.Matrix4f proj = new org.joml.Matrix4f()
-            .perspective((float)Math.toRadians(70), aspect, 0.05f, 500f);
-        org.joml.Matrix4f view = new org.joml.Matrix4f()
-            .lookAt(eye, center, new org.joml.Vector3f(0,1,0));
-        // VP = proj * view
-        proj.mul(view, vp);
+        float aspect;
+        try (MemoryStack stack = stackPush()) {
+            IntBuffer w = stack.mallocInt(1), h = stack.mallocInt(1);
+            glfwGetFramebufferSize(window, w, h);
+            aspect = Math.max(1, w.get(0)) / (float) Math.max(1, h.get(0));
+        }
+
+        // ------ Build the camera from the latest sim snapshot (never from live Player fields) ------
+        RenderState.Snapshot snap = world.renderState.acquire();
+
+        // Look angles are ours (render thread), so use the freshest; the eye is interpolated
+        // against the snapshot's own publish time
+        culler.begin(snap, snap.alpha(System.nanoTime()), input.lookYaw, input.lookPitch, aspect);
 
         // Upload uVP to the shader
-        float[] vpArr = new float[16];
-        vp.get(vpArr);
-        glUniformMatrix4fv(shader.uVP, false, vpArr);
-        
-        // After setting the uVP uniform and before drawing meshes:
-        for (GLMesh m : meshesByChunk.values()) {
-            m.draw();
+        try (MemoryStack stack = stackPush()) {
+            glUniformMatrix4fv(shader.uVP, false, culler.vp.get(stack.mallocFloat(16)));
         }
-        // Highlight targeted block (raycast from world; returns null if nothing hit)
-        World.RayHit hit = world.raycast(world.player, 8.0f);
-        if (hit != null) {
+
+        for (int i = 0, n = drawList.size(); i < n; i++) {
+            ChunkDraw d = drawList.get(i);
+            if (d.mesh == null || !culler.visible(snap, d.pos)) continue;
+            glUniform3f(shader.uChunkOffset, culler.offX, culler.offY, culler.offZ);
+            d.mesh.gl.draw();
+        }
+        // Highlight targeted block (raycast done by the sim, carried in the snapshot)
+        if (snap.hasTarget) {
             // Depth test ON so the outline occludes properly behind blocks
-            drawBlockOutline(hit.x, hit.y, hit.z);
+            glUniform3f(shader.uChunkOffset, (float) (snap.targetX - culler.ex), (float) (snap.targetY - culler.ey),
+                (float) (snap.targetZ - culler.ez));
+            drawBlockOutline();
         }
 
         // Present
         glfwSwapBuffers(window);
+        if (!shown) { glfwShowWindow(window); shown = true; }
     }
 
     @Override
     public void shutdown() {
         if (!init) return;
         // destroy all chunk meshes
-        for (GLMesh m : meshesByChunk.values()) m.destroy();
+        for (SharedMesh m : meshesByContent.values()) m.gl.destroy();
+        meshesByContent.clear();
         meshesByChunk.clear();
+        drawList.clear();
+        meshBytes = 0;
+        culler.occlusion.clear();
         shader.destroy();
         glfwMakeContextCurrent(0);
         glfwDestroyWindow(window);
@@ -259,11 +327,14 @@ public class LwjglRenderer implements Renderer {
         return init && glfwWindowShouldClose(window);
     }
 
+    /** Window, GL context and shader; the window is created hidden. */
+    @Override public void init() { initWindowAndContext(); }
+
     private void initWindowAndContext() {
         if (init) return;
         if (!glfwInit()) throw new IllegalStateException("GLFW init failed");
         glfwDefaultWindowHints();
-        glfwWindowHint(GLFW_VISIBLE, GLFW_TRUE);
+        glfwWindowHint(GLFW_VISIBLE, GLFW_FALSE); // shown after the first complete frame
         glfwWindowHint(GLFW_RESIZABLE, GLFW_TRUE);
         glfwWindowHint(GLFW_CONTEXT_VERSION_MAJOR, 3);
         glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 3);
@@ -290,8 +361,9 @@ public class LwjglRenderer implements Renderer {
         "layout(location=0) in vec3 inPos;\n" +
         "layout(location=1) in vec3 inColor;\n" +
         "uniform mat4 uVP;\n" +
+        "uniform vec3 uChunkOffset;\n" +
         "out vec3 vColor;\n" +
-        "void main(){ vColor = inColor; gl_Position = uVP * vec4(inPos,1.0); }\n";
+        "void main(){ vColor = inColor; gl_Position = uVP * vec4(inPos + uChunkOffset,1.0); }\n";
 
     private static final String FS_SRC =
         "#version 330 core\n" +
@@ -0,0 +1,132 @@
+package render;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import world.SectionVisibility;
+import world.World;
+import world.World.ChunkPos;
+
+/**
+ * Cave culling: per-frame BFS over chunks starting at the camera's chunk.
+ * A chunk is only left through faces that its open space connects to the face we
+ * entered by, and never back toward the camera. Pure CPU; no GL calls.
+ * The walk runs on a (2·maxChunkDist+1)² × (2·maxChunkDistY+1) grid centered on the camera's
+ * chunk, with bitsets for known and reached chunks, so a frame allocates nothing; the grid
+ * is refilled from the map only when the camera changes chunk or a graph changes.
+ */
+final class OcclusionCuller {
+    private final Map<ChunkPos, Integer> graphs = new HashMap<>();
+    private final int maxChunkDist, maxChunkDistY, width, height;
+    private final int[] grid;               // cell (relative to gridX/gridY/gridZ) -> visibility mask
+    private final long[] known, reached;    // bit per cell: has a mask / reached this frame
+    private int gridX, gridY, gridZ;
+    private boolean gridDirty = true;
+
+    // BFS queue as parallel arrays (x, y, z, face entered by, directions taken)
+    private int[] qx = new int[256], qy = new int[256], qz = new int[256], qFrom = new int[256], qDirs = new int[256];
+
+    OcclusionCuller(int maxChunkDist, int maxChunkDistY) {
+        this.maxChunkDist = maxChunkDist;
+        this.maxChunkDistY = maxChunkDistY;
+        this.width = 2 * maxChunkDist + 1;
+        this.height = 2 * maxChunkDistY + 1;
+        this.grid = new int[width * width * height];
+        this.known = new long[(grid.length + 63) >> 6];
+        this.reached = new long[(grid.length + 63) >> 6];
+    }
+
+    /** Called on upload: remembers the connectivity of a chunk. */
+    void update(ChunkPos pos, int mask) {
+        Integer old = graphs.put(pos, mask);
+        if (old == null || old != mask) gridDirty = true;
+    }
+
+    void remove(ChunkPos pos) { if (graphs.remove(pos) != null) gridDirty = true; }
+
+    void clear() { graphs.clear(); Arrays.fill(reached, 0L); gridDirty = true; }
+
+    /**
+     * Marks the chunks reachable from the eye (see {@link #isVisible}). Returns false when the
+     * camera's own chunk is unknown (not meshed yet) so the caller can fall back to drawing everything.
+     */
+    boolean computeVisible(double ex, double ey, double ez) {
+        Arrays.fill(reached, 0L);
+
+        int cx = Math.floorDiv((int) Math.floor(ex), World.CHUNK_SIZE_X);
+        int cy = Math.floorDiv((int) Math.floor(ey), World.CHUNK_SIZE_Y);
+        int cz = Math.floorDiv((int) Math.floor(ez), World.CHUNK_SIZE_Z);
+        if (gridDirty || cx != gridX || cy != gridY || cz != gridZ) fillGrid(cx, cy, cz);
+        int start = cell(cx, cy, cz);
+        if (!isSet(known, start)) return false;
+
+        int head = 0, tail = 0;
+        mark(reached, start);
+        push(tail++, cx, cy, cz, -1, 0);
+
+        while (head < tail) {
+            int x = qx[head], y = qy[head], z = qz[head], from = qFrom[head], dirs = qDirs[head];
+            head++;
+            int mask = grid[cell(x, y, z)];
+
+            for (int f = 0; f < 6; f++) {
+                if ((dirs & (1 << SectionVisibility.opposite(f))) != 0) continue; // never turn back
+                if (from >= 0 && !SectionVisibility.connected(mask, from, f)) continue;
+
+                int nx = x + World.FACE_DX[f], ny = y + World.FACE_DY[f], nz = z + World.FACE_DZ[f];
+                if (!inGrid(nx, ny, nz)) continue;
+                int n = cell(nx, ny, nz);
+                if (!isSet(known, n) || !mark(reached, n)) continue;
+
+                push(tail++, nx, ny, nz, SectionVisibility.opposite(f), dirs | (1 << f));
+            }
+        }
+        return true;
+    }
+
+    /** Whether the last {@link #computeVisible} reached chunk (cx, cy, cz). */
+    boolean isVisible(int cx, int cy, int cz) {
+        return inGrid(cx, cy, cz) && isSet(reached, cell(cx, cy, cz));
+    }
+
+    private void fillGrid(int cx, int cy, int cz) {
+        Arrays.fill(known, 0L);
+        gridX = cx; gridY = cy; gridZ = cz;
+        for (Map.Entry<ChunkPos, Integer> e : graphs.entrySet()) {
+            ChunkPos p = e.getKey();
+            if (!inGrid(p.x, p.y, p.z)) continue;
+            int i = cell(p.x, p.y, p.z);
+            grid[i] = e.getValue();
+            mark(known, i);
+        }
+        gridDirty = false;
+    }
+
+    private boolean inGrid(int x, int y, int z) {
+        return Math.abs(x - gridX) <= maxChunkDist && Math.abs(z - gridZ) <= maxChunkDist && Math.abs(y - gridY) <= maxChunkDistY;
+    }
+
+    private int cell(int x, int y, int z) {
+        return ((x - gridX + maxChunkDist) * width + (z - gridZ + maxChunkDist)) * height + (y - gridY + maxChunkDistY);
+    }
+
+    private static boolean isSet(long[] bits, int i) { return (bits[i >> 6] & (1L << i)) != 0; }
+
+    /** Sets bit i; false if it was already set. */
+    private static boolean mark(long[] bits, int i) {
+        long b = 1L << i;
+        if ((bits[i >> 6] & b) != 0) return false;
+        bits[i >> 6] |= b;
+        return true;
+    }
+
+    private void push(int i, int x, int y, int z, int from, int dirs) {
+        if (i == qx.length) {
+            int n = qx.length * 2;
+            qx = Arrays.copyOf(qx, n); qy = Arrays.copyOf(qy, n); qz = Arrays.copyOf(qz, n);
+            qFrom = Arrays.copyOf(qFrom, n); qDirs = Arrays.copyOf(qDirs, n);
+        }
+        qx[i] = x; qy[i] = y; qz[i] = z; qFrom[i] = from; qDirs[i] = dirs;
+    }
+}
@@ -0,0 +1,311 @@
+package render;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import engine.EngineConfig;
+import engine.InputState;
+import engine.Telemetry;
+import jobs.JobPriority;
+import jobs.JobSystem;
+import world.RenderState;
+import world.SectionVisibility;
+import world.World;
+import world.World.Chunk;
+import world.World.ChunkPos;
+import world.World.GpuUpload;
+
+/**
+ * Headless checks for the render package's CPU side (no window, no GL context), one mode per
+ * run, like engine.SelfCheck. Exits with status 1 when a check fails.
+ * Args: MODE [options]
+ * - frame-alloc [--frames N]: FrameCuller over a warmed-up spawn area, camera turning every
+ *   frame; heap bytes allocated per frame (ThreadMXBean) must stay under FRAME_ALLOC_BUDGET
+ * - atlas [--tiles N]: AtlasBaker on N random mixed-size tiles (packing without overlap,
+ *   pixels in place, mip chain sizes), the cache file round trip (same hash maps, another
+ *   hash or a truncated file re-bakes), then TextureAtlas.loadOrBake on the real block
+ *   textures (ImageIO instead of STB) twice: the second run must not decode
+ * - occlusion: SectionVisibility masks of hand-built chunks (sealed shell, L-shaped tunnel,
+ *   straight tunnel, empty), then which chunks OcclusionCuller reaches through them: not
+ *   past a tunnel's bend or a shell, never back toward the camera, and no culling at all
+ *   while the camera's chunk is unknown
+ */
+public class RenderCheck {
+    /** Bytes per frame still called zero: slack for a stray JIT deoptimization or profiler sample. */
+    private static final double FRAME_ALLOC_BUDGET = 1.0;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) throw new IllegalArgumentException("usage: RenderCheck MODE [options]");
+        String[] opts = Arrays.copyOfRange(args, 1, args.length);
+        boolean ok = switch (args[0]) {
+            case "frame-alloc" -> frameAlloc(intOpt(opts, "--frames", 200_000));
+            case "atlas" -> atlas(intOpt(opts, "--tiles", 300));
+            case "occlusion" -> occlusion();
+            default -> throw new IllegalArgumentException("unknown mode " + args[0]);
+        };
+        System.out.println(ok ? "[RenderCheck] " + args[0] + ": ok" : "[RenderCheck] " + args[0] + ": FAILED");
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static int intOpt(String[] opts, String name, int dflt) {
+        for (int i = 0; i + 1 < opts.length; i += 2) {
+            if (opts[i].equals(name)) return Integer.parseInt(opts[i + 1]);
+            if (!opts[i].startsWith("--")) break;
+        }
+        return dflt;
+    }
+
+    // ---- frame-alloc ----
+
+    private static boolean frameAlloc(int frames) throws Exception {
+        EngineConfig cfg = new EngineConfig();
+        cfg.enableAutoscale = false;
+        cfg.minWorkers = cfg.maxWorkers = 0; // warmup runs inline
+        JobSystem jobs = new JobSystem(cfg, new Telemetry());
+        World world = new World(jobs, new InputState(), null, null);
+        world.warmup(0, 0, 0, cfg.spawnWarmupRadius + 2, cfg.spawnWarmupRadiusY);
+        for (;;) {
+            int q = 0;
+            for (JobPriority p : JobPriority.values()) q += jobs.queuedFor(p);
+            if (q == 0) break;
+            jobs.runInlineFor(50);
+        }
+        world.tick(1.0 / cfg.targetTps); // publishes a render snapshot with the loaded chunk set
+
+        // what drainGpuUploadQueue keeps, minus the GL buffers
+        FrameCuller culler = new FrameCuller();
+        List<ChunkPos> drawList = new ArrayList<>();
+        for (GpuUpload up; (up = world.gpuUploads.poll()) != null; ) {
+            if (up.unload) continue;
+            culler.occlusion.update(up.pos, up.visibility);
+            if (up.mesh != null && !drawList.contains(up.pos)) drawList.add(up.pos);
+        }
+        RenderState.Snapshot snap = world.renderState.acquire();
+
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long drawn = 0;
+        double perFrame = 0;
+        for (int round = 0; round < 3; round++) { // round 0 warms up the JIT
+            long t0 = System.nanoTime(), a0 = threads.getCurrentThreadAllocatedBytes();
+            for (int f = 0; f < frames; f++) {
+                culler.begin(snap, (f % 64) / 64f, f * 0.37f, (f % 120) - 60f, 16f / 9);
+                for (int i = 0, n = drawList.size(); i < n; i++)
+                    if (culler.visible(snap, drawList.get(i))) drawn++;
+            }
+            long bytes = threads.getCurrentThreadAllocatedBytes() - a0;
+            perFrame = bytes / (double) frames;
+            System.out.printf("[RenderCheck] round %d: %d chunks, %.2f B/frame, %.1f us/frame%n",
+                round, drawList.size(), perFrame, (System.nanoTime() - t0) / 1e3 / frames);
+        }
+        jobs.shutdown();
+        return drawn > 0 && perFrame <= FRAME_ALLOC_BUDGET;
+    }
+
+    // ---- atlas ----
+
+    private static boolean atlas(int count) throws Exception {
+        Random rnd = new Random(1);
+        AtlasBaker.Tile[] tiles = new AtlasBaker.Tile[count];
+        long area = 0;
+        for (int i = 0; i < count; i++) {
+            int w = 16 << rnd.nextInt(3), h = rnd.nextBoolean() ? w : 2 * w; // 16..64, some 1:2 (animated strips)
+            byte[] rgba = new byte[w * h * 4];
+            rnd.nextBytes(rgba);
+            tiles[i] = new AtlasBaker.Tile("t" + i, w, h, rgba);
+            area += (long) w * h;
+        }
+        long t0 = System.nanoTime();
+        AtlasBaker.Baked b = AtlasBaker.bake(tiles, 42);
+        double bakeMs = (System.nanoTime() - t0) / 1e6;
+        boolean ok = checkBaked(b, tiles);
+        System.out.printf("[RenderCheck] atlas: %d tiles into %dx%d (%.0f%% filled), %d mips, bake %.1f ms%n",
+            count, b.width, b.height, 100.0 * area / ((double) b.width * b.height), b.levels.length, bakeMs);
+
+        Path dir = Files.createTempDirectory("voxel-atlas");
+        try {
+            Path file = dir.resolve("atlas.bin");
+            AtlasBaker.write(b, file);
+            t0 = System.nanoTime();
+            AtlasBaker.Baked mapped = AtlasBaker.read(file, 42);
+            double mapMs = (System.nanoTime() - t0) / 1e6;
+            ok &= mapped != null && sameAtlas(b, mapped);
+            ok &= expect(AtlasBaker.read(file, 43) == null, "a cache baked from other sources was used");
+            Path cut = dir.resolve("cut.bin");
+            Files.write(cut, Arrays.copyOf(Files.readAllBytes(file), (int) Files.size(file) / 2));
+            ok &= expect(AtlasBaker.read(cut, 42) == null, "a truncated cache was used");
+            System.out.printf("[RenderCheck] atlas: cache %d KiB, mapped in %.1f ms%n", Files.size(file) >> 10, mapMs);
+
+            // the real block textures, decoded without STB/GL
+            String[] names = { "grass_top", "grass_side", "dirt", "stone", "missing" };
+            if (!Files.isDirectory(Path.of(TextureAtlas.TILE_DIR))) {
+                System.out.println("[RenderCheck] atlas: no " + TextureAtlas.TILE_DIR + " here, skipped loadOrBake");
+                return ok;
+            }
+            Path cache = dir.resolve("blocks.bin");
+            t0 = System.nanoTime();
+            AtlasBaker.Baked baked = TextureAtlas.loadOrBake(names, cache, RenderCheck::decodeImageIo);
+            long t1 = System.nanoTime();
+            AtlasBaker.Baked hit = TextureAtlas.loadOrBake(names, cache, (n, bytes) -> {
+                throw new IllegalStateException("decoded " + n + " although the cache matches");
+            });
+            System.out.printf("[RenderCheck] atlas: block textures baked in %.1f ms, loaded from the cache in %.1f ms%n",
+                (t1 - t0) / 1e6, (System.nanoTime() - t1) / 1e6);
+            ok &= sameAtlas(baked, hit);
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path p : (Iterable<Path>) files::iterator) Files.deleteIfExists(p);
+            }
+            Files.deleteIfExists(dir);
+        }
+        return ok;
+    }
+
+    /** Rects inside the atlas and disjoint, level 0 holds every tile's pixels, level L is (w>>L)×(h>>L). */
+    private static boolean checkBaked(AtlasBaker.Baked b, AtlasBaker.Tile[] tiles) {
+        int[] r = b.rects;
+        boolean ok = true;
+        for (int i = 0; i < tiles.length && ok; i++) {
+            ok &= expect(r[i * 4] >= 0 && r[i * 4 + 1] >= 0 && r[i * 4] + r[i * 4 + 2] <= b.width
+                && r[i * 4 + 1] + r[i * 4 + 3] <= b.height, "tile " + i + " outside the atlas");
+            for (int j = i + 1; j < tiles.length && ok; j++)
+                ok &= expect(r[i * 4] >= r[j * 4] + r[j * 4 + 2] || r[j * 4] >= r[i * 4] + r[i * 4 + 2]
+                    || r[i * 4 + 1] >= r[j * 4 + 1] + r[j * 4 + 3] || r[j * 4 + 1] >= r[i * 4 + 1] + r[i * 4 + 3],
+                    "tiles " + i + " and " + j + " overlap");
+            AtlasBaker.Tile t = tiles[i];
+            for (int row = 0; row < t.h && ok; row++)
+                ok &= expect(b.levels[0].slice(((r[i * 4 + 1] + row) * b.width + r[i * 4]) * 4, t.w * 4)
+                    .equals(ByteBuffer.wrap(t.rgba, row * t.w * 4, t.w * 4)), "tile " + i + " pixels misplaced");
+        }
+        for (int l = 0; l < b.levels.length; l++)
+            ok &= expect(b.levels[l].remaining() == (b.width >> l) * (b.height >> l) * 4, "mip " + l + " has the wrong size");
+        return ok;
+    }
+
+    private static boolean sameAtlas(AtlasBaker.Baked a, AtlasBaker.Baked b) {
+        boolean ok = expect(a.width == b.width && a.height == b.height && Arrays.equals(a.names, b.names)
+            && Arrays.equals(a.rects, b.rects) && a.levels.length == b.levels.length, "cached atlas layout differs");
+        for (int l = 0; ok && l < a.levels.length; l++)
+            ok = expect(a.levels[l].duplicate().rewind().equals(b.levels[l].duplicate().rewind()), "cached mip " + l + " differs");
+        return ok;
+    }
+
+    // ---- occlusion ----
+
+    private static final String[] FACES = { "+X", "-X", "+Y", "-Y", "+Z", "-Z" };
+
+    private static boolean occlusion() {
+        // masks: each layout connects exactly the listed face pairs
+        Chunk shell = solid(), bend = solid(), straight = solid();
+        for (int y = 1; y < 15; y++)
+            for (int z = 1; z < 15; z++)
+                for (int x = 1; x < 15; x++) shell.set(x, y, z, World.AIR);
+        for (int x = 0; x <= 8; x++) bend.set(x, 8, 8, World.AIR);       // in through -X ...
+        for (int y = 8; y < 16; y++) bend.set(8, y, 8, World.AIR);       // ... out through +Y
+        for (int x = 0; x < 16; x++) straight.set(x, 4, 4, World.AIR);  // -X to +X
+        int shellMask = SectionVisibility.compute(shell), bendMask = SectionVisibility.compute(bend);
+        int straightMask = SectionVisibility.compute(straight), emptyMask = SectionVisibility.compute(new Chunk());
+        boolean ok = expectPairs("sealed shell", shellMask)
+            & expectPairs("L-shaped tunnel", bendMask, 1, 2)
+            & expectPairs("straight tunnel", straightMask, 0, 1)
+            & expect(emptyMask == SectionVisibility.ALL_CONNECTED, "empty chunk: mask " + Integer.toHexString(emptyMask));
+
+        // the camera sits in (0,0,0); unknown chunks block the walk like unmeshed ones do
+        OcclusionCuller oc = new OcclusionCuller(4, 4);
+        ok &= expect(!oc.computeVisible(8, 8, 8), "camera in an unknown chunk did not fall back to drawing everything");
+        oc.update(new ChunkPos(0, 0, 0), emptyMask);
+        oc.update(new ChunkPos(1, 0, 0), bendMask);   // entered through -X: only +Y leads on
+        oc.update(new ChunkPos(2, 0, 0), emptyMask);
+        oc.update(new ChunkPos(1, 1, 0), emptyMask);
+        oc.update(new ChunkPos(1, -1, 0), emptyMask);
+        oc.update(new ChunkPos(-1, 0, 0), shellMask); // seen from outside, nothing behind it
+        oc.update(new ChunkPos(-2, 0, 0), emptyMask);
+        ok &= expect(oc.computeVisible(8, 8, 8), "camera chunk known but culling fell back");
+        ok &= expectReached(oc, "bend", new int[][] { { 0, 0, 0 }, { 1, 0, 0 }, { 1, 1, 0 }, { -1, 0, 0 } },
+            new int[][] { { 2, 0, 0 }, { 1, -1, 0 }, { -2, 0, 0 } });
+
+        // no backtracking: (1,0,1) is only reachable along +X, +X, +Z, -X, which turns back on
+        // the first step; the tunnel in (1,0,0) keeps the walk from turning +Z right there
+        oc = new OcclusionCuller(4, 4);
+        oc.update(new ChunkPos(0, 0, 0), emptyMask);
+        oc.update(new ChunkPos(1, 0, 0), straightMask); // entered through -X: on to +X only
+        oc.update(new ChunkPos(2, 0, 0), emptyMask);
+        oc.update(new ChunkPos(2, 0, 1), emptyMask);
+        oc.update(new ChunkPos(1, 0, 1), emptyMask);    // next to (1,0,0), but not through its tunnel
+        ok &= expect(oc.computeVisible(8, 8, 8), "culling fell back");
+        ok &= expectReached(oc, "U-turn", new int[][] { { 0, 0, 0 }, { 1, 0, 0 }, { 2, 0, 0 }, { 2, 0, 1 } },
+            new int[][] { { 1, 0, 1 } });
+
+        // the camera's chunk unloaded, or the camera far away from every known chunk: fall back again
+        oc.remove(new ChunkPos(0, 0, 0));
+        ok &= expect(!oc.computeVisible(8, 8, 8), "camera chunk removed but culling still ran");
+        ok &= expect(!oc.computeVisible(-100, 8, 8), "camera far from every known chunk but culling ran");
+        System.out.printf("[RenderCheck] occlusion: masks shell %x, bend %x, straight %x, empty %x%n",
+            shellMask, bendMask, straightMask, emptyMask);
+        return ok;
+    }
+
+    private static Chunk solid() {
+        Chunk c = new Chunk();
+        for (int y = 0; y < 16; y++)
+            for (int z = 0; z < 16; z++)
+                for (int x = 0; x < 16; x++) c.set(x, y, z, World.STONE);
+        return c;
+    }
+
+    /** The mask connects exactly faces a/b of each listed pair (both directions), nothing else. */
+    private static boolean expectPairs(String layout, int mask, int... pairs) {
+        boolean ok = true;
+        for (int a = 0; a < 6; a++)
+            for (int b = 0; b < 6; b++) {
+                boolean want = false;
+                for (int i = 0; i < pairs.length; i += 2)
+                    want |= (pairs[i] == a && pairs[i + 1] == b) || (pairs[i] == b && pairs[i + 1] == a);
+                ok &= expect(SectionVisibility.connected(mask, a, b) == want,
+                    layout + ": " + FACES[a] + " to " + FACES[b] + (want ? " not connected" : " connected"));
+            }
+        return ok;
+    }
+
+    private static boolean expectReached(OcclusionCuller oc, String layout, int[][] visible, int[][] hidden) {
+        boolean ok = true;
+        for (int[] p : visible)
+            ok &= expect(oc.isVisible(p[0], p[1], p[2]), layout + ": chunk " + Arrays.toString(p) + " not reached");
+        for (int[] p : hidden)
+            ok &= expect(!oc.isVisible(p[0], p[1], p[2]), layout + ": chunk " + Arrays.toString(p) + " reached");
+        return ok;
+    }
+
+    private static boolean expect(boolean cond, String failure) {
+        if (!cond) System.out.println("[RenderCheck] " + failure);
+        return cond;
+    }
+
+    private static AtlasBaker.Tile decodeImageIo(String name, byte[] encoded) {
+        try {
+            BufferedImage im = ImageIO.read(new ByteArrayInputStream(encoded));
+            int w = im.getWidth(), h = im.getHeight();
+            byte[] rgba = new byte[w * h * 4];
+            for (int y = 0; y < h; y++)
+                for (int x = 0; x < w; x++) {
+                    int argb = im.getRGB(x, y), i = (y * w + x) * 4;
+                    rgba[i] = (byte) (argb >> 16); rgba[i + 1] = (byte) (argb >> 8);
+                    rgba[i + 2] = (byte) argb; rgba[i + 3] = (byte) (argb >>> 24);
+                }
+            return new AtlasBaker.Tile(name, w, h, rgba);
+        } catch (IOException e) {
+            throw new UncheckedIOException("decode failed: " + name, e);
+        }
+    }
+}
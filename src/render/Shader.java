@@ -5,6 +5,7 @@ import static org.lwjgl.opengl.GL20.*;
 final class Shader {
     final int programId;
     final int uVP; // uniform location
+    final int uChunkOffset; // per-draw translation of chunk-local positions (camera-relative)
 
     Shader(String vs, String fs) {
         int v = glCreateShader(GL_VERTEX_SHADER); glShaderSource(v, vs); glCompileShader(v);
@@ -21,6 +22,7 @@ final class Shader {
         glDeleteShader(v); glDeleteShader(f);
 
         uVP = glGetUniformLocation(programId, "uVP");
+        uChunkOffset = glGetUniformLocation(programId, "uChunkOffset");
     }
 
     void use() { glUseProgram(programId); }
@@ -39,6 +39,19 @@ final class Texture2D {
         glBindTexture(GL_TEXTURE_2D, 0);
     }
 
+    /** Uploads a prebaked mip chain (level 0 first); no glGenerateMipmap on this path. */
+    void uploadMipChain(ByteBuffer[] levels) {
+        glBindTexture(GL_TEXTURE_2D, id);
+        glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+        for (int l = 0; l < levels.length; l++) {
+            int w = Math.max(1, width >> l), h = Math.max(1, height >> l);
+            glTexImage2D(GL_TEXTURE_2D, l, GL_SRGB8_ALPHA8, w, h, 0, GL_RGBA, GL_UNSIGNED_BYTE, levels[l]);
+        }
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_BASE_LEVEL, 0);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAX_LEVEL, levels.length - 1);
+        glBindTexture(GL_TEXTURE_2D, 0);
+    }
+
     void bind(int unit) {
         glActiveTexture(GL_TEXTURE0 + unit);
         glBindTexture(GL_TEXTURE_2D, id);
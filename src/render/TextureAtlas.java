@@ -6,11 +6,20 @@ import static org.lwjgl.system.MemoryStack.stackPush;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.lwjgl.system.MemoryStack;
 
+/**
+ * Block texture atlas. Startup path:
+ * - read the raw PNG bytes of every tile (no decoding) and hash them
+ * - if the baked atlas file carries that hash, memory-map it and upload its mip levels
+ * - otherwise decode, pack and bake once, write the file, then upload
+ */
 public final class TextureAtlas {
     public static final class Region {
         public final float u0,v0,u1,v1;
@@ -18,43 +27,41 @@ public final class TextureAtlas {
         
     }
 
+    /** Turns encoded image bytes into RGBA8 tiles; lets the baker run without STB/GL. */
+    interface Decoder {
+        AtlasBaker.Tile decode(String name, byte[] encoded);
+    }
+
+    static final String TILE_DIR = "assets/textures/block/";
+    static final Path DEFAULT_CACHE = Paths.get("cache", "atlas.bin");
+
     private final Map<String, Region> regions = new LinkedHashMap<>();
     public final Texture2D glTex;
 
     /**
-     * Loads 16x16 tiles by name, packs into an N×N grid atlas, uploads to GL.
+     * Loads tiles by name (any size, mixed sizes allowed), using the baked atlas cache.
      * @param tileNames ordered names to pack (deterministic UVs)
      */
     public TextureAtlas(String[] tileNames) {
-    	
-    	System.out.println(
-    		    openResource("assets/textures/block/grass_top.png") != null ? "FOUND" : "NOT FOUND"
-    		);
-    	
-        // Load all tiles (RGBA8)
-        final int tileW = 16, tileH = 16;
-        byte[][] tiles = new byte[tileNames.length][];
-        for (int i=0;i<tileNames.length;i++) tiles[i] = loadPngRGBA("assets/textures/block/" + tileNames[i] + ".png", 16, 16);
-
-
-        // Decide atlas side: ceil(sqrt(n)) tiles per side
-        int sideTiles = (int)Math.ceil(Math.sqrt(tileNames.length));
-        int atlasW = sideTiles * tileW, atlasH = sideTiles * tileH;
-        byte[] atlas = new byte[atlasW * atlasH * 4];
-
-        // Blit tiles into atlas and record UVs
-        for (int i=0;i<tileNames.length;i++){
-            int tx = (i % sideTiles) * tileW;
-            int ty = (i / sideTiles) * tileH;
-            blit(atlas, atlasW, atlasH, tiles[i], tileW, tileH, tx, ty);
-            float u0 = tx / (float)atlasW, v0 = ty / (float)atlasH;
-            float u1 = (tx+tileW) / (float)atlasW, v1 = (ty+tileH) / (float)atlasH;
-            regions.put(tileNames[i], new Region(u0,v0,u1,v1));
+        this(tileNames, DEFAULT_CACHE);
+    }
+
+    public TextureAtlas(String[] tileNames, Path cacheFile) {
+        long t0 = System.nanoTime();
+        AtlasBaker.Baked baked = loadOrBake(tileNames, cacheFile, TextureAtlas::decodeStb);
+        long t1 = System.nanoTime();
+
+        for (int i = 0; i < baked.names.length; i++) {
+            int x = baked.rects[i * 4], y = baked.rects[i * 4 + 1];
+            int w = baked.rects[i * 4 + 2], h = baked.rects[i * 4 + 3];
+            regions.put(baked.names[i], new Region(x / (float) baked.width, y / (float) baked.height,
+                (x + w) / (float) baked.width, (y + h) / (float) baked.height));
         }
 
-        // Upload
-        glTex = new Texture2D(atlasW, atlasH);
-        glTex.uploadRGBA8(atlas);
+        glTex = new Texture2D(baked.width, baked.height);
+        glTex.uploadMipChain(baked.levels);
+        System.out.printf("[TextureAtlas] %d tiles, %dx%d, %d mips, load %.1f ms%n",
+            baked.names.length, baked.width, baked.height, baked.levels.length, (t1 - t0) / 1e6);
     }
 
     public Region region(String name) {
@@ -63,54 +70,58 @@ public final class TextureAtlas {
         return r;
     }
 
-    private static void blit(byte[] dst, int dw, int dh, byte[] src, int sw, int sh, int dx, int dy) {
-        for (int y=0;y<sh;y++){
-            int di = ((dy+y) * dw + (dx)) * 4;
-            int si = (y * sw) * 4;
-            System.arraycopy(src, si, dst, di, sw*4);
-            
+    /** GL-free part of startup: hash sources, map the cache on a hit, re-bake on a miss. */
+    static AtlasBaker.Baked loadOrBake(String[] tileNames, Path cacheFile, Decoder decoder) {
+        byte[][] sources = new byte[tileNames.length][];
+        for (int i = 0; i < tileNames.length; i++) sources[i] = readTile(tileNames[i]);
+        long hash = AtlasBaker.contentHash(tileNames, sources);
+
+        try {
+            AtlasBaker.Baked cached = AtlasBaker.read(cacheFile, hash);
+            if (cached != null) return cached;
+        } catch (IOException e) {
+            System.err.println("[TextureAtlas] cache unreadable, re-baking: " + e);
         }
-    }
 
-    private static byte[] loadPngRGBA(String resourcePath, int expectW, int expectH) {
-        try (InputStream in = openResource(resourcePath)) {
-            if (in == null) throw new RuntimeException("Missing texture: " + resourcePath);
-            byte[] bytes = in.readAllBytes();
-            ByteBuffer buf = ByteBuffer.allocateDirect(bytes.length).put(bytes);
-            buf.flip();
-            try (MemoryStack s = stackPush()) {
-                var wx = s.mallocInt(1);
-                var hx = s.mallocInt(1);
-                var cx = s.mallocInt(1);
-                stbi_set_flip_vertically_on_load(false);
-                ByteBuffer img = stbi_load_from_memory(buf, wx, hx, cx, 4);
-                if (img == null) throw new RuntimeException("STB failed: " + stbi_failure_reason());
-                int w = wx.get(0), h = hx.get(0);
-                if (w!=expectW || h!=expectH) {
-                    stbi_image_free(img);
-                    throw new RuntimeException("Unexpected tile size for " + resourcePath + ": " + w + "x" + h);
-                }
-                byte[] out = new byte[w*h*4];
-                img.get(out);
-                stbi_image_free(img);
-                return out;
-            }
+        AtlasBaker.Tile[] tiles = new AtlasBaker.Tile[tileNames.length];
+        for (int i = 0; i < tileNames.length; i++) tiles[i] = decoder.decode(tileNames[i], sources[i]);
+        AtlasBaker.Baked baked = AtlasBaker.bake(tiles, hash);
+        try {
+            AtlasBaker.write(baked, cacheFile);
         } catch (IOException e) {
-            throw new RuntimeException("Load failed: " + resourcePath, e);
+            System.err.println("[TextureAtlas] could not write atlas cache: " + e); // still usable this run
         }
+        return baked;
     }
 
-    private static InputStream openResource(String path) {
-        ClassLoader cl = TextureAtlas.class.getClassLoader();
-
-        InputStream in = cl.getResourceAsStream(path);               // e.g. "textures/block/grass_top.png"
-        if (in != null) return in;
-
-        in = cl.getResourceAsStream("assets/" + path);               // fallback if assets/ not source folder
-        if (in != null) return in;
+    /** Tiles come from the classpath when packaged, otherwise from the working directory. */
+    private static byte[] readTile(String name) {
+        String path = TILE_DIR + name + ".png";
+        try (InputStream in = TextureAtlas.class.getClassLoader().getResourceAsStream(path)) {
+            if (in != null) return in.readAllBytes();
+            Path file = Paths.get(path);
+            if (Files.isRegularFile(file)) return Files.readAllBytes(file);
+        } catch (IOException e) {
+            throw new RuntimeException("Load failed: " + path, e);
+        }
+        throw new RuntimeException("Missing texture: " + path);
+    }
 
-        try { return new java.io.FileInputStream(path); } catch (IOException ignored) {}
-        try { return new java.io.FileInputStream("assets/" + path); } catch (IOException ignored) {}
-        return null;
+    private static AtlasBaker.Tile decodeStb(String name, byte[] bytes) {
+        ByteBuffer buf = ByteBuffer.allocateDirect(bytes.length).put(bytes);
+        buf.flip();
+        try (MemoryStack s = stackPush()) {
+            var wx = s.mallocInt(1);
+            var hx = s.mallocInt(1);
+            var cx = s.mallocInt(1);
+            stbi_set_flip_vertically_on_load(false);
+            ByteBuffer img = stbi_load_from_memory(buf, wx, hx, cx, 4);
+            if (img == null) throw new RuntimeException("STB failed for " + name + ": " + stbi_failure_reason());
+            int w = wx.get(0), h = hx.get(0);
+            byte[] out = new byte[w*h*4];
+            img.get(out);
+            stbi_image_free(img);
+            return new AtlasBaker.Tile(name, w, h, out);
+        }
     }
 }
@@ -0,0 +1,104 @@
+package world;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import world.World.Chunk;
+
+/**
+ * Compact chunk wire format: a palette of the ids present, then runs over the voxels in
+ * Chunk.idx order (x fastest, then z, then y), so horizontal layers collapse into a few runs.
+ *
+ * Layout: paletteSize-1:ubyte palette:ubyte[n] then, until all voxels are covered,
+ * runLength:varint [paletteIndex:ubyte, omitted when the palette has one entry].
+ * A flat generated chunk encodes to a few dozen bytes.
+ */
+public final class ChunkCodec {
+    public static final int VOXELS = World.CHUNK_SIZE_X * World.CHUNK_SIZE_Y * World.CHUNK_SIZE_Z;
+
+    private ChunkCodec() {}
+
+    /** Worst case: full palette + one 1-byte run and index per voxel. */
+    public static int maxEncodedBytes() { return 1 + 256 + VOXELS * 2; }
+
+    public static void encode(Chunk c, ByteBuffer out) {
+        byte[] vox = c.voxels();
+        byte[] paletteOf = new byte[256];       // id -> palette index + 1 (0 = absent)
+        byte[] palette = new byte[256];
+        int n = 0;
+        for (byte id : vox) {
+            if (paletteOf[id & 0xFF] == 0) { palette[n] = id; paletteOf[id & 0xFF] = (byte) ++n; }
+        }
+        out.put((byte) (n - 1));
+        out.put(palette, 0, n);
+
+        for (int i = 0; i < VOXELS; ) {
+            byte id = vox[i];
+            int j = i + 1;
+            while (j < VOXELS && vox[j] == id) j++;
+            putVarInt(out, j - i);
+            if (n > 1) out.put((byte) ((paletteOf[id & 0xFF] & 0xFF) - 1));
+            i = j;
+        }
+    }
+
+    /** Decodes into a fresh chunk (set() keeps counts and solidity masks consistent). */
+    public static Chunk decode(ByteBuffer in) {
+        int n = (in.get() & 0xFF) + 1;
+        byte[] palette = new byte[n];
+        in.get(palette);
+        Chunk c = new Chunk();
+        for (int i = 0; i < VOXELS; ) {
+            int run = getVarInt(in);
+            byte id = palette[(n > 1) ? (in.get() & 0xFF) : 0];
+            if (run <= 0 || i + run > VOXELS) throw new IllegalArgumentException("bad run " + run + " at " + i);
+            if (id != World.AIR)
+                for (int k = i; k < i + run; k++) c.set(Chunk.lx(k), Chunk.ly(k), Chunk.lz(k), id);
+            i += run;
+        }
+        return c;
+    }
+
+    /**
+     * Raw byte runs (runLength:varint value:byte) over {@code src}, for in-memory packing where
+     * light needs the same treatment as ids. False if {@code out} fills up first.
+     */
+    static boolean packRuns(byte[] src, ByteBuffer out) {
+        for (int i = 0; i < src.length; ) {
+            if (out.remaining() < 6) return false;
+            byte b = src[i];
+            int j = i + 1;
+            while (j < src.length && src[j] == b) j++;
+            putVarInt(out, j - i);
+            out.put(b);
+            i = j;
+        }
+        return true;
+    }
+
+    static void unpackRuns(ByteBuffer in, byte[] dst) {
+        for (int i = 0; i < dst.length; ) {
+            int run = getVarInt(in);
+            Arrays.fill(dst, i, i + run, in.get());
+            i += run;
+        }
+    }
+
+    public static void putVarInt(ByteBuffer out, int v) {
+        while ((v & ~0x7F) != 0) { out.put((byte) ((v & 0x7F) | 0x80)); v >>>= 7; }
+        out.put((byte) v);
+    }
+
+    public static int getVarInt(ByteBuffer in) {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.get();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IllegalArgumentException("varint too long");
+    }
+
+    public static int zigzag(int v) { return (v << 1) ^ (v >> 31); }
+    public static int unzigzag(int v) { return (v >>> 1) ^ -(v & 1); }
+}
@@ -0,0 +1,61 @@
+package world;
+
+import java.util.Arrays;
+
+import world.World.Chunk;
+
+/**
+ * Caches recently looked-up chunks in a small direct-mapped table, so voxel queries
+ * (collision sweeps, ray steps) skip the ChunkPos allocation + map lookup, also when
+ * consecutive queries hop between chunks (entities stepped in id order are scattered).
+ * Any unload since the lookup (World.unloadEpoch) empties the table, so a chunk that was
+ * dropped, or dropped and regenerated, is never served from the cache.
+ * Not thread-safe: one cursor per thread.
+ */
+public final class ChunkCursor {
+    private static final int SLOTS = 256; // power of two; covers a typical loaded area
+
+    private final World w;
+    private final long[] keys = new long[SLOTS];
+    private final Chunk[] chunks = new Chunk[SLOTS]; // null = empty slot (missing chunks are not cached)
+    private int epoch;
+
+    public ChunkCursor(World w) { this.w = w; }
+
+    /** Chunk at chunk coords (null if not loaded). */
+    public Chunk chunk(int chunkX, int chunkY, int chunkZ) {
+        int e = w.unloadEpoch;
+        if (e != epoch) { reset(); epoch = e; }
+        long key = World.packChunk(chunkX, chunkY, chunkZ);
+        int slot = (chunkX * 31 + chunkY * 7 + chunkZ * 961) & (SLOTS - 1);
+        Chunk c = chunks[slot];
+        if (c == null || keys[slot] != key) {
+            c = w.chunkAt(chunkX, chunkY, chunkZ);
+            if (c == null) return null;
+            keys[slot] = key;
+            chunks[slot] = c;
+        }
+        return c;
+    }
+
+    public boolean isSolid(int wx, int wy, int wz) {
+        Chunk c = chunk(Math.floorDiv(wx, World.CHUNK_SIZE_X), Math.floorDiv(wy, World.CHUNK_SIZE_Y), Math.floorDiv(wz, World.CHUNK_SIZE_Z));
+        return c != null && c.isSolid(Math.floorMod(wx, World.CHUNK_SIZE_X), Math.floorMod(wy, World.CHUNK_SIZE_Y), Math.floorMod(wz, World.CHUNK_SIZE_Z));
+    }
+
+    /** True if any voxel in column (wx,wz) between y0 and y1 (inclusive) is solid; may span chunks. */
+    public boolean anySolid(int wx, int y0, int y1, int wz) {
+        int lx = Math.floorMod(wx, World.CHUNK_SIZE_X), lz = Math.floorMod(wz, World.CHUNK_SIZE_Z);
+        int chunkX = Math.floorDiv(wx, World.CHUNK_SIZE_X), chunkZ = Math.floorDiv(wz, World.CHUNK_SIZE_Z);
+        for (int cy = Math.floorDiv(y0, World.CHUNK_SIZE_Y), last = Math.floorDiv(y1, World.CHUNK_SIZE_Y); cy <= last; cy++) {
+            Chunk c = chunk(chunkX, cy, chunkZ);
+            if (c == null) continue;
+            int base = cy * World.CHUNK_SIZE_Y;
+            if (c.anySolid(lx, lz, Math.max(y0, base) - base, Math.min(y1, base + World.CHUNK_SIZE_Y - 1) - base)) return true;
+        }
+        return false;
+    }
+
+    /** Forget the cached chunks (e.g. after one was replaced or unloaded). */
+    public void reset() { Arrays.fill(chunks, null); }
+}
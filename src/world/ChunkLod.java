@@ -0,0 +1,129 @@
+package world;
+
+import static world.World.AIR;
+import static world.World.CHUNK_SIZE_X;
+import static world.World.CHUNK_SIZE_Y;
+import static world.World.CHUNK_SIZE_Z;
+
+import world.World.Chunk;
+import world.World.ChunkPos;
+import world.World.FloatArray;
+import world.World.IntArray;
+import world.World.MeshBlob;
+
+/**
+ * Downsampled copies of one chunk (mip pyramid) plus lazily built low-poly meshes.
+ * Level L merges 2^L × 2^L × 2^L voxels into one cell: the cell is solid when at least
+ * half of its children are, and takes the most common solid id among them.
+ * Meshes are chunk-local like the full-detail ones. Pure CPU data; nothing here touches GL.
+ */
+public final class ChunkLod {
+    public static final int LEVELS = 4; // 0 = full resolution (built by MeshJob), 1..3 = 2×,4×,8×
+
+    /** Chebyshev chunk distance at which each level stops being used. */
+    private static final int[] LEVEL_MAX_DIST = { 4, 8, 16 };
+
+    final ChunkPos pos;
+    final int sourceVersion;                  // Chunk.version this pyramid was built from
+    final int visibility;                     // SectionVisibility of the source, so far chunks stay packed
+    private final byte[][] cells = new byte[LEVELS][];
+    private final MeshBlob[] meshes = new MeshBlob[LEVELS];
+
+    private ChunkLod(ChunkPos pos, int sourceVersion, int visibility) {
+        this.pos = pos; this.sourceVersion = sourceVersion; this.visibility = visibility;
+    }
+
+    /** Picks a level from the distance (in chunks) between a chunk and the player's chunk. */
+    public static int levelForDistance(int chunkDist) {
+        for (int l = 0; l < LEVEL_MAX_DIST.length; l++)
+            if (chunkDist <= LEVEL_MAX_DIST[l]) return l;
+        return LEVELS - 1;
+    }
+
+    /** Builds every level of the pyramid from full-resolution chunk data. */
+    public static ChunkLod build(ChunkPos pos, Chunk c) {
+        ChunkLod lod = new ChunkLod(pos, c.version, SectionVisibility.compute(c));
+        byte[] l0 = new byte[CHUNK_SIZE_X * CHUNK_SIZE_Y * CHUNK_SIZE_Z];
+        for (int y = 0; y < CHUNK_SIZE_Y; y++)
+            for (int z = 0; z < CHUNK_SIZE_Z; z++)
+                for (int x = 0; x < CHUNK_SIZE_X; x++)
+                    l0[Chunk.idx(x, y, z)] = c.get(x, y, z);
+        lod.cells[0] = l0;
+        for (int l = 1; l < LEVELS; l++) lod.cells[l] = downsample(lod.cells[l - 1], l - 1);
+        return lod;
+    }
+
+    public static int sizeX(int level) { return CHUNK_SIZE_X >> level; }
+    public static int sizeY(int level) { return CHUNK_SIZE_Y >> level; }
+    public static int sizeZ(int level) { return CHUNK_SIZE_Z >> level; }
+
+    /** Cell id at a level (coordinates in cells of that level). */
+    public byte get(int level, int x, int y, int z) {
+        return cells[level][x + z * sizeX(level) + y * sizeX(level) * sizeZ(level)];
+    }
+
+    /** Low-poly mesh for a level; built on first request and cached. */
+    public synchronized MeshBlob mesh(int level) {
+        MeshBlob m = meshes[level];
+        if (m == null) meshes[level] = m = buildMesh(level);
+        return m;
+    }
+
+    // 2×2×2 merge of the previous level
+    private static byte[] downsample(byte[] src, int srcLevel) {
+        int sx = sizeX(srcLevel), sz = sizeZ(srcLevel);
+        int dx = sx >> 1, dy = sizeY(srcLevel) >> 1, dz = sz >> 1;
+        byte[] dst = new byte[dx * dy * dz];
+        byte[] ids = new byte[8];
+        for (int y = 0; y < dy; y++)
+            for (int z = 0; z < dz; z++)
+                for (int x = 0; x < dx; x++) {
+                    int solid = 0;
+                    for (int c = 0; c < 8; c++) {
+                        int cx = 2 * x + (c & 1), cy = 2 * y + ((c >> 1) & 1), cz = 2 * z + (c >> 2);
+                        byte id = src[cx + cz * sx + cy * sx * sz];
+                        if (id != AIR) ids[solid++] = id;
+                    }
+                    dst[x + z * dx + y * dx * dz] = (solid >= 4) ? mostCommon(ids, solid) : AIR;
+                }
+        return dst;
+    }
+
+    private static byte mostCommon(byte[] ids, int n) {
+        byte best = ids[0]; int bestCount = 0;
+        for (int i = 0; i < n; i++) {
+            int count = 0;
+            for (int j = 0; j < n; j++) if (ids[j] == ids[i]) count++;
+            if (count > bestCount) { bestCount = count; best = ids[i]; }
+        }
+        return best;
+    }
+
+    /**
+     * Face culling inside the chunk only: faces on the chunk border are always emitted, so
+     * neighbors at a different level (or not loaded) never leave holes.
+     */
+    private MeshBlob buildMesh(int level) {
+        int sx = sizeX(level), sy = sizeY(level), sz = sizeZ(level);
+        float cell = 1 << level, s = cell * 0.5f;
+        FloatArray va = new FloatArray(4_096);
+        IntArray ia = new IntArray(6_144);
+
+        for (int y = 0; y < sy; y++)
+            for (int z = 0; z < sz; z++)
+                for (int x = 0; x < sx; x++) {
+                    byte id = get(level, x, y, z);
+                    if (id == AIR) continue;
+                    float[] col = World.colorFor(id);
+                    float cx = (x + 0.5f) * cell, cy = (y + 0.5f) * cell, cz = (z + 0.5f) * cell;
+                    for (int f = 0; f < 6; f++) {
+                        int nx = x + World.FACE_DX[f], ny = y + World.FACE_DY[f], nz = z + World.FACE_DZ[f];
+                        boolean inside = nx >= 0 && nx < sx && ny >= 0 && ny < sy && nz >= 0 && nz < sz;
+                        if (inside && get(level, nx, ny, nz) != AIR) continue;
+                        World.emitFace(va, ia, cx, cy, cz, s,
+                            World.FACE_DX[f], World.FACE_DY[f], World.FACE_DZ[f], col, 1.0f);
+                    }
+                }
+        return new MeshBlob(va.toArray(), ia.toArray());
+    }
+}
@@ -0,0 +1,11 @@
+package world;
+
+/** Where a chunk is in its pipeline; reported as {@code voxel.ChunkStage} JFR events. */
+public enum ChunkStage {
+    GENERATED,   // voxels filled, persisted edits applied
+    LIT,         // skylight computed
+    MESHED,      // full-detail or LOD mesh queued for the renderer
+    PACKED,      // moved to the cold tier
+    INFLATED,    // back from the cold tier
+    UNLOADED
+}
@@ -0,0 +1,370 @@
+package world;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+import engine.EngineConfig;
+import world.World.Chunk;
+import world.World.ChunkPos;
+
+/**
+ * Append-only, group-committed journal of block edits.
+ * - Sim thread: {@link #append} folds the edit into a per-chunk overlay (one uncontended
+ *   monitor) and enqueues it; no I/O
+ * - Writer thread: drains the queue, writes compact records, one fsync per batch
+ * - Startup: chunk snapshots + journal tail are folded into the overlay, which {@link World}
+ *   applies on top of generated terrain
+ * - Compaction: overlay of touched chunks is written to snapshot files, journal truncated
+ *
+ * Record layout (17 bytes): wx:int wy:int wz:int id:byte crc32c:int.
+ * A torn tail (kill -9 mid-write) fails its CRC and is cut off on recovery.
+ * Saves from before cubic chunks (version 1: 15-byte records with a short wy, snapshots per
+ * 128-high column) are folded into chunk overlays on open and rewritten at once.
+ */
+public final class EditJournal implements AutoCloseable {
+    private static final int MAGIC = 0x5658574C;      // "VXWL"
+    private static final int SNAP_MAGIC = 0x56585343; // "VXSC"
+    private static final int VERSION = 2, LEGACY_VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    static final int RECORD_BYTES = 17, LEGACY_RECORD_BYTES = 15;
+    private static final int LEGACY_COLUMN_HEIGHT = 128;
+
+    private static final class Edit {
+        final int wx, wy, wz; final byte id; final ChunkPos pos;
+        Edit(int wx, int wy, int wz, byte id, ChunkPos pos) { this.wx = wx; this.wy = wy; this.wz = wz; this.id = id; this.pos = pos; }
+    }
+
+    private final Path dir, journalPath, chunkDir;
+    private final FileChannel channel;
+    private final long commitIntervalNs;
+    private final long compactBytes;
+
+    // edits waiting for the writer thread (multi-producer, single consumer)
+    private final ConcurrentLinkedQueue<Edit> pending = new ConcurrentLinkedQueue<>();
+    // folded state: chunk -> (local voxel index -> block id); after open() only append() mutates it,
+    // so it can run ahead of the journal (a snapshot may hold edits not yet written: replayed twice)
+    private final ConcurrentHashMap<ChunkPos, Map<Integer, Byte>> overlay = new ConcurrentHashMap<>();
+    // chunks whose overlay changed since the last compaction (writer thread only)
+    private final Set<ChunkPos> dirtySinceCompact = new HashSet<>();
+    // taken off pending but not yet on disk; kept across a failed commit and written again (writer thread only)
+    private final ArrayDeque<Edit> unwritten = new ArrayDeque<>();
+    private volatile long durableEdits;
+
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(RECORD_BYTES * 4096);
+    private final CRC32C crc = new CRC32C();
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile boolean compactRequested = false;
+    private long journalBytes;
+    // version 1 files read on open; rewritten in the current format before the writer starts
+    private final List<Path> legacyFiles = new ArrayList<>();
+    private boolean legacyJournal;
+
+    private EditJournal(Path dir, EngineConfig cfg) throws IOException {
+        this.dir = dir;
+        this.journalPath = dir.resolve("edits.wal");
+        this.chunkDir = dir.resolve("chunks");
+        this.commitIntervalNs = cfg.journalCommitIntervalMs * 1_000_000L;
+        this.compactBytes = cfg.journalCompactBytes;
+        Files.createDirectories(chunkDir);
+
+        loadSnapshots();
+        this.channel = FileChannel.open(journalPath,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+        if (legacyJournal || !legacyFiles.isEmpty()) migrate();
+
+        writer = new Thread(this::writerLoop, "EditJournal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Opens (or creates) the journal in {@code dir}, replaying snapshots and the journal tail. */
+    public static EditJournal open(Path dir, EngineConfig cfg) throws IOException {
+        return new EditJournal(dir, cfg);
+    }
+
+    // ---- sim thread ----
+
+    /**
+     * Records a block change. Visible to {@link #applyTo} at once, so a chunk unloaded and
+     * regenerated before the next group commit keeps it; durability follows within one commit interval.
+     */
+    public void append(int wx, int wy, int wz, byte id) {
+        pending.offer(new Edit(wx, wy, wz, id, fold(wx, wy, wz, id)));
+    }
+
+    /** Asks the writer thread to fold the journal into chunk snapshots at its next wakeup. */
+    public void requestCompaction() {
+        compactRequested = true;
+        LockSupport.unpark(writer);
+    }
+
+    // ---- chunk store ----
+
+    /** Applies every edit for {@code pos}, durable or still queued, onto a freshly generated chunk. */
+    public void applyTo(ChunkPos pos, Chunk c) {
+        Map<Integer, Byte> edits = overlay.get(pos);
+        if (edits == null) return;
+        synchronized (edits) {
+            for (Map.Entry<Integer, Byte> e : edits.entrySet()) {
+                int i = e.getKey();
+                c.set(Chunk.lx(i), Chunk.ly(i), Chunk.lz(i), e.getValue());
+            }
+        }
+    }
+
+    /** Chunks with edits (useful for eager loading). */
+    public Set<ChunkPos> editedChunks() { return overlay.keySet(); }
+
+    /** Edits appended through this instance that have been fsynced: they survive a crash. */
+    public long durableEdits() { return durableEdits; }
+
+    @Override public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(writer);
+        try { writer.join(); } catch (InterruptedException ie) { Thread.currentThread().interrupt(); }
+        channel.close();
+    }
+
+    // ---- writer thread ----
+
+    private void writerLoop() {
+        while (running || !pending.isEmpty()) {
+            try {
+                commitPending();
+                if (compactRequested || journalBytes >= compactBytes) {
+                    compactRequested = false;
+                    compact();
+                }
+            } catch (IOException e) {
+                System.err.println("[EditJournal] write failed, " + unwritten.size() + " edits held for the next attempt: " + e);
+            }
+            // group commit: everything appended during one interval shares a single fsync
+            if (running) LockSupport.parkNanos(commitIntervalNs);
+        }
+        // clean shutdown: leave nothing but snapshots behind
+        try { commitPending(); compact(); }
+        catch (IOException e) {
+            System.err.println("[EditJournal] shutdown write failed, " + unwritten.size() + " edits lost: " + e);
+        }
+    }
+
+    /**
+     * Writes everything queued (plus whatever a failed attempt left over) after the journal's
+     * end and fsyncs once. Their chunks are due for the next compaction only once they are on
+     * disk; on an exception they stay in {@code unwritten} and the next attempt rewrites them at
+     * the same offset.
+     */
+    private void commitPending() throws IOException {
+        Edit e;
+        while ((e = pending.poll()) != null) unwritten.add(e);
+        if (unwritten.isEmpty()) return;
+        long end = journalBytes;
+        var it = unwritten.iterator();
+        while (it.hasNext()) {
+            batch.clear();
+            while (batch.remaining() >= RECORD_BYTES && it.hasNext()) putRecord(it.next());
+            batch.flip();
+            while (batch.hasRemaining()) end += channel.write(batch, end);
+        }
+        channel.force(false);
+        journalBytes = end;
+        for (Edit u : unwritten) dirtySinceCompact.add(u.pos);
+        durableEdits += unwritten.size();
+        unwritten.clear();
+    }
+
+    private void putRecord(Edit e) {
+        int start = batch.position();
+        batch.putInt(e.wx).putInt(e.wy).putInt(e.wz).put(e.id);
+        batch.putInt(checksum(batch, start, RECORD_BYTES));
+    }
+
+    private int checksum(ByteBuffer buf, int start, int recordBytes) {
+        crc.reset();
+        ByteBuffer body = buf.duplicate();
+        body.position(start).limit(start + recordBytes - 4);
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    /** Sets the overlay entry for one world voxel; returns its chunk. */
+    private ChunkPos fold(int wx, int wy, int wz, byte id) {
+        ChunkPos pos = new ChunkPos(Math.floorDiv(wx, World.CHUNK_SIZE_X), Math.floorDiv(wy, World.CHUNK_SIZE_Y),
+            Math.floorDiv(wz, World.CHUNK_SIZE_Z));
+        int i = Chunk.idx(Math.floorMod(wx, World.CHUNK_SIZE_X), Math.floorMod(wy, World.CHUNK_SIZE_Y),
+            Math.floorMod(wz, World.CHUNK_SIZE_Z));
+        Map<Integer, Byte> edits = overlay.computeIfAbsent(pos, k -> new HashMap<>());
+        synchronized (edits) { edits.put(i, id); }
+        return pos;
+    }
+
+    /**
+     * Writes one snapshot per dirty chunk (tmp file + fsync + atomic rename), makes the renames
+     * durable with an fsync of the directory, then truncates the journal. A crash in between
+     * only means the same edits are replayed twice.
+     */
+    private void compact() throws IOException {
+        boolean renamed = !dirtySinceCompact.isEmpty();
+        for (ChunkPos pos : dirtySinceCompact) {
+            Map<Integer, Byte> edits = overlay.get(pos);
+            ByteBuffer out;
+            synchronized (edits) {
+                out = ByteBuffer.allocate(12 + edits.size() * 5);
+                out.putInt(SNAP_MAGIC).putInt(VERSION).putInt(edits.size());
+                for (Map.Entry<Integer, Byte> e : edits.entrySet()) out.putInt(e.getKey()).put(e.getValue());
+            }
+            out.flip();
+            Path tmp = chunkDir.resolve(snapshotName(pos) + ".tmp");
+            try (FileChannel fc = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (out.hasRemaining()) fc.write(out);
+                fc.force(true);
+            }
+            Files.move(tmp, chunkDir.resolve(snapshotName(pos)),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (renamed) syncDirectory(chunkDir);
+        dirtySinceCompact.clear();
+        resetJournal();
+    }
+
+    /**
+     * fsync of a directory, so renames in it survive a power loss. Windows cannot open a
+     * directory as a channel; there the rename is as durable as it gets.
+     */
+    private static void syncDirectory(Path d) throws IOException {
+        try (FileChannel fc = FileChannel.open(d, StandardOpenOption.READ)) { fc.force(true); }
+        catch (AccessDeniedException e) { if (!System.getProperty("os.name", "").startsWith("Windows")) throw e; }
+    }
+
+    // ---- startup ----
+
+    private void loadSnapshots() throws IOException {
+        try (var files = Files.list(chunkDir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                String n = p.getFileName().toString();
+                if (n.endsWith(".tmp")) { Files.deleteIfExists(p); continue; } // never renamed → superseded by journal
+                String[] parts = n.split("\\.");
+                int[] column = parseLegacyName(parts); // c.x.z.bin: a version 1 column snapshot
+                boolean legacy = column != null;
+                ChunkPos pos = parseSnapshotName(parts);
+                if (pos == null && !legacy) continue;
+                ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(p));
+                if (in.remaining() < 12 || in.getInt() != SNAP_MAGIC || in.getInt() != (legacy ? LEGACY_VERSION : VERSION)) {
+                    System.err.println("[EditJournal] skipping bad snapshot " + n);
+                    continue;
+                }
+                int count = in.getInt();
+                if (legacy) {
+                    int cx = column[0], cz = column[1];
+                    final int SX = World.CHUNK_SIZE_X, SZ = World.CHUNK_SIZE_Z;
+                    for (int i = 0; i < count && in.remaining() >= 5; i++) {
+                        int idx = in.getInt();
+                        byte id = in.get();
+                        if (idx >= 0 && idx < SX * SZ * LEGACY_COLUMN_HEIGHT)
+                            dirtySinceCompact.add(fold(cx * SX + idx % SX, idx / (SX * SZ), cz * SZ + (idx / SX) % SZ, id));
+                    }
+                    legacyFiles.add(p);
+                    continue;
+                }
+                Map<Integer, Byte> edits = new HashMap<>(Math.max(16, count * 2));
+                for (int i = 0; i < count && in.remaining() >= 5; i++) edits.put(in.getInt(), in.get());
+                overlay.put(pos, edits);
+            }
+        }
+    }
+
+    /** Replays valid records and cuts off a torn or corrupt tail. */
+    private void recover() throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES) { resetJournal(); return; }
+
+        ByteBuffer buf = ByteBuffer.allocate((int) size);
+        channel.position(0);
+        while (buf.hasRemaining() && channel.read(buf) >= 0) { }
+        buf.flip();
+        int version = (buf.getInt() == MAGIC) ? buf.getInt() : -1;
+        if (version != VERSION && version != LEGACY_VERSION) {
+            System.err.println("[EditJournal] unrecognized journal header, starting fresh");
+            resetJournal();
+            return;
+        }
+        legacyJournal = version == LEGACY_VERSION;
+        int recordBytes = legacyJournal ? LEGACY_RECORD_BYTES : RECORD_BYTES;
+
+        int replayed = 0;
+        while (buf.remaining() >= recordBytes) {
+            int start = buf.position();
+            if (checksum(buf, start, recordBytes) != buf.getInt(start + recordBytes - 4)) break;
+            int wx, wy, wz;
+            if (legacyJournal) { wx = buf.getInt(); wz = buf.getInt(); wy = buf.getShort(); }
+            else               { wx = buf.getInt(); wy = buf.getInt(); wz = buf.getInt(); }
+            byte id = buf.get();
+            buf.getInt();
+            dirtySinceCompact.add(fold(wx, wy, wz, id));
+            replayed++;
+        }
+        journalBytes = buf.position();
+        if (journalBytes < size) {
+            System.out.println("[EditJournal] truncating torn tail: " + (size - journalBytes) + " bytes");
+            channel.truncate(journalBytes);
+            channel.force(false);
+        }
+        if (replayed > 0) System.out.println("[EditJournal] replayed " + replayed + " edits");
+    }
+
+    /** Rewrites everything read from version 1 files as chunk snapshots, then drops those files. */
+    private void migrate() throws IOException {
+        compact(); // also restarts the journal in the current format
+        for (Path p : legacyFiles) Files.deleteIfExists(p);
+        System.out.println("[EditJournal] migrated " + legacyFiles.size() + " column snapshots"
+            + (legacyJournal ? " and a version 1 journal" : "") + " to cubic chunks");
+        legacyFiles.clear();
+        legacyJournal = false;
+    }
+
+    private void resetJournal() throws IOException {
+        channel.truncate(0);
+        ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+        h.flip();
+        channel.position(0);
+        while (h.hasRemaining()) channel.write(h);
+        channel.force(false);
+        journalBytes = HEADER_BYTES;
+    }
+
+    private static String snapshotName(ChunkPos p) { return "c." + p.x + "." + p.y + "." + p.z + ".bin"; }
+
+    private static ChunkPos parseSnapshotName(String[] parts) {
+        if (parts.length != 5 || !parts[0].equals("c") || !parts[4].equals("bin")) return null;
+        try { return new ChunkPos(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3])); }
+        catch (NumberFormatException e) { return null; }
+    }
+
+    private static int[] parseLegacyName(String[] parts) {
+        if (parts.length != 4 || !parts[0].equals("c") || !parts[3].equals("bin")) return null;
+        try { return new int[] { Integer.parseInt(parts[1]), Integer.parseInt(parts[2]) }; }
+        catch (NumberFormatException e) { return null; }
+    }
+
+    @Override public String toString() { return "EditJournal[" + dir + "]"; }
+}
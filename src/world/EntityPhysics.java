@@ -0,0 +1,296 @@
+package world;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jobs.Job;
+import jobs.JobPriority;
+import jobs.JobSystem;
+
+/**
+ * Physics for many simple entities (mobs, dropped items):
+ * - Structure-of-arrays storage, ids are slot indices (reused after despawn)
+ * - Swept AABB vs the chunk solidity masks, per axis (Y, X, Z)
+ * - Stepping is split into batches that JobSystem workers and the sim thread claim together
+ * - Spatial hash rebuilt after each step for entity-entity queries
+ * Steady-state stepping and queries allocate nothing but the JobSystem handles of helper jobs
+ * (SelfCheck entities measures it).
+ */
+public final class EntityPhysics {
+    private static final float EPS = 1e-4f;
+    private static final float GRAVITY = 20f;
+    private static final float GROUND_DRAG = 8f;  // 1/s, horizontal slow-down while on ground
+    private static final int BATCH = 512;
+    private static final int IDLE = Integer.MAX_VALUE / 2; // nextBatch value between steps
+    private static final float CELL = 4f;                  // spatial hash cell size (blocks)
+
+    private final JobSystem.Tenant jobs;
+    private final ThreadLocal<ChunkCursor> cursors;
+
+    // ---- entity storage (sim thread writes between steps; batch jobs write their own slots) ----
+    private int capacity = 0, highWater = 0, live = 0;
+    private float[] px = new float[0], py = new float[0], pz = new float[0];
+    private float[] vx = new float[0], vy = new float[0], vz = new float[0];
+    private float[] hx = new float[0], hy = new float[0], hz = new float[0];
+    private boolean[] alive = new boolean[0], onGround = new boolean[0];
+    private int[] free = new int[0];
+    private int freeCount = 0;
+
+    // ---- parallel step state ----
+    private final AtomicInteger nextBatch = new AtomicInteger(IDLE);
+    private final AtomicInteger doneBatches = new AtomicInteger();
+    private int batches;
+    private float stepDt;
+    private final StepJob[] helpers;
+
+    // ---- spatial hash: open addressing on cell keys, chained entity lists ----
+    private long[] cellKeys = new long[0];
+    private int[] cellHeads = new int[0];
+    private int[] nextInCell = new int[0];
+
+    public EntityPhysics(World w, JobSystem.Tenant jobs) {
+        this.jobs = jobs;
+        this.cursors = ThreadLocal.withInitial(() -> new ChunkCursor(w));
+        this.helpers = new StepJob[Math.max(1, Runtime.getRuntime().availableProcessors())];
+        for (int i = 0; i < helpers.length; i++) helpers[i] = new StepJob(this);
+    }
+
+    // ---- sim thread API ----
+
+    /** Spawns an entity centered at (x,y,z) with the given half extents; returns its id. */
+    public int spawn(float x, float y, float z, float halfX, float halfY, float halfZ) {
+        int id = (freeCount > 0) ? free[--freeCount] : highWater++;
+        if (id >= capacity) grow(Math.max(64, capacity * 2));
+        px[id] = x; py[id] = y; pz[id] = z;
+        vx[id] = vy[id] = vz[id] = 0;
+        hx[id] = halfX; hy[id] = halfY; hz[id] = halfZ;
+        alive[id] = true; onGround[id] = false;
+        live++;
+        return id;
+    }
+
+    public void despawn(int id) {
+        if (!alive[id]) return;
+        alive[id] = false;
+        free[freeCount++] = id;
+        live--;
+    }
+
+    public int count() { return live; }
+    public boolean isAlive(int id) { return id < highWater && alive[id]; }
+    public float x(int id) { return px[id]; }
+    public float y(int id) { return py[id]; }
+    public float z(int id) { return pz[id]; }
+    public boolean onGround(int id) { return onGround[id]; }
+    public void setVelocity(int id, float x, float y, float z) { vx[id] = x; vy[id] = y; vz[id] = z; }
+
+    /** Advances every entity by dt. Workers help if available; the calling thread always does too. */
+    public void step(float dt) {
+        if (live == 0) return;
+        stepDt = dt;
+        batches = (highWater + BATCH - 1) / BATCH;
+        doneBatches.set(0);
+        nextBatch.set(0); // publishes the fields above to helpers
+
+        int wanted = Math.min(Math.min(batches - 1, jobs.currentWorkers()), helpers.length);
+        for (int i = 0; i < wanted; i++) jobs.submit(helpers[i]);
+
+        runBatches();
+        while (doneBatches.get() < batches) Thread.onSpinWait();
+        nextBatch.set(IDLE); // late helpers find nothing to claim
+
+        rebuildHash();
+    }
+
+    /**
+     * Writes ids of entities whose boxes overlap the query box into {@code out};
+     * returns how many were found (at most out.length).
+     */
+    public int query(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int[] out) {
+        if (cellHeads.length == 0) return 0;
+        int found = 0;
+        int cx0 = cell(minX - maxHalf), cx1 = cell(maxX + maxHalf);
+        int cy0 = cell(minY - maxHalf), cy1 = cell(maxY + maxHalf);
+        int cz0 = cell(minZ - maxHalf), cz1 = cell(maxZ + maxHalf);
+        for (int cy = cy0; cy <= cy1; cy++)
+            for (int cz = cz0; cz <= cz1; cz++)
+                for (int cx = cx0; cx <= cx1; cx++) {
+                    int slot = findSlot(cellKey(cx, cy, cz));
+                    if (cellHeads[slot] < 0) continue;
+                    for (int id = cellHeads[slot]; id >= 0; id = nextInCell[id]) {
+                        if (px[id] + hx[id] < minX || px[id] - hx[id] > maxX) continue;
+                        if (py[id] + hy[id] < minY || py[id] - hy[id] > maxY) continue;
+                        if (pz[id] + hz[id] < minZ || pz[id] - hz[id] > maxZ) continue;
+                        if (found == out.length) return found;
+                        out[found++] = id;
+                    }
+                }
+        return found;
+    }
+
+    // ---- stepping ----
+
+    private void runBatches() {
+        int b;
+        while ((b = nextBatch.getAndIncrement()) < batches) {
+            ChunkCursor cur = cursors.get();
+            int end = Math.min(highWater, (b + 1) * BATCH);
+            for (int id = b * BATCH; id < end; id++) if (alive[id]) integrate(cur, id, stepDt);
+            doneBatches.incrementAndGet();
+        }
+    }
+
+    private void integrate(ChunkCursor cur, int id, float dt) {
+        vy[id] -= GRAVITY * dt;
+        if (onGround[id]) {
+            float k = Math.max(0f, 1f - GROUND_DRAG * dt);
+            vx[id] *= k; vz[id] *= k;
+        }
+
+        float x = px[id], y = py[id], z = pz[id];
+        float ex = hx[id], ey = hy[id], ez = hz[id];
+
+        float dy = vy[id] * dt;
+        float my = sweepY(cur, x - ex, y - ey, z - ez, x + ex, y + ey, z + ez, dy);
+        onGround[id] = dy < 0 && my != dy;
+        if (my != dy) vy[id] = 0;
+        y += my;
+
+        float dx = vx[id] * dt;
+        float mx = sweepX(cur, x - ex, y - ey, z - ez, x + ex, y + ey, z + ez, dx);
+        if (mx != dx) vx[id] = 0;
+        x += mx;
+
+        float dz = vz[id] * dt;
+        float mz = sweepZ(cur, x - ex, y - ey, z - ez, x + ex, y + ey, z + ez, dz);
+        if (mz != dz) vz[id] = 0;
+        z += mz;
+
+        px[id] = x; py[id] = y; pz[id] = z;
+    }
+
+    // ---- swept AABB vs voxels (shared with Player) ----
+
+    private static int fl(float v) { return (int) Math.floor(v); }
+
+    /** Largest move along X (same sign as dx, |result| ≤ |dx|) before the box touches a solid voxel. */
+    static float sweepX(ChunkCursor cur, float minX, float minY, float minZ,
+                        float maxX, float maxY, float maxZ, float dx) {
+        if (dx == 0) return 0;
+        int y0 = fl(minY + EPS), y1 = fl(maxY - EPS);
+        int z0 = fl(minZ + EPS), z1 = fl(maxZ - EPS);
+        if (dx > 0) {
+            for (int x = fl(maxX - EPS) + 1, last = fl(maxX + dx - EPS); x <= last; x++)
+                for (int z = z0; z <= z1; z++)
+                    if (cur.anySolid(x, y0, y1, z)) return Math.max(0f, x - maxX);
+        } else {
+            for (int x = fl(minX + EPS) - 1, last = fl(minX + dx + EPS); x >= last; x--)
+                for (int z = z0; z <= z1; z++)
+                    if (cur.anySolid(x, y0, y1, z)) return Math.min(0f, (x + 1) - minX);
+        }
+        return dx;
+    }
+
+    static float sweepZ(ChunkCursor cur, float minX, float minY, float minZ,
+                        float maxX, float maxY, float maxZ, float dz) {
+        if (dz == 0) return 0;
+        int y0 = fl(minY + EPS), y1 = fl(maxY - EPS);
+        int x0 = fl(minX + EPS), x1 = fl(maxX - EPS);
+        if (dz > 0) {
+            for (int z = fl(maxZ - EPS) + 1, last = fl(maxZ + dz - EPS); z <= last; z++)
+                for (int x = x0; x <= x1; x++)
+                    if (cur.anySolid(x, y0, y1, z)) return Math.max(0f, z - maxZ);
+        } else {
+            for (int z = fl(minZ + EPS) - 1, last = fl(minZ + dz + EPS); z >= last; z--)
+                for (int x = x0; x <= x1; x++)
+                    if (cur.anySolid(x, y0, y1, z)) return Math.min(0f, (z + 1) - minZ);
+        }
+        return dz;
+    }
+
+    /** Y sweep tests each footprint column once over the whole swept range via the masks. */
+    static float sweepY(ChunkCursor cur, float minX, float minY, float minZ,
+                        float maxX, float maxY, float maxZ, float dy) {
+        if (dy == 0) return 0;
+        int x0 = fl(minX + EPS), x1 = fl(maxX - EPS);
+        int z0 = fl(minZ + EPS), z1 = fl(maxZ - EPS);
+        if (dy > 0) {
+            int first = fl(maxY - EPS) + 1, last = fl(maxY + dy - EPS);
+            if (!anyInFootprint(cur, x0, x1, z0, z1, first, last)) return dy;
+            for (int y = first; y <= last; y++)
+                if (anyInFootprint(cur, x0, x1, z0, z1, y, y)) return Math.max(0f, y - maxY);
+        } else {
+            int first = fl(minY + EPS) - 1, last = fl(minY + dy + EPS);
+            if (!anyInFootprint(cur, x0, x1, z0, z1, last, first)) return dy;
+            for (int y = first; y >= last; y--)
+                if (anyInFootprint(cur, x0, x1, z0, z1, y, y)) return Math.min(0f, (y + 1) - minY);
+        }
+        return dy;
+    }
+
+    private static boolean anyInFootprint(ChunkCursor cur, int x0, int x1, int z0, int z1, int y0, int y1) {
+        for (int z = z0; z <= z1; z++)
+            for (int x = x0; x <= x1; x++)
+                if (cur.anySolid(x, y0, y1, z)) return true;
+        return false;
+    }
+
+    // ---- spatial hash ----
+
+    private float maxHalf = 0f; // largest half extent; widens queries so big boxes in far cells are found
+
+    private void rebuildHash() {
+        int tableSize = Integer.highestOneBit(Math.max(16, live * 2) - 1) << 1;
+        if (cellKeys.length != tableSize) { cellKeys = new long[tableSize]; cellHeads = new int[tableSize]; }
+        Arrays.fill(cellHeads, -1);
+        if (nextInCell.length < capacity) nextInCell = new int[capacity];
+
+        float mh = 0f;
+        for (int id = 0; id < highWater; id++) {
+            if (!alive[id]) continue;
+            mh = Math.max(mh, Math.max(hx[id], Math.max(hy[id], hz[id])));
+            long key = cellKey(cell(px[id]), cell(py[id]), cell(pz[id]));
+            int slot = findSlot(key);
+            cellKeys[slot] = key;
+            nextInCell[id] = cellHeads[slot];
+            cellHeads[slot] = id;
+        }
+        maxHalf = mh;
+    }
+
+    // linear probing; an empty slot (head < 0) ends the probe
+    private int findSlot(long key) {
+        int mask = cellHeads.length - 1;
+        int slot = (int) (mix(key) & mask);
+        while (cellHeads[slot] >= 0 && cellKeys[slot] != key) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private static int cell(float v) { return (int) Math.floor(v / CELL); }
+
+    private static long cellKey(int x, int y, int z) {
+        return ((long) (x & 0x1FFFFF) << 42) | ((long) (y & 0x1FFFFF) << 21) | (z & 0x1FFFFF);
+    }
+
+    private static long mix(long k) {
+        k ^= k >>> 33; k *= 0xff51afd7ed558ccdL; k ^= k >>> 33;
+        return k;
+    }
+
+    private void grow(int cap) {
+        px = Arrays.copyOf(px, cap); py = Arrays.copyOf(py, cap); pz = Arrays.copyOf(pz, cap);
+        vx = Arrays.copyOf(vx, cap); vy = Arrays.copyOf(vy, cap); vz = Arrays.copyOf(vz, cap);
+        hx = Arrays.copyOf(hx, cap); hy = Arrays.copyOf(hy, cap); hz = Arrays.copyOf(hz, cap);
+        alive = Arrays.copyOf(alive, cap); onGround = Arrays.copyOf(onGround, cap);
+        free = Arrays.copyOf(free, cap);
+        capacity = cap;
+    }
+
+    /** Reusable helper job: claims batches until none are left for the current step. */
+    private static final class StepJob implements Job {
+        private final EntityPhysics p;
+        StepJob(EntityPhysics p) { this.p = p; }
+        @Override public JobPriority priority() { return JobPriority.P0_CRITICAL; }
+        @Override public void run() { p.runBatches(); }
+    }
+}
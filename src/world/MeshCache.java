@@ -0,0 +1,290 @@
+package world;
+
+import static world.World.CHUNK_SIZE_X;
+import static world.World.CHUNK_SIZE_Y;
+import static world.World.CHUNK_SIZE_Z;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import engine.EngineConfig;
+import engine.Telemetry;
+import jobs.Job;
+import jobs.JobPriority;
+import jobs.JobSystem;
+import world.World.Chunk;
+import world.World.ChunkPos;
+import world.World.MeshBlob;
+
+/**
+ * Full-detail chunk meshes keyed by a content hash, so unchanged chunks skip lighting and meshing.
+ * - Key: chunk voxels + the neighbor border layers the mesher reads + the light entering
+ *   through the top face + {@link #MESHER_VERSION}; meshes are chunk-local, so identical
+ *   chunks anywhere in the world share one entry
+ * - Tier 1: in-memory LRU bounded by bytes
+ * - Tier 2: one file per key under the cache dir, memory-mapped on read; survives restarts.
+ *   Written by a background job, once per key, and bounded by bytes: past the budget the
+ *   oldest files go first (by mtime at startup, then in write order)
+ */
+public final class MeshCache {
+    /** Bump whenever mesher output changes for the same input (layout, shading, culling). */
+    public static final int MESHER_VERSION = 4; // 2: chunk-local vertex positions, 3: one mesh per 16³ section, 4: cubic chunks
+
+    private static final int MAGIC = 0x56584D43; // "VXMC"
+    private static final long NO_NEIGHBOR = 0x9E3779B97F4A7C15L;
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /** Cached mesher output for one chunk: its mesh (null = nothing to draw) and visibility. */
+    static final class Entry {
+        final MeshBlob mesh;
+        final int visibility;
+        final long bytes;
+        Entry(MeshBlob mesh, int visibility) {
+            this.mesh = mesh; this.visibility = visibility;
+            this.bytes = 4L + ((mesh == null) ? 0 : 4L * (mesh.vertices.length + mesh.indices.length));
+        }
+    }
+
+    private final Path dir;               // null = memory tier only
+    private final long memBudgetBytes;
+    private final Telemetry telemetry;    // may be null
+    private final LinkedHashMap<Long, Entry> lru = new LinkedHashMap<>(256, 0.75f, true);
+    private long memBytes;
+
+    // disk tier index: key -> file size, oldest first; guarded by itself. Holds keys whose write
+    // is still queued too, so a key is written at most once
+    private final long diskBudgetBytes;
+    private final LinkedHashMap<Long, Long> disk = new LinkedHashMap<>(256);
+    private long diskBytes;
+
+    public MeshCache(Path dir, EngineConfig cfg, Telemetry telemetry) throws IOException {
+        this.dir = dir;
+        this.memBudgetBytes = cfg.meshCacheMemBytes;
+        this.diskBudgetBytes = cfg.meshCacheDiskBytes;
+        this.telemetry = telemetry;
+        if (dir != null) {
+            Files.createDirectories(dir);
+            scanDisk();
+        }
+    }
+
+    // ---- key ----
+
+    /**
+     * 64-bit hash of everything MeshJob reads for {@code pos}: the chunk's voxel ids, the
+     * solidity on the facing border layer of each of the six neighbors, and {@code lightIn}
+     * (World.lightInput), from which the chunk's light follows.
+     */
+    static long key(World w, ChunkPos pos, Chunk c, byte[] lightIn) {
+        long h = mix(0x243F6A8885A308D3L, MESHER_VERSION);
+        byte[] vox = c.voxels();
+        for (int i = 0; i + 8 <= vox.length; i += 8) h = mix(h, (long) LONGS.get(vox, i));
+        for (int i = 0; i + 8 <= lightIn.length; i += 8) h = mix(h, (long) LONGS.get(lightIn, i));
+
+        h = border(h, w.chunkAt(pos.x + 1, pos.y, pos.z), 0, -1);                // east: its x = 0
+        h = border(h, w.chunkAt(pos.x - 1, pos.y, pos.z), CHUNK_SIZE_X - 1, -1); // west: its x = SX-1
+        h = border(h, w.chunkAt(pos.x, pos.y, pos.z + 1), -1, 0);                // south: its z = 0
+        h = border(h, w.chunkAt(pos.x, pos.y, pos.z - 1), -1, CHUNK_SIZE_Z - 1); // north: its z = SZ-1
+        h = layer(h, w.chunkAt(pos.x, pos.y + 1, pos.z), 0);                     // above: its y = 0
+        h = layer(h, w.chunkAt(pos.x, pos.y - 1, pos.z), CHUNK_SIZE_Y - 1);      // below: its y = SY-1
+        return fmix(h);
+    }
+
+    // one of fx/fz is fixed, the other (-1) runs along the border
+    private static long border(long h, Chunk n, int fx, int fz) {
+        if (n == null) return mix(h, NO_NEIGHBOR);
+        int len = (fx < 0) ? CHUNK_SIZE_X : CHUNK_SIZE_Z;
+        for (int i = 0; i < len; i++) h = mix(h, n.solidColumn(fx < 0 ? i : fx, fz < 0 ? i : fz));
+        return h;
+    }
+
+    // solidity of one horizontal layer, 64 columns per word
+    private static long layer(long h, Chunk n, int y) {
+        if (n == null) return mix(h, NO_NEIGHBOR);
+        long bits = 0;
+        for (int col = 0; col < CHUNK_SIZE_X * CHUNK_SIZE_Z; col++) {
+            if (n.isSolid(col % CHUNK_SIZE_X, y, col / CHUNK_SIZE_X)) bits |= 1L << col;
+            if ((col & 63) == 63) { h = mix(h, bits); bits = 0; }
+        }
+        return h;
+    }
+
+    private static long mix(long h, long v) {
+        return Long.rotateLeft(h ^ (v * 0xC2B2AE3D27D4EB4FL), 31) * 0x9E3779B185EBCA87L;
+    }
+
+    private static long fmix(long h) {
+        h ^= h >>> 33; h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33; h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    // ---- lookup / store (any worker thread) ----
+
+    /** Cached mesh for {@code key}, or null. Counts toward hit rate. */
+    Entry get(long key) {
+        Entry e;
+        synchronized (lru) { e = lru.get(key); }
+        if (e == null && dir != null) {
+            e = readFile(key);
+            if (e != null) putMemory(key, e);
+        }
+        if (telemetry != null) {
+            if (e != null) telemetry.recordMeshCacheHit(e.bytes);
+            else           telemetry.recordMeshCacheMiss();
+        }
+        return e;
+    }
+
+    /** True if {@link #get} would hit; does not count toward hit rate or load anything. */
+    boolean contains(long key) {
+        synchronized (lru) { if (lru.containsKey(key)) return true; }
+        if (dir == null) return false;
+        synchronized (disk) { return disk.containsKey(key); }
+    }
+
+    /** Stores in memory now; a key not yet on disk is written by a background job on {@code jobs}. */
+    void put(long key, MeshBlob mesh, int visibility, JobSystem.Tenant jobs) {
+        Entry e = new Entry(mesh, visibility);
+        putMemory(key, e);
+        if (dir == null) return;
+        synchronized (disk) {
+            if (disk.putIfAbsent(key, 0L) != null) return; // on disk or queued: same key, same mesh
+        }
+        jobs.submit(new Job() {
+            @Override public JobPriority priority() { return JobPriority.P2_BACKGROUND; }
+            @Override public String name() { return "MeshCacheWriteJob"; }
+            @Override public void run() { writeFile(key, e); }
+        });
+    }
+
+    /** Bytes held by the disk tier. */
+    public long diskBytes() { synchronized (disk) { return diskBytes; } }
+
+    private void putMemory(long key, Entry e) {
+        synchronized (lru) {
+            Entry old = lru.put(key, e);
+            if (old != null) memBytes -= old.bytes;
+            memBytes += e.bytes;
+            for (Iterator<Entry> it = lru.values().iterator(); memBytes > memBudgetBytes && it.hasNext(); ) {
+                memBytes -= it.next().bytes; // eldest first (access order)
+                it.remove();
+            }
+        }
+    }
+
+    // ---- disk tier ----
+    // layout: magic:int version:int vis:int verts:int indices:int floats ints (0/0 = no mesh)
+
+    private Path file(long key) { return dir.resolve(String.format("%016x.mesh", key)); }
+
+    /** Indexes the files left by earlier sessions, oldest first, and trims them to the budget. */
+    private void scanDisk() throws IOException {
+        record Found(long key, long size, FileTime mtime) {}
+        List<Found> found = new ArrayList<>();
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                String name = p.getFileName().toString();
+                if (name.endsWith(".tmp")) { Files.deleteIfExists(p); continue; } // a write cut short
+                if (!name.endsWith(".mesh") || name.length() != 21) continue;
+                try {
+                    found.add(new Found(Long.parseUnsignedLong(name.substring(0, 16), 16), Files.size(p),
+                        Files.getLastModifiedTime(p)));
+                } catch (NumberFormatException | IOException ignored) {} // not ours, or gone meanwhile
+            }
+        }
+        found.sort(Comparator.comparing(Found::mtime));
+        synchronized (disk) {
+            for (Found f : found) { disk.put(f.key(), f.size()); diskBytes += f.size(); }
+            trimDisk();
+        }
+    }
+
+    // caller holds disk
+    private void trimDisk() {
+        for (Iterator<Map.Entry<Long, Long>> it = disk.entrySet().iterator(); diskBytes > diskBudgetBytes && it.hasNext(); ) {
+            Map.Entry<Long, Long> e = it.next();
+            if (e.getValue() == 0) continue; // write still queued
+            try {
+                Files.deleteIfExists(file(e.getKey()));
+            } catch (IOException ex) {
+                System.err.println("[MeshCache] could not evict " + file(e.getKey()).getFileName() + ": " + ex);
+                continue;
+            }
+            diskBytes -= e.getValue();
+            it.remove();
+        }
+    }
+
+    private Entry readFile(long key) {
+        synchronized (disk) { if (!disk.containsKey(key)) return null; }
+        Path p = file(key);
+        try (FileChannel fc = FileChannel.open(p, StandardOpenOption.READ)) {
+            MappedByteBuffer m = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+            m.order(ByteOrder.LITTLE_ENDIAN);
+            if (m.getInt() != MAGIC || m.getInt() != MESHER_VERSION) return null;
+            int vis = m.getInt();
+            float[] v = new float[m.getInt()];
+            int[] idx = new int[m.getInt()];
+            if (idx.length == 0) return new Entry(null, vis);
+            m.asFloatBuffer().get(v);
+            m.position(m.position() + v.length * 4);
+            m.asIntBuffer().get(idx);
+            return new Entry(new MeshBlob(v, idx), vis);
+        } catch (IOException | RuntimeException e) { // unreadable or truncated: treat as a miss
+            return null;
+        }
+    }
+
+    private void writeFile(long key, Entry e) {
+        ByteBuffer out = ByteBuffer.allocate(16 + (int) e.bytes).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(MESHER_VERSION).putInt(e.visibility);
+        MeshBlob m = e.mesh;
+        if (m == null) out.putInt(0).putInt(0);
+        else {
+            out.putInt(m.vertices.length).putInt(m.indices.length);
+            out.asFloatBuffer().put(m.vertices);
+            out.position(out.position() + m.vertices.length * 4);
+            out.asIntBuffer().put(m.indices);
+            out.position(out.position() + m.indices.length * 4);
+        }
+        out.flip();
+
+        Path p = file(key);
+        Path tmp = dir.resolve(p.getFileName() + "." + Thread.currentThread().threadId() + ".tmp");
+        try {
+            try (FileChannel fc = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (out.hasRemaining()) fc.write(out);
+            }
+            Files.move(tmp, p, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            synchronized (disk) {
+                disk.put(key, (long) out.limit());
+                diskBytes += out.limit();
+                trimDisk();
+            }
+        } catch (IOException ex) {
+            System.err.println("[MeshCache] write failed for " + p.getFileName() + ": " + ex);
+            try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+            synchronized (disk) { disk.remove(key); } // a later put may try again
+        }
+    }
+
+    @Override public String toString() { return "MeshCache[" + dir + "]"; }
+}
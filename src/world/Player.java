@@ -31,6 +31,7 @@ public class Player {
     private static final float MOVE_SPEED = 6.0f; // walking speed
 
     private boolean onGround = false;
+    private ChunkCursor cursor; // sim-thread chunk cache for collision sweeps
 
     /** Update orientation from mouse deltas (degrees). */
     public void addLook(float dx, float dy) {
@@ -49,15 +50,19 @@ public class Player {
         // right vector
         float rx = -fz, rz = fx;
 
-        Vector3f wish = new Vector3f();
-        if (fwd)  wish.add( fx, 0,  fz);
-        if (back) wish.add(-fx, 0, -fz);
-        if (left) wish.add(-rx, 0, -rz);
-        if (right)wish.add( rx, 0,  rz);
+        float wishX = 0, wishZ = 0;
+        if (fwd)  { wishX += fx; wishZ += fz; }
+        if (back) { wishX -= fx; wishZ -= fz; }
+        if (left) { wishX -= rx; wishZ -= rz; }
+        if (right){ wishX += rx; wishZ += rz; }
         float speed = sprint ? MOVE_SPEED * 1.5f : MOVE_SPEED;
-        if (wish.lengthSquared() > 0) wish.normalize(speed);
-        vel.x = wish.x;
-        vel.z = wish.z;
+        float len2 = wishX * wishX + wishZ * wishZ;
+        if (len2 > 0) {
+            float k = speed / (float)Math.sqrt(len2);
+            wishX *= k; wishZ *= k;
+        }
+        vel.x = wishX;
+        vel.z = wishZ;
 
         // Vertical
         if (up)   vel.y =  speed;        // noclip up (classic had fly; keep it simple via Space+Shift? We'll use Space to jump instead)
@@ -75,41 +80,31 @@ public class Player {
     }
 
     private void stepAndCollide(World w, float dt) {
+        if (cursor == null) cursor = new ChunkCursor(w);
         onGround = false;
 
-        // X
-        float nx = pos.x + vel.x * dt;
-        if (!collides(w, nx, pos.y, pos.z)) pos.x = nx;
-        else vel.x = 0;
+        // X: sweep against voxel columns, stop flush against the first solid one
+        float dx = vel.x * dt;
+        float mx = EntityPhysics.sweepX(cursor, pos.x - HALF_X, pos.y - HALF_Y, pos.z - HALF_Z,
+                                        pos.x + HALF_X, pos.y + HALF_Y, pos.z + HALF_Z, dx);
+        pos.x += mx;
+        if (mx != dx) vel.x = 0;
 
         // Y
-        float ny = pos.y + vel.y * dt;
-        if (!collides(w, pos.x, ny, pos.z)) {
-            pos.y = ny;
-        } else {
+        float dy = vel.y * dt;
+        float my = EntityPhysics.sweepY(cursor, pos.x - HALF_X, pos.y - HALF_Y, pos.z - HALF_Z,
+                                        pos.x + HALF_X, pos.y + HALF_Y, pos.z + HALF_Z, dy);
+        pos.y += my;
+        if (my != dy) {
             if (vel.y < 0) onGround = true;
             vel.y = 0;
         }
 
         // Z
-        float nz = pos.z + vel.z * dt;
-        if (!collides(w, pos.x, pos.y, nz)) pos.z = nz;
-        else vel.z = 0;
-    }
-
-    private boolean collides(World w, float x, float y, float z) {
-        // Check voxel AABBs overlapped by player box
-        int minX = (int)Math.floor(x - HALF_X);
-        int maxX = (int)Math.floor(x + HALF_X);
-        int minY = (int)Math.floor(y - HALF_Y);
-        int maxY = (int)Math.floor(y + HALF_Y);
-        int minZ = (int)Math.floor(z - HALF_Z);
-        int maxZ = (int)Math.floor(z + HALF_Z);
-
-        for (int yy = minY; yy <= maxY; yy++)
-            for (int zz = minZ; zz <= maxZ; zz++)
-                for (int xx = minX; xx <= maxX; xx++)
-                    if (w.isSolid(xx, yy, zz)) return true;
-        return false;
+        float dz = vel.z * dt;
+        float mz = EntityPhysics.sweepZ(cursor, pos.x - HALF_X, pos.y - HALF_Y, pos.z - HALF_Z,
+                                        pos.x + HALF_X, pos.y + HALF_Y, pos.z + HALF_Z, dz);
+        pos.z += mz;
+        if (mz != dz) vel.z = 0;
     }
 }
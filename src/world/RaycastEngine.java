@@ -0,0 +1,191 @@
+package world;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jobs.Job;
+import jobs.JobPriority;
+import jobs.JobSystem;
+import world.World.Chunk;
+import world.World.RayHit;
+
+/**
+ * Voxel raycasts (grid DDA) that jump over empty space instead of visiting every cell:
+ * - a missing chunk is crossed in one step
+ * - the air above a chunk's tallest column (its heightmap maximum; all of an empty chunk)
+ *   is crossed in one step
+ * - everything else is tested against the solidity bitmask, through a per-thread ChunkCursor
+ * {@link #castBatch} spreads many rays over JobSystem workers (line of sight, AI probes).
+ */
+public final class RaycastEngine {
+    private static final int RAYS_PER_CLAIM = 64;
+
+    private final JobSystem.Tenant jobs;
+    private final ThreadLocal<ChunkCursor> cursors;
+
+    public RaycastEngine(World w, JobSystem.Tenant jobs) {
+        this.jobs = jobs;
+        this.cursors = ThreadLocal.withInitial(() -> new ChunkCursor(w));
+    }
+
+    /** Input rays and output hits for {@link #castBatch}; reusable between calls. */
+    public static final class Batch {
+        public final float[] rays;          // ox, oy, oz, dx, dy, dz per ray
+        public final boolean[] hit;
+        public final int[] x, y, z;         // hit voxel
+        public final int[] nx, ny, nz;      // face normal of the hit (0,0,0 if the ray started inside)
+        public int count;
+
+        // claim state while a batch is in flight
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger done = new AtomicInteger();
+        float maxDist;
+
+        public Batch(int capacity) {
+            rays = new float[capacity * 6];
+            hit = new boolean[capacity];
+            x = new int[capacity]; y = new int[capacity]; z = new int[capacity];
+            nx = new int[capacity]; ny = new int[capacity]; nz = new int[capacity];
+        }
+
+        public void set(int i, float ox, float oy, float oz, float dx, float dy, float dz) {
+            int b = i * 6;
+            rays[b] = ox; rays[b + 1] = oy; rays[b + 2] = oz;
+            rays[b + 3] = dx; rays[b + 4] = dy; rays[b + 5] = dz;
+        }
+    }
+
+    /** Single ray from (ox,oy,oz) along (dx,dy,dz); direction need not be normalized. */
+    public RayHit cast(float ox, float oy, float oz, float dx, float dy, float dz, float maxDist) {
+        int[] out = SCRATCH.get();
+        if (!trace(cursors.get(), ox, oy, oz, dx, dy, dz, maxDist, out)) return null;
+        return new RayHit(out[0], out[1], out[2], out[3], out[4], out[5]);
+    }
+
+    /** Casts {@code b.count} rays; the calling thread works too, so this completes with zero workers. */
+    public void castBatch(Batch b, float maxDist) {
+        int claims = (b.count + RAYS_PER_CLAIM - 1) / RAYS_PER_CLAIM;
+        if (claims == 0) return;
+        b.maxDist = maxDist;
+        b.done.set(0);
+        b.next.set(0);
+
+        int helpers = Math.min(claims - 1, jobs.currentWorkers());
+        for (int i = 0; i < helpers; i++) jobs.submit(new BatchJob(this, b));
+        drain(b);
+        while (b.done.get() < claims) Thread.onSpinWait();
+    }
+
+    private void drain(Batch b) {
+        int claims = (b.count + RAYS_PER_CLAIM - 1) / RAYS_PER_CLAIM;
+        ChunkCursor cur = cursors.get();
+        int[] out = SCRATCH.get();
+        int c;
+        while ((c = b.next.getAndIncrement()) < claims) {
+            for (int i = c * RAYS_PER_CLAIM, end = Math.min(b.count, i + RAYS_PER_CLAIM); i < end; i++) {
+                int r = i * 6;
+                boolean h = trace(cur, b.rays[r], b.rays[r + 1], b.rays[r + 2],
+                                  b.rays[r + 3], b.rays[r + 4], b.rays[r + 5], b.maxDist, out);
+                b.hit[i] = h;
+                if (h) {
+                    b.x[i] = out[0]; b.y[i] = out[1]; b.z[i] = out[2];
+                    b.nx[i] = out[3]; b.ny[i] = out[4]; b.nz[i] = out[5];
+                }
+            }
+            b.done.incrementAndGet();
+        }
+    }
+
+    private static final ThreadLocal<int[]> SCRATCH = ThreadLocal.withInitial(() -> new int[6]);
+
+    /**
+     * Grid DDA. On hit writes x,y,z,nx,ny,nz into out and returns true.
+     * When the current cell lies in empty space, the walk jumps straight to where the ray
+     * leaves that empty box (air above the chunk's heightmap, or a whole missing chunk).
+     */
+    static boolean trace(ChunkCursor cur, float ex, float ey, float ez,
+                         float dx, float dy, float dz, float maxDist, int[] out) {
+        float len = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (len == 0) return false;
+        dx /= len; dy /= len; dz /= len;
+
+        final int SX = World.CHUNK_SIZE_X, SY = World.CHUNK_SIZE_Y, SZ = World.CHUNK_SIZE_Z;
+        int x = (int) Math.floor(ex), y = (int) Math.floor(ey), z = (int) Math.floor(ez);
+        int stepX = dx > 0 ? 1 : -1, stepY = dy > 0 ? 1 : -1, stepZ = dz > 0 ? 1 : -1;
+        float tDeltaX = (dx == 0) ? Float.MAX_VALUE : Math.abs(1f / dx);
+        float tDeltaY = (dy == 0) ? Float.MAX_VALUE : Math.abs(1f / dy);
+        float tDeltaZ = (dz == 0) ? Float.MAX_VALUE : Math.abs(1f / dz);
+        float tMaxX = ((dx > 0) ? ((x + 1) - ex) : (ex - x)) * tDeltaX;
+        float tMaxY = ((dy > 0) ? ((y + 1) - ey) : (ey - y)) * tDeltaY;
+        float tMaxZ = ((dz > 0) ? ((z + 1) - ez) : (ez - z)) * tDeltaZ;
+
+        int nx = 0, ny = 0, nz = 0;
+        float t = 0;
+        while (t <= maxDist) {
+            // find the empty box (if any) that contains the current cell: the whole chunk if it
+            // is missing, else the air above its tallest column
+            int cx = Math.floorDiv(x, SX), cy = Math.floorDiv(y, SY), cz = Math.floorDiv(z, SZ);
+            int bx0 = cx * SX, bx1 = bx0 + SX - 1;
+            int by0 = cy * SY, by1 = by0 + SY - 1;
+            int bz0 = cz * SZ, bz1 = bz0 + SZ - 1;
+            Chunk c = cur.chunk(cx, cy, cz);
+            if (c != null) {
+                int top = c.maxHeight();
+                if (y - by0 < top) {
+                    if (c.isSolid(x - bx0, y - by0, z - bz0)) {
+                        out[0] = x; out[1] = y; out[2] = z;
+                        out[3] = -nx; out[4] = -ny; out[5] = -nz; // normal is opposite of step that entered
+                        return true;
+                    }
+                    // single DDA step
+                    if (tMaxX < tMaxY) {
+                        if (tMaxX < tMaxZ) { x += stepX; t = tMaxX; tMaxX += tDeltaX; nx = stepX; ny = nz = 0; }
+                        else { z += stepZ; t = tMaxZ; tMaxZ += tDeltaZ; nz = stepZ; nx = ny = 0; }
+                    } else {
+                        if (tMaxY < tMaxZ) { y += stepY; t = tMaxY; tMaxY += tDeltaY; ny = stepY; nx = nz = 0; }
+                        else { z += stepZ; t = tMaxZ; tMaxZ += tDeltaZ; nz = stepZ; nx = ny = 0; }
+                    }
+                    continue;
+                }
+                by0 += top; // open air above the tallest column
+            }
+
+            // jump: cells to cross on each axis before leaving the box, and the t at which that happens
+            int kx = (stepX > 0) ? bx1 - x + 1 : x - bx0 + 1;
+            int ky = (stepY > 0) ? by1 - y + 1 : y - by0 + 1;
+            int kz = (stepZ > 0) ? bz1 - z + 1 : z - bz0 + 1;
+            float tx = (tDeltaX == Float.MAX_VALUE) ? Float.MAX_VALUE : tMaxX + (kx - 1) * tDeltaX;
+            float ty = (tDeltaY == Float.MAX_VALUE) ? Float.MAX_VALUE : tMaxY + (ky - 1) * tDeltaY;
+            float tz = (tDeltaZ == Float.MAX_VALUE) ? Float.MAX_VALUE : tMaxZ + (kz - 1) * tDeltaZ;
+
+            int axis = (tx < ty) ? ((tx < tz) ? 0 : 2) : ((ty < tz) ? 1 : 2);
+            float tExit = (axis == 0) ? tx : (axis == 1) ? ty : tz;
+            if (tExit > maxDist) return false;
+
+            // other axes: advance every crossing that happens strictly before tExit (stays inside the box)
+            if (axis != 0) { int n = crossings(tMaxX, tDeltaX, tExit, kx - 1); x += stepX * n; tMaxX += n * tDeltaX; }
+            if (axis != 1) { int n = crossings(tMaxY, tDeltaY, tExit, ky - 1); y += stepY * n; tMaxY += n * tDeltaY; }
+            if (axis != 2) { int n = crossings(tMaxZ, tDeltaZ, tExit, kz - 1); z += stepZ * n; tMaxZ += n * tDeltaZ; }
+
+            // exit axis: step out of the box
+            if (axis == 0)      { x += stepX * kx; tMaxX += kx * tDeltaX; nx = stepX; ny = nz = 0; }
+            else if (axis == 1) { y += stepY * ky; tMaxY += ky * tDeltaY; ny = stepY; nx = nz = 0; }
+            else                { z += stepZ * kz; tMaxZ += kz * tDeltaZ; nz = stepZ; nx = ny = 0; }
+            t = tExit;
+        }
+        return false;
+    }
+
+    private static int crossings(float tMax, float tDelta, float tExit, int limit) {
+        if (tDelta == Float.MAX_VALUE || tMax >= tExit) return 0;
+        int n = (int) Math.ceil((tExit - tMax) / tDelta);
+        return Math.max(0, Math.min(n, limit));
+    }
+
+    private static final class BatchJob implements Job {
+        private final RaycastEngine e;
+        private final Batch b;
+        BatchJob(RaycastEngine e, Batch b) { this.e = e; this.b = b; }
+        @Override public JobPriority priority() { return JobPriority.P1_NEAR; }
+        @Override public void run() { e.drain(b); }
+    }
+}
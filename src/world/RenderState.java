@@ -0,0 +1,67 @@
+package world;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Triple-buffered hand-off of everything the renderer needs from the simulation.
+ * - Sim thread fills {@link #beginWrite()} once per tick, then {@link #publish()}
+ * - Render thread calls {@link #acquire()} once per frame and reads that snapshot freely
+ * Neither side blocks or allocates; the renderer always sees a complete tick.
+ */
+public final class RenderState {
+    public static final class Snapshot {
+        public long sequence;                 // tick number, 0 = nothing published yet
+        public long publishNs;                // System.nanoTime() at publish
+        public long tickNs;                   // sim step length, for interpolation alpha
+
+        // camera
+        public float yaw, pitch;
+        public float prevX, prevY, prevZ;     // player position at the previous tick
+        public float currX, currY, currZ;     // player position at this tick
+
+        // block under the crosshair
+        public boolean hasTarget;
+        public int targetX, targetY, targetZ;
+
+        // loaded chunks, packed with World.packChunk and sorted ascending
+        long[] chunks = new long[256];
+        public int chunkCount;
+
+        /** Interpolation factor in [0..1] between prev and curr at time {@code nowNs}. */
+        public float alpha(long nowNs) {
+            if (tickNs <= 0) return 1f;
+            float a = (nowNs - publishNs) / (float) tickNs;
+            return (a < 0) ? 0 : (a > 1) ? 1 : a;
+        }
+
+        public boolean containsChunk(int cx, int cy, int cz) {
+            return Arrays.binarySearch(chunks, 0, chunkCount, World.packChunk(cx, cy, cz)) >= 0;
+        }
+
+        void ensureChunkCapacity(int n) {
+            if (chunks.length < n) chunks = new long[Math.max(n, chunks.length * 2)];
+        }
+    }
+
+    private static final int FRESH = 4, INDEX = 3;
+
+    private final Snapshot[] buffers = { new Snapshot(), new Snapshot(), new Snapshot() };
+    private final AtomicInteger middle = new AtomicInteger(1); // index | FRESH when unread
+    private int back = 0;   // sim thread only
+    private int front = 2;  // render thread only
+
+    /** Sim thread: the buffer to fill for this tick (contents are from an older tick). */
+    public Snapshot beginWrite() { return buffers[back]; }
+
+    /** Sim thread: makes the buffer returned by {@link #beginWrite()} the latest one. */
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX;
+    }
+
+    /** Render thread: latest published snapshot (same one again if nothing new arrived). */
+    public Snapshot acquire() {
+        if ((middle.get() & FRESH) != 0) front = middle.getAndSet(front) & INDEX;
+        return buffers[front];
+    }
+}
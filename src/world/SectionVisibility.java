@@ -0,0 +1,79 @@
+package world;
+
+import static world.World.CHUNK_SIZE_X;
+
+import world.World.Chunk;
+
+/**
+ * Face-connectivity masks for 16³ chunks, computed at mesh time.
+ * Bit pairBit(a,b) is set when open (non-solid) voxels connect face a to face b.
+ * Faces use the World.FACE_D* order: 0 +X, 1 -X, 2 +Y, 3 -Y, 4 +Z, 5 -Z.
+ */
+public final class SectionVisibility {
+    public static final int ALL_CONNECTED = (1 << 15) - 1;
+
+    private static final int[] PAIR_BIT = new int[36];
+    static {
+        int bit = 0;
+        for (int a = 0; a < 6; a++)
+            for (int b = a + 1; b < 6; b++) {
+                PAIR_BIT[a * 6 + b] = PAIR_BIT[b * 6 + a] = bit++;
+            }
+    }
+
+    private SectionVisibility() {}
+
+    public static int opposite(int face) { return face ^ 1; }
+
+    /** True if the mask lets sight enter through face a and leave through face b. */
+    public static boolean connected(int mask, int a, int b) {
+        return a != b && (mask & (1 << PAIR_BIT[a * 6 + b])) != 0;
+    }
+
+    /** Flood-fills each open region of the chunk and links every pair of faces it touches. */
+    public static int compute(Chunk c) {
+        if (c.isEmpty()) return ALL_CONNECTED;
+        final int S = CHUNK_SIZE_X; // cubic
+        long[] seen = new long[(S * S * S) >> 6];
+        int[] queue = new int[S * S * S];
+        int mask = 0;
+
+        for (int start = 0; start < S * S * S; start++) {
+            if ((seen[start >> 6] & (1L << start)) != 0) continue;
+            if (c.get(start % S, start / (S * S), (start / S) % S) != World.AIR) continue;
+
+            // local index: x + z*S + y*S*S (same layout as the chunk)
+            int head = 0, tail = 0, faces = 0;
+            seen[start >> 6] |= 1L << start;
+            queue[tail++] = start;
+            while (head < tail) {
+                int i = queue[head++];
+                int x = i % S, z = (i / S) % S, y = i / (S * S);
+                if (x == S - 1) faces |= 1 << 0;
+                if (x == 0)     faces |= 1 << 1;
+                if (y == S - 1) faces |= 1 << 2;
+                if (y == 0)     faces |= 1 << 3;
+                if (z == S - 1) faces |= 1 << 4;
+                if (z == 0)     faces |= 1 << 5;
+
+                for (int f = 0; f < 6; f++) {
+                    int nx = x + World.FACE_DX[f], ny = y + World.FACE_DY[f], nz = z + World.FACE_DZ[f];
+                    if (nx < 0 || nx >= S || ny < 0 || ny >= S || nz < 0 || nz >= S) continue;
+                    int n = nx + nz * S + ny * S * S;
+                    if ((seen[n >> 6] & (1L << n)) != 0) continue;
+                    if (c.get(nx, ny, nz) != World.AIR) continue;
+                    seen[n >> 6] |= 1L << n;
+                    queue[tail++] = n;
+                }
+            }
+
+            for (int a = 0; a < 6; a++) {
+                if ((faces & (1 << a)) == 0) continue;
+                for (int b = a + 1; b < 6; b++)
+                    if ((faces & (1 << b)) != 0) mask |= 1 << PAIR_BIT[a * 6 + b];
+            }
+            if (mask == ALL_CONNECTED) break;
+        }
+        return mask;
+    }
+}
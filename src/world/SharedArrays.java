@@ -0,0 +1,106 @@
+package world;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Content-addressed pool of immutable chunk arrays (voxel ids and light), so every chunk with
+ * byte-for-byte the same data holds one array: all-air and all-stone cubes, the repeated layers
+ * of a flat world, fully lit sky. Holders never write a pooled array; Chunk.set copies first.
+ * Entries are reference counted and leave with their last holder, so memory follows the amount
+ * of unique content. One pool per process: hosted worlds share with each other too.
+ */
+public final class SharedArrays {
+    public static final SharedArrays POOL = new SharedArrays();
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final class Entry {
+        final long hash;
+        final byte[] data;
+        int refs;
+        Entry(long hash, byte[] data) { this.hash = hash; this.data = data; }
+    }
+
+    private final Map<Long, Entry> byContent = new HashMap<>();
+    private final Map<byte[], Entry> byArray = new IdentityHashMap<>();
+    private long refs, bytes;
+
+    private SharedArrays() {}
+
+    /**
+     * One more reference to an array equal to {@code a}: the pooled one, or {@code a} itself if
+     * the content is new (the caller must not write it from now on). Null on a hash collision;
+     * the caller then keeps {@code a} to itself. Hashing and comparing happen outside the lock
+     * (pooled arrays never change); only the map lookups and counts are under it.
+     */
+    byte[] acquire(byte[] a) {
+        long h = hash(a);
+        for (;;) {
+            Entry e;
+            synchronized (this) {
+                e = byContent.get(h);
+                if (e == null) {
+                    e = new Entry(h, a);
+                    byContent.put(h, e);
+                    byArray.put(a, e);
+                    bytes += a.length;
+                    e.refs++;
+                    refs++;
+                    return a;
+                }
+                if (e.data == a) { e.refs++; refs++; return a; }
+            }
+            if (!Arrays.equals(e.data, a)) return null;
+            synchronized (this) {
+                if (byContent.get(h) == e) { e.refs++; refs++; return e.data; }
+            } // its last holder let go meanwhile: start over
+        }
+    }
+
+    /** Drops one reference to a pooled array; the entry goes with the last one. */
+    synchronized void release(byte[] a) {
+        Entry e = byArray.get(a);
+        if (e == null) return;
+        refs--;
+        if (--e.refs > 0) return;
+        byContent.remove(e.hash);
+        byArray.remove(a);
+        bytes -= a.length;
+    }
+
+    /**
+     * Trades a reference to a pooled array for a writable one: the array itself when the caller
+     * was its only holder (it leaves the pool), otherwise a private copy.
+     */
+    synchronized byte[] unshare(byte[] a) {
+        Entry e = byArray.get(a);
+        boolean last = e != null && e.refs == 1;
+        release(a);
+        return last ? a : a.clone();
+    }
+
+    /** Distinct arrays in the pool. */
+    public synchronized int arrays() { return byContent.size(); }
+
+    /** Heap held by pooled arrays. */
+    public synchronized long bytes() { return bytes; }
+
+    /** Chunk references to pooled arrays; {@code refs × array size} is what the pool stands in for. */
+    public synchronized long references() { return refs; }
+
+    private static long hash(byte[] a) {
+        long h = 0xCBF29CE484222325L ^ a.length;
+        int i = 0;
+        for (; i + 8 <= a.length; i += 8)
+            h = Long.rotateLeft(h ^ ((long) LONGS.get(a, i) * 0xC2B2AE3D27D4EB4FL), 31) * 0x9E3779B185EBCA87L;
+        for (; i < a.length; i++) h = Long.rotateLeft(h ^ a[i], 27) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33; h *= 0xFF51AFD7ED558CCDL;
+        return h ^ (h >>> 33);
+    }
+}
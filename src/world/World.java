@@ -1,24 +1,36 @@
 package world;
 
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import engine.EngineEvents;
 import engine.InputState;
+import engine.Telemetry;
+import jobs.CancellationToken;
 import jobs.Job;
+import jobs.JobHandle;
 import jobs.JobPriority;
 import jobs.JobSystem;
 
 /**
- * Voxel world with chunked storage, flat terrain init, block raycast/editing,
- * and meshing jobs (naive face culling).
+ * Voxel world with cubic 16³ chunks keyed by (cx,cy,cz) and no vertical limit, flat terrain
+ * init, block raycast/editing, and lighting + meshing jobs (naive face culling).
  */
-public class World {
+public final class World {
     // ---- chunk config ----
     public static final int CHUNK_SIZE_X = 16;
-    public static final int CHUNK_SIZE_Y = 128; // tall enough for classic feeling
+    public static final int CHUNK_SIZE_Y = 16;  // cubic: chunks stack vertically, the world has no top or bottom
     public static final int CHUNK_SIZE_Z = 16;
     public static final int MAX_LIGHT = 15;
+    public static final int TERRAIN_TOP = 13;   // flatInit leaves everything from this y up as air
 
     // simple block id palette
     public static final byte AIR=0, GRASS=1, DIRT=2, STONE=3;
@@ -32,27 +44,121 @@ public class World {
     
     public static final class GpuUpload {
         public final ChunkPos pos;
-        public final MeshBlob mesh;
-        public GpuUpload(ChunkPos pos, MeshBlob mesh) { this.pos = pos; this.mesh = mesh; }
+        public final MeshBlob mesh;        // chunk-local mesh (full detail or a LOD level); null = nothing to draw
+        public final int visibility;       // SectionVisibility mask of the chunk
+        public final boolean unload;       // chunk was unloaded: drop whatever is drawn for it
+        public GpuUpload(ChunkPos pos, MeshBlob mesh, int visibility) { this(pos, mesh, visibility, false); }
+        private GpuUpload(ChunkPos pos, MeshBlob mesh, int visibility, boolean unload) {
+            this.pos = pos; this.mesh = mesh; this.visibility = visibility; this.unload = unload;
+        }
+        static GpuUpload unloaded(ChunkPos pos) { return new GpuUpload(pos, null, 0, true); }
     }
 
 
     private final ConcurrentHashMap<ChunkPos, Chunk> chunks = new ConcurrentHashMap<>();
-    private final JobSystem jobs;
+    // bumped by every unload; lets ChunkCursor notice that a cached chunk may be gone (see unloadChunk)
+    volatile int unloadEpoch;
+    // far-chunk detail: cached pyramids + the level each chunk is currently drawn at (absent = 0)
+    private final ConcurrentHashMap<ChunkPos, ChunkLod> lods = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<ChunkPos, Integer> lodLevels = new ConcurrentHashMap<>();
+    private static final int LOD_UPDATE_TICKS = 10;
+    private int lodTick = 0;
+    // streaming around the player (sim thread): load within streamRadius, unload past it + slack
+    private static final int STREAM_UNLOAD_SLACK = 2;
+    private static final int STREAM_LOADS_PER_TICK = 16;
+    private int streamRadius = 0, streamRadiusY; // 0 = off; chunks are only loaded on request
+    private int[] streamOffsets = new int[0];    // (dx,dy,dz) triples, nearest first
+    private int streamCursor, streamCx = Integer.MIN_VALUE, streamCy, streamCz;
+    // cold tier (sim thread): chunks past coldRadius that stay unchanged for coldDelayTicks get packed
+    private static final int COLD_CHECK_TICKS = 20;
+    private int coldRadius = 0;                // 0 = off
+    private int coldDelayTicks, coldTick;
+    private Telemetry coldTm;
+    private final JobSystem.Tenant jobs; // this world's share of the shared worker pool
+    // newest LightJob per chunk; while it has not started, further edits are already covered by it
+    private final ConcurrentHashMap<ChunkPos, JobHandle> pendingLight = new ConcurrentHashMap<>();
     private final InputState input;
+    private final EditJournal journal; // null = edits are not persisted
+    private final MeshCache meshCache; // null = always light + mesh
     public final Player player = new Player();
+    public final EntityPhysics entities;
+    public final RaycastEngine rays;
+    // sim → render hand-off; the renderer never reads player/chunks directly
+    public final RenderState renderState = new RenderState();
+    private long tickCount = 0;
+    // false on a dedicated server: nothing consumes gpuUploads, so skip light + mesh work
+    private volatile boolean meshing = true;
+
+    /** Notified on the thread that called setBlock, after the chunk was updated. */
+    public interface BlockListener {
+        void onBlockChanged(int wx, int wy, int wz, byte id);
+    }
+    private final CopyOnWriteArrayList<BlockListener> blockListeners = new CopyOnWriteArrayList<>();
 
     public World(JobSystem jobs, InputState input) {
-        this.jobs = jobs; this.input = input;
-        // seed a few chunks around origin
-        requestInitialChunks(0,0,2);
+        this(jobs.defaultTenant(), input, null, null);
+    }
+
+    public World(JobSystem jobs, InputState input, EditJournal journal, MeshCache meshCache) {
+        this(jobs.defaultTenant(), input, journal, meshCache);
+    }
+
+    /** A world scheduled as its own tenant, e.g. one of several shards sharing one JobSystem. */
+    public World(JobSystem.Tenant jobs, InputState input, EditJournal journal, MeshCache meshCache) {
+        this.jobs = jobs; this.input = input; this.journal = journal; this.meshCache = meshCache;
+        this.entities = new EntityPhysics(this, jobs);
+        this.rays = new RaycastEngine(this, jobs);
+    }
+
+    public void addBlockListener(BlockListener l) { blockListeners.add(l); }
+    public void removeBlockListener(BlockListener l) { blockListeners.remove(l); }
+
+    /** Turns lighting/meshing on or off (headless servers never render). */
+    public void setMeshing(boolean on) { meshing = on; }
+
+    /**
+     * Keeps chunks within {@code radius} horizontally and {@code radiusY} vertically (Chebyshev)
+     * of the player loaded and unloads the ones that drift past it; their queued light/mesh jobs
+     * are cancelled. A radius of 0 turns streaming off.
+     */
+    public void setStreamRadius(int radius, int radiusY) {
+        streamRadius = Math.max(0, radius);
+        streamRadiusY = Math.max(0, radiusY);
+        int side = 2 * streamRadius + 1, sideY = 2 * streamRadiusY + 1;
+        Integer[] order = new Integer[side * side * sideY];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(ringDist2(a, side), ringDist2(b, side)));
+        int[] offs = new int[order.length * 3];
+        for (int i = 0; i < order.length; i++) {
+            offs[3 * i] = order[i] % side - streamRadius;
+            offs[3 * i + 1] = order[i] / (side * side) - streamRadiusY;
+            offs[3 * i + 2] = (order[i] / side) % side - streamRadius;
+        }
+        streamOffsets = offs;
+        streamCx = Integer.MIN_VALUE; // re-evaluate on the next tick
+    }
+
+    /**
+     * Packs chunks farther than {@code radius} (Chebyshev) from the player once they went
+     * {@code delayTicks} without an edit, and inflates them in the background when the player
+     * comes back. Anything that touches a packed chunk first inflates it inline (counted as a miss).
+     */
+    public void enableColdTier(int radius, int delayTicks, Telemetry tm) {
+        coldRadius = Math.max(0, radius);
+        coldDelayTicks = delayTicks;
+        coldTm = tm;
+    }
+
+    private int ringDist2(int i, int side) {
+        int dx = i % side - streamRadius, dz = (i / side) % side - streamRadius, dy = i / (side * side) - streamRadiusY;
+        return dx * dx + dy * dy + dz * dz;
     }
 
     // ---- per-tick hooks from SimulationThread ----
     public void consumeInputs() {
-        // Mouse look
-        //double[] d = input.consumeMouseDelta();
-        //if (d[0] != 0 || d[1] != 0) player.addLook((float)d[0], (float)d[1]);
+        // Mouse look: the render thread owns the absolute angles, we just adopt them
+        player.yaw = input.lookYaw;
+        player.pitch = input.lookPitch;
     }
 
     public void tick(double dt) {
@@ -61,6 +167,7 @@ public class World {
         boolean up = false, down = false;
         boolean sprint = input.keyShift, jump = input.keySpace;
         player.tick(this, fwd, back, left, right, up, down, sprint, jump, (float)dt);
+        entities.step((float)dt);
 
         // clicks: consume ONCE
         boolean leftClick  = input.consumeLeftClick();
@@ -82,80 +189,454 @@ public class World {
                 }
             }
         }
+
+        publishRenderState(dt);
+    }
+
+    /** Copies camera, crosshair target and loaded chunk set into the next render snapshot. */
+    private void publishRenderState(double dt) {
+        RenderState.Snapshot s = renderState.beginWrite();
+        s.sequence = ++tickCount;
+        s.tickNs = (long)(dt * 1_000_000_000L);
+        s.yaw = player.yaw;
+        s.pitch = player.pitch;
+        s.prevX = player.prevPos.x; s.prevY = player.prevPos.y; s.prevZ = player.prevPos.z;
+        s.currX = player.currPos.x; s.currY = player.currPos.y; s.currZ = player.currPos.z;
+
+        RayHit hit = raycast(player, 8.0f);
+        s.hasTarget = hit != null;
+        if (hit != null) { s.targetX = hit.x; s.targetY = hit.y; s.targetZ = hit.z; }
+
+        s.ensureChunkCapacity(chunks.size());
+        int n = 0;
+        for (ChunkPos p : chunks.keySet()) {
+            if (n == s.chunks.length) s.ensureChunkCapacity(n + 1); // chunk loaded meanwhile
+            s.chunks[n++] = packChunk(p.x, p.y, p.z);
+        }
+        Arrays.sort(s.chunks, 0, n);
+        s.chunkCount = n;
+
+        s.publishNs = System.nanoTime();
+        renderState.publish();
+    }
+
+    /**
+     * Chunk coords packed into one long (21 bits each: x high, then y, z low), used for
+     * allocation-free chunk sets. Covers ±2^20 chunks on every axis.
+     */
+    public static long packChunk(int cx, int cy, int cz) {
+        return ((long) (cx & 0x1FFFFF) << 42) | ((long) (cy & 0x1FFFFF) << 21) | (cz & 0x1FFFFF);
+    }
+    public static int packedX(long key) { return (int) (key << 1 >> 43); }
+    public static int packedY(long key) { return (int) (key << 22 >> 43); }
+    public static int packedZ(long key) { return (int) (key << 43 >> 43); }
+
+
+    /** Meshing is done via jobs as edits happen; here we stream chunks and re-pick LOD levels as the player moves. */
+    public void processChunkPipelines() {
+        if (streamRadius > 0) updateStreaming();
+        if (coldRadius > 0 && ++coldTick >= COLD_CHECK_TICKS) { coldTick = 0; updateColdTier(); }
+        if (!meshing || ++lodTick < LOD_UPDATE_TICKS) return;
+        lodTick = 0;
+
+        int pcx = playerChunk(player.pos.x, CHUNK_SIZE_X), pcy = playerChunk(player.pos.y, CHUNK_SIZE_Y);
+        int pcz = playerChunk(player.pos.z, CHUNK_SIZE_Z);
+        for (ChunkPos pos : chunks.keySet()) {
+            int level = ChunkLod.levelForDistance(pos.distance(pcx, pcy, pcz));
+            Integer prev = lodLevels.put(pos, level);
+            if (prev == null ? level == 0 : prev == level) continue;
+            Chunk c = chunks.get(pos);
+            if (c == null || c.isEmpty()) continue; // nothing to draw at any level
+            if (level == 0) { c.markDirty(); jobs.submit(new MeshJob(this, pos, c.jobs)); } // replace the LOD mesh
+            else            jobs.submit(new LodJob(this, pos, level, c.jobs));
+        }
+    }
+
+    /**
+     * On entering a new chunk: unload what fell out of range (cancelling its jobs) and re-key
+     * the queue for the new position. Every tick: load a few missing chunks, nearest first.
+     */
+    private void updateStreaming() {
+        int pcx = playerChunk(player.pos.x, CHUNK_SIZE_X), pcy = playerChunk(player.pos.y, CHUNK_SIZE_Y);
+        int pcz = playerChunk(player.pos.z, CHUNK_SIZE_Z);
+        if (pcx != streamCx || pcy != streamCy || pcz != streamCz) {
+            streamCx = pcx; streamCy = pcy; streamCz = pcz; streamCursor = 0;
+            int keep = streamRadius + STREAM_UNLOAD_SLACK, keepY = streamRadiusY + STREAM_UNLOAD_SLACK;
+            for (ChunkPos pos : chunks.keySet())
+                if (Math.max(Math.abs(pos.x - pcx), Math.abs(pos.z - pcz)) > keep || Math.abs(pos.y - pcy) > keepY) unloadChunk(pos);
+            jobs.reprioritize();
+        }
+        for (int loads = 0; streamCursor < streamOffsets.length && loads < STREAM_LOADS_PER_TICK; streamCursor += 3) {
+            int cx = pcx + streamOffsets[streamCursor], cy = pcy + streamOffsets[streamCursor + 1];
+            int cz = pcz + streamOffsets[streamCursor + 2];
+            if (chunks.containsKey(new ChunkPos(cx, cy, cz))) continue;
+            ensureChunk(cx, cy, cz);
+            loads++;
+        }
+    }
+
+    /**
+     * Streaming for a server: unloads every chunk farther than {@code radius} ({@code radiusY}
+     * vertically), plus the usual slack, from all of {@code centers} (player chunk positions).
+     * Call from the sim thread.
+     */
+    public void unloadAwayFrom(List<ChunkPos> centers, int radius, int radiusY) {
+        int keep = radius + STREAM_UNLOAD_SLACK, keepY = radiusY + STREAM_UNLOAD_SLACK;
+        for (ChunkPos pos : chunks.keySet()) {
+            boolean near = false;
+            for (int i = 0; i < centers.size() && !near; i++) {
+                ChunkPos c = centers.get(i);
+                near = Math.max(Math.abs(pos.x - c.x), Math.abs(pos.z - c.z)) <= keep && Math.abs(pos.y - c.y) <= keepY;
+            }
+            if (!near) unloadChunk(pos);
+        }
+    }
+
+    private static int playerChunk(float p, int size) { return floorDiv((int)Math.floor(p), size); }
+
+    private void updateColdTier() {
+        int pcx = playerChunk(player.pos.x, CHUNK_SIZE_X), pcy = playerChunk(player.pos.y, CHUNK_SIZE_Y);
+        int pcz = playerChunk(player.pos.z, CHUNK_SIZE_Z);
+        for (Map.Entry<ChunkPos, Chunk> e : chunks.entrySet()) {
+            ChunkPos pos = e.getKey();
+            Chunk c = e.getValue();
+            if (c.coldQueued) continue;
+            if (pos.distance(pcx, pcy, pcz) <= coldRadius) {
+                c.coldTicks = 0;
+                if (c.isPacked()) { c.coldQueued = true; jobs.submit(new InflateJob(this, pos, c)); }
+                continue;
+            }
+            if (c.isPacked() || c.isShared()) continue; // pooled arrays cost nothing to keep
+            if (c.version != c.coldVersion) { c.coldVersion = c.version; c.coldTicks = 0; continue; }
+            if ((c.coldTicks += COLD_CHECK_TICKS) < coldDelayTicks) continue;
+            JobHandle h = pendingLight.get(pos);
+            if (h != null && !h.isDone()) continue; // still being lit/meshed
+            c.coldQueued = true;
+            jobs.submit(new PackJob(this, pos, c));
+        }
+    }
+
+    /** Records a pipeline step on the chunk and as a {@code voxel.ChunkStage} JFR event. */
+    static void reachStage(ChunkPos pos, Chunk c, ChunkStage stage) {
+        if (stage.compareTo(ChunkStage.MESHED) <= 0) c.stage = stage;
+        EngineEvents.ChunkStage ev = new EngineEvents.ChunkStage();
+        if (ev.shouldCommit()) {
+            ev.chunkX = pos.x; ev.chunkY = pos.y; ev.chunkZ = pos.z; ev.stage = stage.name();
+            ev.commit();
+        }
+    }
+
+    /** Drops a chunk and everything derived from it; edits survive in the journal. */
+    public void unloadChunk(ChunkPos pos) {
+        Chunk c = chunks.remove(pos);
+        if (c == null) return;
+        unloadEpoch++; // sim thread only
+        c.jobs.cancel();
+        c.discard();
+        pendingLight.remove(pos);
+        lods.remove(pos);
+        lodLevels.remove(pos);
+        if (meshing) gpuUploads.add(GpuUpload.unloaded(pos));
+        reachStage(pos, c, ChunkStage.UNLOADED);
+    }
+
+    /**
+     * Job ordering key for work on one chunk: squared distance from the player to the chunk
+     * centre, doubled for chunks behind the view direction so what is ahead shows up first.
+     */
+    double chunkPriorityKey(ChunkPos pos) {
+        float dx = (pos.x + 0.5f) * CHUNK_SIZE_X - player.pos.x;
+        float dy = (pos.y + 0.5f) * CHUNK_SIZE_Y - player.pos.y;
+        float dz = (pos.z + 0.5f) * CHUNK_SIZE_Z - player.pos.z;
+        double rad = Math.toRadians(player.yaw);
+        double d2 = dx * dx + dy * dy + dz * dz;
+        return (dx * Math.cos(rad) + dz * Math.sin(rad) < 0) ? 2 * d2 : d2;
+    }
+
+    /** Level the renderer should currently show for a chunk (0 = full detail). */
+    public int lodLevel(ChunkPos pos) {
+        Integer l = lodLevels.get(pos);
+        return (l == null) ? 0 : l;
+    }
+
+    /** Cached pyramid for a chunk, rebuilt if the chunk changed since it was built. */
+    ChunkLod lodFor(ChunkPos pos, Chunk c) {
+        ChunkLod lod = lods.get(pos);
+        if (lod == null || lod.sourceVersion != c.version) {
+            lod = ChunkLod.build(pos, c);
+            lods.put(pos, lod);
+        }
+        return lod;
+    }
+
+    /**
+     * Relight then remesh one chunk: MeshJob runs as a continuation of the LightJob.
+     * Repeated edits before the queued LightJob starts collapse into that one pair.
+     */
+    private JobHandle scheduleRelight(ChunkPos pos, Chunk c) {
+        JobHandle h = pendingLight.get(pos);
+        if (h != null && !h.isStarted()) return h;
+        if ((h == null || h.isDone()) && settleEmpty(pos, c)) return JobHandle.DONE;
+        JobHandle light = jobs.submit(new LightJob(this, pos, c.jobs));
+        pendingLight.put(pos, light);
+        jobs.submit(new MeshJob(this, pos, c.jobs), light);
+        return light;
+    }
+
+    /**
+     * Lights and "meshes" an all-air chunk in place when the light entering it is uniform (open
+     * sky, or none): every cell gets that value and there is nothing to draw, so the LightJob /
+     * MeshJob pair would only hash, look up and cache an empty mesh. False, and nothing done, if
+     * the chunk has voxels, its input varies by column or the chunk above is not lit yet.
+     */
+    private boolean settleEmpty(ChunkPos pos, Chunk c) {
+        if (!c.isEmpty()) return false;
+        Chunk above = chunks.get(new ChunkPos(pos.x, pos.y + 1, pos.z));
+        if (above != null && above.lightStale) return false; // lighting it is a job's work
+        byte[] in = lightInput(pos);
+        byte v = in[0];
+        if (v != 0 && v != MAX_LIGHT) return false;
+        for (byte b : in) if (b != v) return false;
+        byte[] light = new byte[CHUNK_SIZE_X * CHUNK_SIZE_Y * CHUNK_SIZE_Z];
+        if (v != 0) Arrays.fill(light, v);
+        synchronized (c) { // set() holds it too: a block placed meanwhile schedules its own pair after us
+            if (!c.isEmpty()) return false;
+            c.lightStale = false;
+            c.lightIn = in;
+            c.publishLight(light);
+            c.takeDirty();
+            c.visibility = SectionVisibility.ALL_CONNECTED;
+            reachStage(pos, c, ChunkStage.LIT);
+            post(c, c.meshTicket(), new GpuUpload(pos, null, SectionVisibility.ALL_CONNECTED));
+            reachStage(pos, c, ChunkStage.MESHED);
+        }
+        ChunkPos downPos = new ChunkPos(pos.x, pos.y - 1, pos.z);
+        Chunk down = chunks.get(downPos);
+        byte[] downIn = (down != null) ? down.lightIn : null;
+        if (downIn != null && !Arrays.equals(downIn, c.lightOut())) scheduleRelight(downPos, down);
+        return true;
+    }
+
+    /** Remesh only: a neighbor's edit changed faces on our border (light below follows via relight). */
+    private void remeshIfLoaded(ChunkPos pos) {
+        Chunk c = chunks.get(pos);
+        if (c == null || c.isEmpty()) return; // no faces of its own, whatever the neighbor did
+        c.markDirty();
+        JobHandle h = pendingLight.get(pos);
+        if (h != null && !h.isStarted()) return; // its MeshJob continuation picks the change up
+        jobs.submit(new MeshJob(this, pos, c.jobs));
     }
 
+    /** Queues a cached full-detail mesh (or its LOD replacement) for {@code pos}; false on a miss. */
+    private boolean uploadCached(ChunkPos pos, Chunk c, long key, long ticket, CancellationToken token) {
+        MeshCache.Entry e = meshCache.get(key);
+        if (e == null) return false;
+        c.visibility = e.visibility;
+        int level = lodLevel(pos);
+        if (level > 0) { jobs.submit(new LodJob(this, pos, level, token)); return true; }
+        if (post(c, ticket, new GpuUpload(pos, e.mesh, e.visibility))) reachStage(pos, c, ChunkStage.MESHED);
+        return true;
+    }
+
+    /** Queues a full-detail upload drawn under {@code ticket}; false if a later ticket was posted already. */
+    private boolean post(Chunk c, long ticket, GpuUpload up) {
+        synchronized (c) {
+            if (ticket < c.postedTicket) return false;
+            c.postedTicket = ticket;
+            gpuUploads.add(up);
+            return true;
+        }
+    }
 
-    public void processChunkPipelines() { /* meshing is done via jobs as edits happen */ }
+    /**
+     * Light entering the top of chunk {@code pos}, per column (x + z*SX): the bottom layer of the
+     * chunk above, lit first if it never was. With nothing loaded above, columns see the open
+     * sky from {@link #TERRAIN_TOP} up and are dark below it, like the generated terrain.
+     */
+    byte[] lightInput(ChunkPos pos) {
+        ChunkPos up = new ChunkPos(pos.x, pos.y + 1, pos.z);
+        Chunk above = chunks.get(up);
+        if (above == null) {
+            byte[] in = new byte[CHUNK_SIZE_X * CHUNK_SIZE_Z];
+            if (up.y * CHUNK_SIZE_Y >= TERRAIN_TOP) Arrays.fill(in, (byte) MAX_LIGHT);
+            return in;
+        }
+        if (above.lightStale) LightJob.relight(this, up, above);
+        return above.lightOut();
+    }
 
     // ---- chunk management ----
-    public void requestInitialChunks(int cx, int cz, int radius) {
-        for (int dz=-radius; dz<=radius; dz++)
-            for (int dx=-radius; dx<=radius; dx++)
-                ensureChunk(cx+dx, cz+dz);
-    }
-
-    private Chunk ensureChunk(int cx, int cz) {
-        return chunks.computeIfAbsent(new ChunkPos(cx,cz), key -> {
-            Chunk c = new Chunk();
-            flatInit(cx, cz, c);     // simple flat terrain
-            // queue initial mesh
-            jobs.submit(new LightJob(this, key));
-            // jobs.submit(new MeshJob(this, key));
-            return c;
-        });
-    }
-
-    // flat world: y<12 stone, y==12 grass, 9..11 dirt
-    private void flatInit(int cx, int cz, Chunk c) {
-        for (int z=0; z<CHUNK_SIZE_Z; z++)
-            for (int x=0; x<CHUNK_SIZE_X; x++) {
-                for (int y=0; y<CHUNK_SIZE_Y; y++) {
-                    byte id = AIR;
-                    if (y < 9) id = STONE;
-                    else if (y < 12) id = DIRT;
-                    else if (y == 12) id = GRASS;
-                    c.set(x,y,z,id);
-                }
+    /** Loads every chunk within {@code radius} (Chebyshev, all three axes) of (cx,cy,cz). */
+    public void requestInitialChunks(int cx, int cy, int cz, int radius) {
+        for (int dy=-radius; dy<=radius; dy++)
+            for (int dz=-radius; dz<=radius; dz++)
+                for (int dx=-radius; dx<=radius; dx++)
+                    ensureChunk(cx+dx, cy+dy, cz+dz);
+    }
+
+    /**
+     * Loaded chunk at chunk coords, generating (and queueing its mesh) if needed. Generation
+     * runs outside the map, so threads loading different chunks never serialize on a map bin;
+     * two threads racing for the same chunk both generate and the loser's copy is dropped.
+     */
+    public Chunk ensureChunk(int cx, int cy, int cz) {
+        ChunkPos key = new ChunkPos(cx, cy, cz);
+        Chunk c = chunks.get(key);
+        return (c != null) ? c : install(key, generate(key), meshing);
+    }
+
+    private Chunk generate(ChunkPos key) {
+        Chunk c = new Chunk();
+        flatInit(key.y, c);            // simple flat terrain
+        if (journal != null) journal.applyTo(key, c); // persisted player edits on top
+        c.intern();
+        return c;
+    }
+
+    private Chunk install(ChunkPos key, Chunk fresh, boolean relight) {
+        Chunk prev = chunks.putIfAbsent(key, fresh);
+        if (prev != null) { fresh.discard(); return prev; } // lost the race: give back its pooled arrays
+        reachStage(key, fresh, ChunkStage.GENERATED);
+        if (relight) scheduleRelight(key, fresh);
+        return fresh;
+    }
+
+    /** Chunk count and wall time of each {@link #warmup} phase. */
+    public record WarmupStats(int chunks, long generateNs, long lightNs, long meshNs) {
+        @Override public String toString() {
+            return String.format("%d chunks | generate %.1f ms | light %.1f ms | mesh %.1f ms",
+                chunks, generateNs / 1e6, lightNs / 1e6, meshNs / 1e6);
+        }
+    }
+
+    /**
+     * Loads, lights and meshes every chunk within {@code radius} horizontally and {@code radiusY}
+     * vertically of (cx,cy,cz) before returning, one phase at a time so each spreads over all
+     * workers (the caller helps too). Light runs one layer at a time from the top, since every
+     * chunk takes its skylight from the one above. Meant for startup, before the sim thread runs;
+     * the meshes end up in {@link #gpuUploads} as usual.
+     */
+    public WarmupStats warmup(int cx, int cy, int cz, int radius, int radiusY) throws InterruptedException {
+        int side = 2 * radius + 1, layer = side * side, n = layer * (2 * radiusY + 1);
+        ChunkPos[] area = new ChunkPos[n];
+        JobHandle[] hs = new JobHandle[n];
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            // top layer first
+            ChunkPos pos = area[i] = new ChunkPos(cx + i % side - radius, cy + radiusY - i / layer, cz + (i / side) % side - radius);
+            hs[i] = jobs.submit(new Job() {
+                @Override public JobPriority priority() { return JobPriority.P0_CRITICAL; }
+                @Override public String name() { return "GenerateJob"; }
+                @Override public void run() { if (!chunks.containsKey(pos)) install(pos, generate(pos), false); }
+            });
+        }
+        jobs.awaitHelping(hs);
+
+        long t1 = System.nanoTime();
+        JobHandle[] lit = new JobHandle[layer];
+        boolean[] settled = new boolean[n];
+        for (int from = 0; from < n; from += layer) {
+            for (int i = 0; i < layer; i++) {
+                ChunkPos pos = area[from + i];
+                Chunk c = chunks.get(pos);
+                if (settled[from + i] = settleEmpty(pos, c)) { lit[i] = JobHandle.DONE; continue; } // sky: no jobs at all
+                lit[i] = jobs.submit(new LightJob(this, pos, c.jobs));
+                pendingLight.put(pos, lit[i]);
             }
+            jobs.awaitHelping(lit);
+        }
+
+        long t2 = System.nanoTime();
+        for (int i = 0; i < n; i++)
+            hs[i] = settled[i] ? JobHandle.DONE : jobs.submit(new MeshJob(this, area[i], chunks.get(area[i]).jobs));
+        jobs.awaitHelping(hs);
+
+        return new WarmupStats(n, t1 - t0, t2 - t1, System.nanoTime() - t2);
+    }
+
+    // flat world: y<9 stone (all the way down), 9..11 dirt, y==12 grass, air from TERRAIN_TOP up
+    private void flatInit(int cy, Chunk c) {
+        int y0 = cy * CHUNK_SIZE_Y;
+        if (y0 >= TERRAIN_TOP) return; // sky: nothing to set
+        for (int y=0; y<CHUNK_SIZE_Y; y++) {
+            int wy = y0 + y;
+            byte id = AIR;
+            if (wy < 9) id = STONE;
+            else if (wy < 12) id = DIRT;
+            else if (wy == 12) id = GRASS;
+            if (id == AIR) continue;
+            for (int z=0; z<CHUNK_SIZE_Z; z++)
+                for (int x=0; x<CHUNK_SIZE_X; x++)
+                    c.set(x,y,z,id);
+        }
+    }
+
+    public int loadedChunkCount() { return chunks.size(); }
+
+    /** Loaded chunks per pipeline stage (GENERATED, LIT, MESHED; indexed by ordinal) plus packed ones at PACKED. */
+    public int[] chunkCountsByStage() {
+        int[] n = new int[ChunkStage.values().length];
+        for (Chunk c : chunks.values()) {
+            n[c.stage.ordinal()]++;
+            if (c.isPacked()) n[ChunkStage.PACKED.ordinal()]++;
+        }
+        return n;
+    }
+
+    /** Loaded chunk at chunk coords, or null. */
+    public Chunk chunkAt(int cx, int cy, int cz) {
+        return chunks.get(new ChunkPos(cx, cy, cz));
     }
 
     // ---- voxel access (world coords) ----
     public boolean isSolid(int wx, int wy, int wz) {
-        byte id = getBlock(wx, wy, wz);
-        return id != AIR;
+        Chunk ch = chunks.get(new ChunkPos(floorDiv(wx, CHUNK_SIZE_X), floorDiv(wy, CHUNK_SIZE_Y), floorDiv(wz, CHUNK_SIZE_Z)));
+        return ch != null && ch.isSolid(floorMod(wx, CHUNK_SIZE_X), floorMod(wy, CHUNK_SIZE_Y), floorMod(wz, CHUNK_SIZE_Z));
     }
 
-    public byte getBlock(int wx, int wy, int wz) {
+    /**
+     * y of the topmost solid block at or below {@code wy} in column (wx,wz), looking through
+     * loaded chunks only; Integer.MIN_VALUE if there is none before an unloaded chunk.
+     */
+    public int heightAt(int wx, int wy, int wz) {
         int cx = floorDiv(wx, CHUNK_SIZE_X), cz = floorDiv(wz, CHUNK_SIZE_Z);
         int lx = floorMod(wx, CHUNK_SIZE_X), lz = floorMod(wz, CHUNK_SIZE_Z);
-        if (wy < 0 || wy >= CHUNK_SIZE_Y) return AIR;
-        Chunk ch = chunks.get(new ChunkPos(cx,cz));
+        for (int cy = floorDiv(wy, CHUNK_SIZE_Y); ; cy--, wy = cy * CHUNK_SIZE_Y + CHUNK_SIZE_Y - 1) {
+            Chunk ch = chunks.get(new ChunkPos(cx, cy, cz));
+            if (ch == null) return Integer.MIN_VALUE;
+            int col = ch.solidColumn(lx, lz) & (-1 >>> (31 - (wy - cy * CHUNK_SIZE_Y)));
+            if (col != 0) return cy * CHUNK_SIZE_Y + 31 - Integer.numberOfLeadingZeros(col);
+        }
+    }
+
+    public byte getBlock(int wx, int wy, int wz) {
+        Chunk ch = chunks.get(new ChunkPos(floorDiv(wx, CHUNK_SIZE_X), floorDiv(wy, CHUNK_SIZE_Y), floorDiv(wz, CHUNK_SIZE_Z)));
         if (ch == null) return AIR;
-        return ch.get(lx, wy, lz);
+        return ch.get(floorMod(wx, CHUNK_SIZE_X), floorMod(wy, CHUNK_SIZE_Y), floorMod(wz, CHUNK_SIZE_Z));
     }
 
     public void setBlock(int wx, int wy, int wz, byte id) {
-    	int cx = floorDiv(wx, CHUNK_SIZE_X), cz = floorDiv(wz, CHUNK_SIZE_Z);
-        int lx = floorMod(wx, CHUNK_SIZE_X), lz = floorMod(wz, CHUNK_SIZE_Z);
-        if (wy < 0 || wy >= CHUNK_SIZE_Y) return;
-
-        ChunkPos key = new ChunkPos(cx,cz);
-        Chunk ch = ensureChunk(cx, cz);
-        ch.set(lx, wy, lz, id);
-
-        // 1) recompute lighting in this chunk (and neighbors at borders)
-        jobs.submit(new LightJob(this, key));
-        if (lx==0)                 jobs.submit(new LightJob(this, new ChunkPos(cx-1,cz)));
-        if (lx==CHUNK_SIZE_X-1)    jobs.submit(new LightJob(this, new ChunkPos(cx+1,cz)));
-        if (lz==0)                 jobs.submit(new LightJob(this, new ChunkPos(cx,cz-1)));
-        if (lz==CHUNK_SIZE_Z-1)    jobs.submit(new LightJob(this, new ChunkPos(cx,cz+1)));
-
-        // 2) then rebuild meshes that use those light values
-        // jobs.submit(new MeshJob(this, key));
-        // if (lx==0)                 jobs.submit(new MeshJob(this, new ChunkPos(cx-1,cz)));
-        // if (lx==CHUNK_SIZE_X-1)    jobs.submit(new MeshJob(this, new ChunkPos(cx+1,cz)));
-        // if (lz==0)                 jobs.submit(new MeshJob(this, new ChunkPos(cx,cz-1)));
-        // if (lz==CHUNK_SIZE_Z-1)    jobs.submit(new MeshJob(this, new ChunkPos(cx,cz+1)));
+    	int cx = floorDiv(wx, CHUNK_SIZE_X), cy = floorDiv(wy, CHUNK_SIZE_Y), cz = floorDiv(wz, CHUNK_SIZE_Z);
+        int lx = floorMod(wx, CHUNK_SIZE_X), ly = floorMod(wy, CHUNK_SIZE_Y), lz = floorMod(wz, CHUNK_SIZE_Z);
+
+        ChunkPos key = new ChunkPos(cx,cy,cz);
+        Chunk ch = ensureChunk(cx, cy, cz);
+        ch.set(lx, ly, lz, id);
+        if (journal != null) journal.append(wx, wy, wz, id);
+        for (BlockListener l : blockListeners) l.onBlockChanged(wx, wy, wz, id);
+        if (!meshing) return;
+
+        ch.markDirty();
+        scheduleRelight(key, ch);
+
+        // neighbors sharing the block's faces; all of these jobs can run in parallel
+        if (lx==0)                 remeshIfLoaded(new ChunkPos(cx-1,cy,cz));
+        if (lx==CHUNK_SIZE_X-1)    remeshIfLoaded(new ChunkPos(cx+1,cy,cz));
+        if (ly==0)                 remeshIfLoaded(new ChunkPos(cx,cy-1,cz));
+        if (ly==CHUNK_SIZE_Y-1)    remeshIfLoaded(new ChunkPos(cx,cy+1,cz));
+        if (lz==0)                 remeshIfLoaded(new ChunkPos(cx,cy,cz-1));
+        if (lz==CHUNK_SIZE_Z-1)    remeshIfLoaded(new ChunkPos(cx,cy,cz+1));
     }
 
     private static int floorDiv(int a, int b) { int q = a / b; int r = a % b; return (r<0)?(q-1):q; }
@@ -165,250 +646,656 @@ public class World {
     public static final class RayHit { public final int x,y,z, nx,ny,nz; RayHit(int x,int y,int z,int nx,int ny,int nz){ this.x=x; this.y=y; this.z=z; this.nx=nx; this.ny=ny; this.nz=nz; } }
     public RayHit raycast(Player p, float maxDist) {
         // Eye position slightly below player height
-    	float ex = p.pos.x, ey = p.pos.y + PLAYER_EYE_HEIGHT /2f, ez = p.pos.z;
+        float ex = p.pos.x, ey = p.pos.y + PLAYER_EYE_HEIGHT /2f, ez = p.pos.z;
         // Forward direction from yaw/pitch
         float cy=(float)Math.cos(Math.toRadians(p.yaw)), sy=(float)Math.sin(Math.toRadians(p.yaw));
         float cp=(float)Math.cos(Math.toRadians(p.pitch)), sp=(float)Math.sin(Math.toRadians(p.pitch));
-        float dx=cy*cp, dy=sp, dz=sy*cp;
-
-        // DDA
-        int cx = (int)Math.floor(ex), cyi = (int)Math.floor(ey), cz = (int)Math.floor(ez);
-        int stepX = dx>0?1:-1, stepY = dy>0?1:-1, stepZ = dz>0?1:-1;
-        float tDeltaX = (dx==0)?Float.MAX_VALUE:Math.abs(1f/dx);
-        float tDeltaY = (dy==0)?Float.MAX_VALUE:Math.abs(1f/dy);
-        float tDeltaZ = (dz==0)?Float.MAX_VALUE:Math.abs(1f/dz);
-        float tMaxX = ((dx>0)?( (cx+1)-ex ):( ex-cx )) * tDeltaX;
-        float tMaxY = ((dy>0)?( (cyi+1)-ey):( ey-cyi)) * tDeltaY;
-        float tMaxZ = ((dz>0)?( (cz+1)-ez):( ez-cz)) * tDeltaZ;
-
-        int nx=0, ny=0, nz=0;
-        float t=0;
-        while (t <= maxDist) {
-            if (isSolid(cx,cyi,cz)) return new RayHit(cx,cyi,cz, -nx,-ny,-nz); // normal is opposite of step that entered
-            if (tMaxX < tMaxY) {
-                if (tMaxX < tMaxZ) { cx += stepX; t = tMaxX; tMaxX += tDeltaX; nx = stepX; ny = nz = 0; }
-                else { cz += stepZ; t = tMaxZ; tMaxZ += tDeltaZ; nz = stepZ; nx = ny = 0; }
-            } else {
-                if (tMaxY < tMaxZ) { cyi += stepY; t = tMaxY; tMaxY += tDeltaY; ny = stepY; nx = nz = 0; }
-                else { cz += stepZ; t = tMaxZ; tMaxZ += tDeltaZ; nz = stepZ; nx = ny = 0; }
-            }
-        }
-        return null;
+        return rays.cast(ex, ey, ez, cy*cp, sp, sy*cp, maxDist);
     }
 
     // ---- chunk + storage ----
     public static final class Chunk {
-        // Flat byte array: x + z*SX + y*SX*SZ
-        private final byte[] vox   = new byte[CHUNK_SIZE_X * CHUNK_SIZE_Y * CHUNK_SIZE_Z];
-
-        // Per-block light value (0–15)
-        private final byte[] light = new byte[vox.length];
-
-        private static int idx(int x,int y,int z) {
+        // Flat byte array: x + z*SX + y*SX*SZ; null while the chunk is packed (cold tier)
+        private volatile byte[] vox   = new byte[CHUNK_SIZE_X * CHUNK_SIZE_Y * CHUNK_SIZE_Z];
+
+        // Per-block light value (0–15); packed and inflated together with vox.
+        // Copy-on-write: relight fills a fresh array and swaps it in, so readers never see it half-built
+        private volatile byte[] light = new byte[CHUNK_SIZE_X * CHUNK_SIZE_Y * CHUNK_SIZE_Z];
+
+        // vox / light is a SharedArrays entry (read-only; set() copies before writing); guarded by this.
+        // After discard() the references are gone, and nothing more is pooled.
+        private boolean voxShared, lightShared, discarded;
+
+        // Seqlock stamp: odd while set() is writing. Readers record it, read without locking
+        // and re-check; set() is the only writer (under the monitor).
+        private volatile int stamp;
+
+        // cold tier: vox runs then light runs (ChunkCodec.packRuns); guarded by this
+        private byte[] packed;
+        private Telemetry coldTm;
+        // sim thread bookkeeping for World.updateColdTier
+        int coldTicks, coldVersion;
+        volatile boolean coldQueued;
+
+        // Non-air voxels; 0 lets raycasts and meshing skip the chunk
+        private int count;
+
+        // Mesh is out of date; each MeshJob clears it before reading the chunk
+        private final AtomicBoolean dirty = new AtomicBoolean(true);
+        // Upload order: a MeshJob draws a ticket right after clearing dirty, and its mesh is only
+        // posted if no later ticket was posted first (a slower job that read older content loses).
+        // Guarded by this
+        private long meshTickets, postedTicket;
+        // SectionVisibility mask as last meshed
+        volatile int visibility;
+
+        // Solidity bitmask per (x,z) column: bit y of solid[x + z*SX] (CHUNK_SIZE_Y = 16 bits).
+        // Stays resident while the chunk is packed.
+        private final char[] solid = new char[CHUNK_SIZE_X * CHUNK_SIZE_Z];
+        // 1 + y of the topmost solid voxel in the chunk (0 = empty); kept by set()
+        private int maxHeight;
+
+        // Light that entered through the top face at the last relight, per column (see World.lightInput);
+        // null until the chunk was first lit. The chunk below compares against it to know when to relight.
+        volatile byte[] lightIn;
+
+        static int idx(int x,int y,int z) {
             return x + z * CHUNK_SIZE_X + y * CHUNK_SIZE_X * CHUNK_SIZE_Z;
         }
+        static int lx(int idx) { return idx % CHUNK_SIZE_X; }
+        static int lz(int idx) { return (idx / CHUNK_SIZE_X) % CHUNK_SIZE_Z; }
+        static int ly(int idx) { return idx / (CHUNK_SIZE_X * CHUNK_SIZE_Z); }
 
         public byte get(int x,int y,int z) {
-            return vox[idx(x,y,z)];
+            byte[] v = vox;
+            return (v != null ? v : inflate(true)[0])[idx(x,y,z)];
+        }
+
+        /** Raw voxel ids in idx() order; read-only view for hashing. */
+        byte[] voxels() {
+            byte[] v = vox;
+            return v != null ? v : inflate(true)[0];
+        }
+
+        // light was never computed for this content: a fresh chunk, or its mesh came from MeshCache
+        volatile boolean lightStale = true;
+
+        // cancelled on unload; shared by every job queued for this chunk
+        final CancellationToken jobs = new CancellationToken();
+
+        // furthest pipeline stage reached (GENERATED, LIT or MESHED); cold-tier moves are not kept here
+        volatile ChunkStage stage = ChunkStage.GENERATED;
+
+        // bumped on every write; lets derived data (LOD pyramids) detect staleness
+        volatile int version;
+
+        public synchronized void set(int x,int y,int z, byte id) {
+            byte[] v = voxels();
+            if (voxShared) { // copy on write; readers of the pooled array keep their view
+                vox = v = discarded ? v.clone() : SharedArrays.POOL.unshare(v);
+                voxShared = false;
+            }
+            int i = idx(x,y,z), s = stamp;
+            stamp = s + 1;
+            VarHandle.storeStoreFence();
+            byte prev = v[i];
+            v[i] = id;
+            if (prev == AIR && id != AIR)      count++;
+            else if (prev != AIR && id == AIR) count--;
+            int col = x + z * CHUNK_SIZE_X;
+            if (id != AIR) {
+                solid[col] = (char) (solid[col] | (1 << y));
+                if (y + 1 > maxHeight) maxHeight = y + 1;
+            } else {
+                solid[col] = (char) (solid[col] & ~(1 << y));
+                if (y + 1 == maxHeight) { // the top layer may have emptied: OR the columns together
+                    int any = 0;
+                    for (char c : solid) any |= c;
+                    maxHeight = 32 - Integer.numberOfLeadingZeros(any);
+                }
+            }
+            stamp = s + 2;
+            version++;
         }
 
-        public void set(int x,int y,int z, byte id) {
-            vox[idx(x,y,z)] = id;
+        /** 1 + y of the topmost solid voxel in column (x,z); 0 if the column is empty. */
+        public int height(int x, int z) { return 32 - Integer.numberOfLeadingZeros(solid[x + z * CHUNK_SIZE_X]); }
+
+        /** Largest {@link #height} in the chunk: everything from this y up is air. */
+        public int maxHeight() { return maxHeight; }
+
+        /** Records the stamp before an optimistic read (waits out an in-flight set()). */
+        int readStamp() {
+            int s;
+            while (((s = stamp) & 1) != 0) Thread.onSpinWait();
+            return s;
+        }
+
+        /** True if nothing changed since {@link #readStamp}; everything read in between is consistent. */
+        boolean validate(int recorded) {
+            VarHandle.loadLoadFence();
+            return stamp == recorded;
+        }
+
+        public boolean isEmpty() {
+            return count == 0;
+        }
+
+        void markDirty() { dirty.set(true); }
+
+        /** True if the mesh was out of date; the caller meshes the chunk. */
+        boolean takeDirty() { return dirty.getAndSet(false); }
+
+        synchronized long meshTicket() { return ++meshTickets; }
+
+        /** Solidity of column (x,z), bit y set for a solid voxel at y. */
+        int solidColumn(int x, int z) {
+            return solid[x + z * CHUNK_SIZE_X];
+        }
+
+        public boolean isSolid(int x, int y, int z) {
+            return (solid[x + z * CHUNK_SIZE_X] & (1 << y)) != 0;
+        }
+
+        /** Any solid voxel in column (x,z) for y0..y1 inclusive (both inside the chunk). */
+        boolean anySolid(int x, int z, int y0, int y1) {
+            return (solid[x + z * CHUNK_SIZE_X] & (-1 << y0) & (-1 >>> (31 - y1))) != 0;
         }
 
         public byte getLight(int x,int y,int z) {
-            return light[idx(x,y,z)];
+            byte[] l = light;
+            return (l != null ? l : inflate(true)[1])[idx(x,y,z)];
+        }
+
+        /** The current light array; stays valid (and unchanged) for as long as the caller holds it. */
+        byte[] lightSnapshot() {
+            byte[] l = light;
+            return l != null ? l : inflate(true)[1];
+        }
+
+        /** Light leaving through the bottom face per column: the bottom layer, 0 under solid voxels. */
+        byte[] lightOut() {
+            byte[] l = lightSnapshot();
+            byte[] out = new byte[CHUNK_SIZE_X * CHUNK_SIZE_Z];
+            for (int col = 0; col < out.length; col++) out[col] = ((solid[col] & 1) != 0) ? 0 : l[col];
+            return out;
+        }
+
+        /**
+         * Swaps in a freshly computed light array and marks the chunk dirty if it changed.
+         * Caller holds the monitor (relight does).
+         */
+        void publishLight(byte[] l) {
+            byte[] old = lightSnapshot(); // inflates first if packed, so light and vox stay together
+            boolean wasShared = lightShared;
+            byte[] p = pool(l);
+            lightShared = p != null;
+            light = lightShared ? p : l;
+            if (wasShared && !discarded) SharedArrays.POOL.release(old);
+            if (!Arrays.equals(old, l)) markDirty();
+        }
+
+        /**
+         * Swaps vox and light for the pooled arrays of the same content, so identical chunks hold
+         * one copy. Called once a chunk's content is complete (generated, or inflated).
+         */
+        synchronized void intern() {
+            if (vox == null) return;
+            if (!voxShared) { byte[] p = pool(vox); if (p != null) { vox = p; voxShared = true; } }
+            if (!lightShared) { byte[] p = pool(light); if (p != null) { light = p; lightShared = true; } }
+        }
+
+        /** Both arrays are pooled: packing would not save anything. Unsynchronized; a hint for the cold tier. */
+        boolean isShared() { return voxShared && lightShared; }
+
+        private byte[] pool(byte[] a) { return discarded ? null : SharedArrays.POOL.acquire(a); }
+
+        private void unpool() {
+            if (discarded) return;
+            if (voxShared) SharedArrays.POOL.release(vox);
+            if (lightShared) SharedArrays.POOL.release(light);
+        }
+
+        public boolean isPacked() { return vox == null; }
+
+        /** Size of the packed runs; 0 unless packed. */
+        synchronized int packedBytes() { return packed != null ? packed.length : 0; }
+
+        /**
+         * Moves vox + light into compact runs; false if already packed or the chunk does not
+         * shrink to {@code scratch}'s capacity. Readers holding the old arrays keep a valid view.
+         */
+        synchronized boolean pack(ByteBuffer scratch, Telemetry tm) {
+            if (vox == null) return false;
+            scratch.clear();
+            if (!ChunkCodec.packRuns(vox, scratch) || !ChunkCodec.packRuns(light, scratch)) return false;
+            packed = Arrays.copyOf(scratch.array(), scratch.position());
+            unpool();
+            voxShared = lightShared = false;
+            coldTm = tm;
+            vox = null;
+            light = null;
+            if (tm != null) tm.addColdChunks(1, packed.length);
+            return true;
         }
 
-        public void setLight(int x,int y,int z, byte v) {
-            light[idx(x,y,z)] = v;
+        /** Restores vox + light; {@code demand} = a reader hit the packed chunk (a cold-tier miss). */
+        synchronized byte[][] inflate(boolean demand) {
+            if (vox == null) {
+                long t0 = System.nanoTime();
+                ByteBuffer in = ByteBuffer.wrap(packed);
+                byte[] v = new byte[ChunkCodec.VOXELS], l = new byte[ChunkCodec.VOXELS];
+                ChunkCodec.unpackRuns(in, v);
+                ChunkCodec.unpackRuns(in, l);
+                light = l;
+                vox = v;
+                intern();
+                if (coldTm != null) {
+                    coldTm.addColdChunks(-1, -packed.length);
+                    coldTm.recordChunkInflate(System.nanoTime() - t0, demand);
+                }
+                packed = null;
+            }
+            return new byte[][] { vox, light };
+        }
+
+        /** Forgets packed data and pooled references on unload (keeps the gauges honest). */
+        synchronized void discard() {
+            if (packed != null && coldTm != null) coldTm.addColdChunks(-1, -packed.length);
+            coldTm = null; // a straggling job may still inflate it; just stop reporting
+            unpool(); // the flags stay: set() still has to copy a pooled array
+            discarded = true;
         }
     }
 
     
     public static final class ChunkPos {
-        public final int x,z;
-        public ChunkPos(int x,int z){ this.x=x; this.z=z; }
-        @Override public boolean equals(Object o){ return (o instanceof ChunkPos p) && p.x==x && p.z==z; }
-        @Override public int hashCode(){ return (x*73471) ^ z; }
+        public final int x,y,z;
+        public ChunkPos(int x,int y,int z){ this.x=x; this.y=y; this.z=z; }
+        /** Chebyshev distance in chunks to (cx,cy,cz). */
+        public int distance(int cx, int cy, int cz) {
+            return Math.max(Math.abs(x - cx), Math.max(Math.abs(y - cy), Math.abs(z - cz)));
+        }
+        @Override public boolean equals(Object o){ return (o instanceof ChunkPos p) && p.x==x && p.y==y && p.z==z; }
+        @Override public int hashCode(){ return (x*73471) ^ (y*19349663) ^ z; }
     }
 
-    // CPU-side geometry package. Vertex layout: xyz rgb (6 floats)
+    // CPU-side geometry package. Vertex layout: xyz rgb (6 floats), xyz chunk-local
     public static final class MeshBlob {
         public final float[] vertices;
         public final int[] indices;
-        public MeshBlob(float[] v, int[] i){ this.vertices=v; this.indices=i; }
+        public final long contentHash; // identical geometry → identical hash; lets the renderer share GPU buffers
+        public MeshBlob(float[] v, int[] i){ this.vertices=v; this.indices=i; this.contentHash=hash(v, i); }
+
+        private static long hash(float[] v, int[] idx) {
+            long h = 0xCBF29CE484222325L ^ ((long) v.length << 32 | idx.length);
+            for (float f : v) h = Long.rotateLeft(h ^ Float.floatToRawIntBits(f), 27) * 0x9E3779B97F4A7C15L;
+            for (int i : idx) h = Long.rotateLeft(h ^ i, 27) * 0x9E3779B97F4A7C15L;
+            return h ^ (h >>> 31);
+        }
     }
 
     // ---- meshing job (naive face culling) ----
     static final class MeshJob implements Job {
+        private static final int OPTIMISTIC_TRIES = 3;
         private final World w;
         private final ChunkPos pos;
+        private final CancellationToken token;
 
-        MeshJob(World w, ChunkPos pos) {
+        MeshJob(World w, ChunkPos pos, CancellationToken token) {
             this.w = w;
             this.pos = pos;
+            this.token = token;
         }
 
         @Override
         public JobPriority priority() {
-            return JobPriority.P0_CRITICAL;
+            return JobPriority.P1_HIGH;
         }
 
+        @Override public double priorityKey() { return w.chunkPriorityKey(pos); }
+        @Override public boolean isCancelled() { return token.isCancelled(); }
+
         @Override
         public void run() {
             Chunk c = w.chunks.get(pos);
             if (c == null) return;
+            if (!c.takeDirty()) return; // an earlier job already meshed this content
+            long ticket = c.meshTicket();
+
+            int version = c.version;
+            long key = 0;
+            if (w.meshCache != null) {
+                byte[] in = c.lightIn;
+                key = MeshCache.key(w, pos, c, (in != null) ? in : w.lightInput(pos));
+                if (w.uploadCached(pos, c, key, ticket, token)) return;
+            }
+            if (c.lightStale) { // content came from the cache so far
+                LightJob.relight(w, pos, c);
+                c.takeDirty();
+                if (w.meshCache != null) key = MeshCache.key(w, pos, c, c.lightIn);
+            }
+
+            // neighbors across the six faces; a missing chunk reads as air. Neighbors are not
+            // stamped: an edit on their border queues a remesh of this chunk anyway
+            Chunk east  = w.chunkAt(pos.x + 1, pos.y, pos.z);
+            Chunk west  = w.chunkAt(pos.x - 1, pos.y, pos.z);
+            Chunk up    = w.chunkAt(pos.x, pos.y + 1, pos.z);
+            Chunk down  = w.chunkAt(pos.x, pos.y - 1, pos.z);
+            Chunk south = w.chunkAt(pos.x, pos.y, pos.z + 1);
+            Chunk north = w.chunkAt(pos.x, pos.y, pos.z - 1);
+
+            // optimistic read: mesh, then check the chunk did not change meanwhile; after a few
+            // collisions with edits, mesh under the chunk monitor (blocks set() on this chunk only)
+            MeshBlob mesh;
+            int vis;
+            for (int attempt = 0; ; attempt++) {
+                if (attempt == OPTIMISTIC_TRIES) {
+                    synchronized (c) {
+                        mesh = build(c, c.lightSnapshot(), east, west, up, down, south, north);
+                        vis = SectionVisibility.compute(c);
+                    }
+                    break;
+                }
+                int stamp = c.readStamp();
+                mesh = build(c, c.lightSnapshot(), east, west, up, down, south, north);
+                vis = SectionVisibility.compute(c);
+                if (c.validate(stamp)) break;
+            }
+            c.visibility = vis;
+            // only cache if nobody edited the chunk while we were reading it
+            if (w.meshCache != null && c.version == version) w.meshCache.put(key, mesh, vis, w.jobs);
+
+            // far chunks stay on their low-poly mesh; refresh that one instead
+            int level = w.lodLevel(pos);
+            if (level > 0) { w.jobs.submit(new LodJob(w, pos, level, token)); return; }
+            if (token.isCancelled()) return;
+            if (w.post(c, ticket, new GpuUpload(pos, mesh, vis))) reachStage(pos, c, ChunkStage.MESHED);
+        }
 
-            // build faces only where neighbor is air (including across chunk borders)
-            FloatArray va = new FloatArray(32_000);
-            IntArray ia = new IntArray(48_000);
+        /**
+         * Faces only where the neighbor is air (including across chunk borders); chunk-local
+         * positions. Null when nothing is exposed (empty or buried chunk).
+         */
+        static MeshBlob build(Chunk c, byte[] light, Chunk east, Chunk west, Chunk up, Chunk down,
+                              Chunk south, Chunk north) {
+            if (c.isEmpty()) return null;
+            FloatArray va = new FloatArray(4_096);
+            IntArray ia = new IntArray(6_144);
 
             final int SX = CHUNK_SIZE_X, SY = CHUNK_SIZE_Y, SZ = CHUNK_SIZE_Z;
-            int baseX = pos.x * SX, baseZ = pos.z * SZ;
 
-            for (int y = 0; y < SY; y++)
-                for (int z = 0; z < SZ; z++)
-                    for (int x = 0; x < SX; x++) {
+            // Exposed faces a whole column at a time: exposed = solid & ~neighborSolid,
+            // with +Y/-Y as shifts within the column (and the facing layer of the chunk above/below).
+            int[] exposed = new int[6];
+            for (int z = 0; z < SZ; z++)
+                for (int x = 0; x < SX; x++) {
+                    int s = c.solidColumn(x, z);
+                    if (s == 0) continue;
+
+                    int above = column(up, x, z) & 1;            // its bottom layer
+                    int below = column(down, x, z) >>> (SY - 1); // its top layer
+
+                    exposed[0] = s & ~((x + 1 < SX) ? c.solidColumn(x + 1, z) : column(east, 0, z));
+                    exposed[1] = s & ~((x > 0) ? c.solidColumn(x - 1, z) : column(west, SX - 1, z));
+                    exposed[2] = s & ~((s >>> 1) | (above << (SY - 1)));
+                    exposed[3] = s & ~((s << 1) | below);
+                    exposed[4] = s & ~((z + 1 < SZ) ? c.solidColumn(x, z + 1) : column(south, x, 0));
+                    exposed[5] = s & ~((z > 0) ? c.solidColumn(x, z - 1) : column(north, x, SZ - 1));
+
+                    int any = exposed[0] | exposed[1] | exposed[2] | exposed[3] | exposed[4] | exposed[5];
+                    // per-voxel work only for voxels that actually emit something
+                    while (any != 0) {
+                        int y = Integer.numberOfTrailingZeros(any);
+                        any &= any - 1;
+
                         byte id = c.get(x, y, z);
-                        if (id == AIR) continue;
-
-                        float[] col = colorFor(id);
-
-                        // Sample light from this cell and its neighbors, take max
-                        int maxLight = c.getLight(x, y, z) & 0xFF;
-
-                        int[] dxs = { 1, -1, 0, 0, 0, 0 };
-                        int[] dys = { 0, 0, 1, -1, 0, 0 };
-                        int[] dzs = { 0, 0, 0, 0, 1, -1 };
-
-                        for (int i = 0; i < 6; i++) {
-                            int nx = x + dxs[i];
-                            int ny = y + dys[i];
-                            int nz = z + dzs[i];
-                            if (nx < 0 || nx >= SX || ny < 0 || ny >= SY || nz < 0 || nz >= SZ)
-                                continue;
-                            int nL = c.getLight(nx, ny, nz) & 0xFF;
-                            if (nL > maxLight) maxLight = nL;
-                        }
-
-                        // 0–15 → 0.2–1.0 brightness
-                        float blockLight = 0.2f + 0.8f * (maxLight / (float) MAX_LIGHT);
-
-                        int wx = baseX + x;
-                        int wy = y;
-                        int wz = baseZ + z;
-
-                        emitIfAir(w, wx, wy, wz,  1, 0, 0, va, ia, col, blockLight); // +X
-                        emitIfAir(w, wx, wy, wz, -1, 0, 0, va, ia, col, blockLight); // -X
-                        emitIfAir(w, wx, wy, wz,  0, 1, 0, va, ia, col, blockLight); // +Y
-                        emitIfAir(w, wx, wy, wz,  0,-1, 0, va, ia, col, blockLight); // -Y
-                        emitIfAir(w, wx, wy, wz,  0, 0, 1, va, ia, col, blockLight); // +Z
-                        emitIfAir(w, wx, wy, wz,  0, 0,-1, va, ia, col, blockLight); // -Z
+                        float[] color = colorFor(id);
+                        float blockLight = sampleLight(light, x, y, z);
+
+                        float cx = x + 0.5f, cy = y + 0.5f, cz = z + 0.5f;
+                        int m = 1 << y;
+                        for (int f = 0; f < 6; f++)
+                            if ((exposed[f] & m) != 0)
+                                emitFace(va, ia, cx, cy, cz, 0.5f, FACE_DX[f], FACE_DY[f], FACE_DZ[f], color, blockLight);
                     }
-            //w.jobs.submit(new MeshJob(w, pos));
+                }
+            return (ia.size() == 0) ? null : new MeshBlob(va.toArray(), ia.toArray());
+        }
 
-            w.gpuUploads.add(new GpuUpload(pos, new MeshBlob(va.toArray(), ia.toArray())));
+        private static int column(Chunk c, int x, int z) {
+            return (c == null) ? 0 : c.solidColumn(x, z);
         }
 
-        private float[] colorFor(byte id) {
-            if (id == GRASS) return new float[] { 0.2f, 0.8f, 0.2f };
-            if (id == DIRT)  return new float[] { 0.5f, 0.35f, 0.2f };
-            if (id == STONE) return new float[] { 0.6f, 0.6f, 0.65f };
-            return new float[] { 1f, 1f, 1f };
+        // Sample light from this cell and its neighbors inside the chunk, take max; 0–15 → 0.2–1.0
+        private static float sampleLight(byte[] light, int x, int y, int z) {
+            int maxLight = light[Chunk.idx(x, y, z)] & 0xFF;
+            for (int i = 0; i < 6; i++) {
+                int nx = x + FACE_DX[i], ny = y + FACE_DY[i], nz = z + FACE_DZ[i];
+                if (nx < 0 || nx >= CHUNK_SIZE_X || ny < 0 || ny >= CHUNK_SIZE_Y || nz < 0 || nz >= CHUNK_SIZE_Z)
+                    continue;
+                int nL = light[Chunk.idx(nx, ny, nz)] & 0xFF;
+                if (nL > maxLight) maxLight = nL;
+            }
+            return 0.2f + 0.8f * (maxLight / (float) MAX_LIGHT);
         }
+    }
 
-        private void emitIfAir(World w, int wx, int wy, int wz,
-                               int nx, int ny, int nz,
-                               FloatArray va, IntArray ia,
-                               float[] col, float blockLight) {
-            int ax = wx + nx, ay = wy + ny, az = wz + nz;
-            if (ay < 0 || ay >= CHUNK_SIZE_Y || !w.isSolid(ax, ay, az)) {
+    // ---- shared face emission (full-res mesher + LOD mesher) ----
+    // face order: +X, -X, +Y, -Y, +Z, -Z (shared with SectionVisibility)
+    public static final int[] FACE_DX = { 1, -1, 0, 0, 0, 0 };
+    public static final int[] FACE_DY = { 0, 0, 1, -1, 0, 0 };
+    public static final int[] FACE_DZ = { 0, 0, 0, 0, 1, -1 };
+
+    private static final float[] COL_GRASS = { 0.2f, 0.8f, 0.2f };
+    private static final float[] COL_DIRT  = { 0.5f, 0.35f, 0.2f };
+    private static final float[] COL_STONE = { 0.6f, 0.6f, 0.65f };
+    private static final float[] COL_OTHER = { 1f, 1f, 1f };
+
+    static float[] colorFor(byte id) {
+        if (id == GRASS) return COL_GRASS;
+        if (id == DIRT)  return COL_DIRT;
+        if (id == STONE) return COL_STONE;
+        return COL_OTHER;
+    }
 
-                // directional shade (sun straight up)
-                float dirShade;
-                if (ny > 0)       dirShade = 1.0f;  // top
-                else if (ny < 0)  dirShade = 0.4f;  // bottom
-                else if (nx != 0) dirShade = 0.7f;  // east/west
-                else              dirShade = 0.85f; // north/south
+    /** Emits one quad of a cube centered at (x,y,z) with half-size s, facing (nx,ny,nz). */
+    static void emitFace(FloatArray va, IntArray ia, float x, float y, float z, float s,
+                         int nx, int ny, int nz, float[] col, float blockLight) {
+        // directional shade (sun straight up)
+        float dirShade;
+        if (ny > 0)       dirShade = 1.0f;  // top
+        else if (ny < 0)  dirShade = 0.4f;  // bottom
+        else if (nx != 0) dirShade = 0.7f;  // east/west
+        else              dirShade = 0.85f; // north/south
+
+        float shade = dirShade * blockLight;
+
+        int base = va.size() / 6;
+
+        float ux, uy, uz, vx, vy, vz;
+        if (nx != 0) {                 // X faces
+            ux = 0; uy = 1; uz = 0;
+            vx = 0; vy = 0; vz = 1;
+        } else if (ny != 0) {          // Y faces
+            ux = 1; uy = 0; uz = 0;
+            vx = 0; vy = 0; vz = 1;
+        } else {                       // Z faces
+            ux = 1; uy = 0; uz = 0;
+            vx = 0; vy = 1; vz = 0;
+        }
 
-                float shade = dirShade * blockLight;
+        float fx = x + nx * s, fy = y + ny * s, fz = z + nz * s;
 
-                float x = wx + 0.5f, y = wy + 0.5f, z = wz + 0.5f, s = 0.5f;
+        pushVertex(va, fx - ux*s - vx*s, fy - uy*s - vy*s, fz - uz*s - vz*s, col, shade);
+        pushVertex(va, fx + ux*s - vx*s, fy + uy*s - vy*s, fz + uz*s - vz*s, col, shade);
+        pushVertex(va, fx + ux*s + vx*s, fy + uy*s + vy*s, fz + uz*s + vz*s, col, shade);
+        pushVertex(va, fx - ux*s + vx*s, fy - uy*s + vy*s, fz - uz*s + vz*s, col, shade);
 
-                int base = va.size() / 6;
+        ia.add(base);   ia.add(base+1); ia.add(base+2);
+        ia.add(base);   ia.add(base+2); ia.add(base+3);
+    }
 
-                float ux, uy, uz, vx, vy, vz;
-                if (nx != 0) {                 // X faces
-                    ux = 0; uy = 1; uz = 0;
-                    vx = 0; vy = 0; vz = 1;
-                } else if (ny != 0) {          // Y faces
-                    ux = 1; uy = 0; uz = 0;
-                    vx = 0; vy = 0; vz = 1;
-                } else {                       // Z faces
-                    ux = 1; uy = 0; uz = 0;
-                    vx = 0; vy = 1; vz = 0;
-                }
+    private static void pushVertex(FloatArray va, float x, float y, float z,
+                                   float[] c, float shade) {
+        va.add(x);
+        va.add(y);
+        va.add(z);
+        va.add(c[0] * shade);
+        va.add(c[1] * shade);
+        va.add(c[2] * shade);
+    }
+
+    // ---- far-chunk LOD job: pyramid + low-poly mesh, background priority ----
+    static final class LodJob implements Job {
+        private final World w;
+        private final ChunkPos pos;
+        private final int level;
+
+        private final CancellationToken token;
+
+        LodJob(World w, ChunkPos pos, int level, CancellationToken token) {
+            this.w = w;
+            this.pos = pos;
+            this.level = level;
+            this.token = token;
+        }
+
+        @Override
+        public JobPriority priority() {
+            return JobPriority.P2_BACKGROUND;
+        }
+
+        @Override public double priorityKey() { return w.chunkPriorityKey(pos); }
+        @Override public boolean isCancelled() { return token.isCancelled(); }
 
-                float fx = x + nx * s, fy = y + ny * s, fz = z + nz * s;
+        @Override
+        public void run() {
+            Chunk c = w.chunks.get(pos);
+            if (c == null || w.lodLevel(pos) != level) return; // player moved on; a newer job owns it
+            ChunkLod lod = w.lodFor(pos, c);
+            w.gpuUploads.add(new GpuUpload(pos, lod.mesh(level), lod.visibility));
+            reachStage(pos, c, ChunkStage.MESHED);
+        }
+    }
+
+    // ---- cold tier: pack idle far chunks / inflate them ahead of the player ----
+    static final class PackJob implements Job {
+        // packed data must come out at most half the size of vox + light
+        private static final ThreadLocal<ByteBuffer> SCRATCH =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(ChunkCodec.VOXELS));
+        private final World w;
+        private final ChunkPos pos;
+        private final Chunk c;
+
+        PackJob(World w, ChunkPos pos, Chunk c) { this.w = w; this.pos = pos; this.c = c; }
 
-                pushVertex(va, fx - ux*s - vx*s, fy - uy*s - vy*s, fz - uz*s - vz*s, col, shade);
-                pushVertex(va, fx + ux*s - vx*s, fy + uy*s - vy*s, fz + uz*s - vz*s, col, shade);
-                pushVertex(va, fx + ux*s + vx*s, fy + uy*s + vy*s, fz + uz*s + vz*s, col, shade);
-                pushVertex(va, fx - ux*s + vx*s, fy - uy*s + vy*s, fz - uz*s + vz*s, col, shade);
+        @Override public JobPriority priority() { return JobPriority.P2_BACKGROUND; }
+        @Override public double priorityKey() { return -w.chunkPriorityKey(pos); } // farthest first
+        @Override public boolean isCancelled() { return c.jobs.isCancelled(); }
 
-                ia.add(base);   ia.add(base+1); ia.add(base+2);
-                ia.add(base);   ia.add(base+2); ia.add(base+3);
+        @Override
+        public void run() {
+            try {
+                if (w.meshing) w.lodFor(pos, c); // far chunks change LOD level often; keep that off the packed data
+                if (c.pack(SCRATCH.get(), w.coldTm)) reachStage(pos, c, ChunkStage.PACKED);
             }
+            finally { c.coldQueued = false; }
         }
+    }
+
+    static final class InflateJob implements Job {
+        private final World w;
+        private final ChunkPos pos;
+        private final Chunk c;
+
+        InflateJob(World w, ChunkPos pos, Chunk c) { this.w = w; this.pos = pos; this.c = c; }
 
-        private void pushVertex(FloatArray va, float x, float y, float z,
-                                float[] c, float shade) {
-            va.add(x);
-            va.add(y);
-            va.add(z);
-            va.add(c[0] * shade);
-            va.add(c[1] * shade);
-            va.add(c[2] * shade);
+        @Override public JobPriority priority() { return JobPriority.P1_HIGH; }
+        @Override public double priorityKey() { return w.chunkPriorityKey(pos); }
+        @Override public boolean isCancelled() { return c.jobs.isCancelled(); }
+
+        @Override
+        public void run() {
+            try {
+                if (c.isPacked()) { c.inflate(false); reachStage(pos, c, ChunkStage.INFLATED); }
+            }
+            finally { c.coldQueued = false; }
         }
     }
 
-    
     static final class LightJob implements Job {
         private final World w;
         private final ChunkPos pos;
 
-        LightJob(World w, ChunkPos pos) {
+        private final CancellationToken token;
+
+        LightJob(World w, ChunkPos pos, CancellationToken token) {
             this.w = w;
             this.pos = pos;
+            this.token = token;
         }
 
         @Override
         public JobPriority priority() {
-            // Use an existing priority from JobPriority
-            return JobPriority.P0_CRITICAL;
+            return JobPriority.P1_HIGH;
         }
 
+        @Override public double priorityKey() { return w.chunkPriorityKey(pos); }
+        @Override public boolean isCancelled() { return token.isCancelled(); }
+
         @Override
         public void run() {
             Chunk c = w.chunks.get(pos);
-            if (c == null) return;
+            if (c == null || !w.meshing) return;
+
+            // mesh already cached for this content: the MeshJob continuation will upload it, so
+            // skip lighting; it is rebuilt lazily if the chunk ever has to be meshed for real.
+            // Not when the chunk below was already lit, though: it needs our real bottom-face
+            // light to tell whether it is stale (undoing an edit is exactly such a hit)
+            Chunk down = w.chunks.get(new ChunkPos(pos.x, pos.y - 1, pos.z));
+            if (w.meshCache != null && (down == null || down.lightIn == null)) {
+                byte[] in = w.lightInput(pos);
+                if (w.meshCache.contains(MeshCache.key(w, pos, c, in))) {
+                    c.lightIn = in; // what the cached mesh was lit with, for the chunk below to compare
+                    c.lightStale = true;
+                    return;
+                }
+            }
+            relight(w, pos, c);
+        }
+
+        /**
+         * Holds the chunk's monitor throughout, so it is neither packed nor relit twice at once.
+         * Light only flows down between chunks: the chunk above is lit first (by lightInput, before
+         * taking this monitor), and the chunk below is queued for a relight when what leaves
+         * through our bottom face is no longer what it was lit with.
+         */
+        static void relight(World w, ChunkPos pos, Chunk c) {
+            byte[] in = w.lightInput(pos);
+            synchronized (c) { relightLocked(w, pos, c, in); }
+
+            ChunkPos downPos = new ChunkPos(pos.x, pos.y - 1, pos.z);
+            Chunk down = w.chunks.get(downPos);
+            byte[] downIn = (down != null) ? down.lightIn : null;
+            if (downIn != null && !Arrays.equals(downIn, c.lightOut())) w.scheduleRelight(downPos, down);
+        }
+
+        // columns that get MAX_LIGHT through the top face see the sky down to their height;
+        // the rest have no sky cells (reported as SY)
+        private static int skyFrom(Chunk c, byte[] in, int x, int z) {
+            return (in[x + z * CHUNK_SIZE_X] == MAX_LIGHT) ? c.height(x, z) : CHUNK_SIZE_Y;
+        }
 
+        private static void relightLocked(World w, ChunkPos pos, Chunk c, byte[] in) {
+            c.lightStale = false;
+            c.lightIn = in;
             final int SX = CHUNK_SIZE_X;
             final int SY = CHUNK_SIZE_Y;
             final int SZ = CHUNK_SIZE_Z;
 
-            int baseX = pos.x * SX;
-            int baseZ = pos.z * SZ;
-
-            // 1) clear light in this chunk
-            for (int y = 0; y < SY; y++) {
-                for (int z = 0; z < SZ; z++) {
-                    for (int x = 0; x < SX; x++) {
-                        c.setLight(x, y, z, (byte) 0);
-                    }
-                }
-            }
+            // 1) start from a dark copy; readers keep the old array until we publish
+            byte[] light = new byte[SX * SY * SZ];
 
             // 2) queue for flood fill
             int max = SX * SY * SZ;
@@ -418,29 +1305,41 @@ public class World {
             int[] ql = new int[max];
             int head = 0, tail = 0;
 
-            // 3) seed skylight from above: air that can see the sky gets MAX_LIGHT
+            // 3) seed from the light entering through the top face. In sky columns, air at or
+            //    above the column's height is fully lit; only sky cells next to a darker one (the
+            //    block under the column top, or the side of a neighbor column with less sky) can
+            //    spread light, so only those are queued. Other columns take the light from above,
+            //    one step dimmer, into their top voxel
             for (int z = 0; z < SZ; z++) {
                 for (int x = 0; x < SX; x++) {
-                    int wx = baseX + x;
-                    int wz = baseZ + z;
-
-                    boolean blocked = false;
-                    for (int y = SY - 1; y >= 0; y--) {
-                        int wy = y;
-                        if (w.isSolid(wx, wy, wz)) {
-                            blocked = true;
-                            continue;
-                        }
-                        if (!blocked) {
-                            c.setLight(x, y, z, (byte) MAX_LIGHT);
-                            if (tail < max) {
-                                qx[tail] = x;
-                                qy[tail] = y;
-                                qz[tail] = z;
-                                ql[tail] = MAX_LIGHT;
-                                tail++;
-                            }
-                        }
+                    int h = skyFrom(c, in, x, z);
+                    if (h == SY) {
+                        int L = (in[x + z * SX] & 0xFF) - 1;
+                        if (L <= 0) continue;
+                        light[Chunk.idx(x, SY - 1, z)] = (byte) L;
+                        if (c.isSolid(x, SY - 1, z)) continue; // solids receive but don't propagate
+                        qx[tail] = x;
+                        qy[tail] = SY - 1;
+                        qz[tail] = z;
+                        ql[tail] = L;
+                        tail++;
+                        continue;
+                    }
+                    int nbMax = 0;
+                    if (x > 0)      nbMax = Math.max(nbMax, skyFrom(c, in, x - 1, z));
+                    if (x + 1 < SX) nbMax = Math.max(nbMax, skyFrom(c, in, x + 1, z));
+                    if (z > 0)      nbMax = Math.max(nbMax, skyFrom(c, in, x, z - 1));
+                    if (z + 1 < SZ) nbMax = Math.max(nbMax, skyFrom(c, in, x, z + 1));
+
+                    for (int y = h; y < SY; y++) light[Chunk.idx(x, y, z)] = (byte) MAX_LIGHT;
+                    int qTo = Math.min(SY, Math.max(h > 0 ? h + 1 : 0, nbMax));
+                    for (int y = h; y < qTo; y++) {
+                        if (tail >= max) break;
+                        qx[tail] = x;
+                        qy[tail] = y;
+                        qz[tail] = z;
+                        ql[tail] = MAX_LIGHT;
+                        tail++;
                     }
                 }
             }
@@ -468,20 +1367,16 @@ public class World {
                         continue;
                     }
 
-                    int wx = baseX + nx;
-                    int wy = ny;
-                    int wz = baseZ + nz;
+                    boolean solid = c.isSolid(nx, ny, nz);
 
-                    boolean solid = w.isSolid(wx, wy, wz);
-
-                    int curL = c.getLight(nx, ny, nz) & 0xFF;
+                    int curL = light[Chunk.idx(nx, ny, nz)] & 0xFF;
                     int newL = newLBase;
                     if (newL <= 0 || newL <= curL) {
                         continue;
                     }
 
                     // Update light on this cell (air OR solid)
-                    c.setLight(nx, ny, nz, (byte) newL);
+                    light[Chunk.idx(nx, ny, nz)] = (byte) newL;
 
                     // Solids receive light but do not propagate further
                     if (solid) {
@@ -498,9 +1393,8 @@ public class World {
                     }
                 }
             }
-
-            // 5) AFTER lighting is done, enqueue a mesh rebuild for this chunk
-            w.jobs.submit(new MeshJob(w, pos));
+            c.publishLight(light);
+            reachStage(pos, c, ChunkStage.LIT);
         }
     }
 
@@ -519,5 +1413,6 @@ public class World {
         void add(int v){ if(size>=a.length) grow(); a[size++]=v; }
         int[] toArray(){ int[] out=new int[size]; System.arraycopy(a,0,out,0,size); return out; }
         private void grow(){ int[] n=new int[a.length*2]; System.arraycopy(a,0,n,0,a.length); a=n; }
+        int size(){ return size; }
     }
 }
\ No newline at end of file
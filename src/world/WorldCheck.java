@@ -0,0 +1,461 @@
+package world;
+
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import engine.EngineConfig;
+import engine.InputState;
+import engine.Telemetry;
+import jobs.JobPriority;
+import jobs.JobSystem;
+import world.World.Chunk;
+import world.World.ChunkPos;
+import world.World.MeshBlob;
+
+/**
+ * engine.SelfCheck modes that need the world package's internals (the mesher, the LOD pyramid,
+ * the cold tier, the shared-array pool). Each returns whether its checks held; SelfCheck
+ * prints the verdict and sets the exit status.
+ */
+public final class WorldCheck {
+    private WorldCheck() {}
+
+    // ---- mesher ----
+
+    /**
+     * MeshJob.build against {@link #referenceMesh} after every round of random edits around chunk
+     * (0,0,0) and across its borders, on the chunk and its six neighbors with the pipeline's own
+     * light; then ms per chunk of both on half-solid random terrain.
+     */
+    public static boolean mesher(int rounds) throws InterruptedException {
+        JobSystem jobs = inlineJobs();
+        World w = new World(jobs, new InputState(), null, null);
+        w.warmup(0, 0, 0, 2, 2);
+        Random rnd = new Random(29);
+        boolean ok = true;
+        long compared = 0, quads = 0;
+        for (int round = 0; round < rounds && ok; round++) {
+            for (int e = 0; e < 20; e++) { // -2..17 on every axis: the chunk, its borders and one layer beyond
+                byte id = rnd.nextBoolean() ? World.AIR : (byte) (1 + rnd.nextInt(3));
+                w.setBlock(rnd.nextInt(20) - 2, rnd.nextInt(20) - 2, rnd.nextInt(20) - 2, id);
+            }
+            drain(jobs);
+            w.gpuUploads.clear();
+            for (int f = -1; f < 6 && ok; f++) {
+                ChunkPos pos = (f < 0) ? new ChunkPos(0, 0, 0)
+                    : new ChunkPos(World.FACE_DX[f], World.FACE_DY[f], World.FACE_DZ[f]);
+                Chunk c = w.chunkAt(pos.x, pos.y, pos.z);
+                byte[] light = c.lightSnapshot();
+                List<float[]> got = quads(buildFull(w, pos, c, light)), want = quads(referenceMesh(w, pos, c, light));
+                compared++;
+                quads += want.size();
+                ok = expect(got.size() == want.size(), "round " + round + ", chunk " + pos.x + "," + pos.y + "," + pos.z
+                    + ": " + got.size() + " quads, reference has " + want.size());
+                for (int q = 0; ok && q < want.size(); q++)
+                    ok = expect(Arrays.equals(got.get(q), want.get(q)), "round " + round + ", chunk " + pos.x + ","
+                        + pos.y + "," + pos.z + ": quad " + Arrays.toString(want.get(q)) + " differs (position, colour or light)");
+            }
+        }
+        System.out.printf("[SelfCheck] mesher: %d chunk meshes compared, %d quads%n", compared, quads);
+
+        // timing: every voxel of chunk (0,0,0) solid with probability 1/2, neighbors likewise
+        World dense = new World(jobs, new InputState(), null, null);
+        dense.setMeshing(false);
+        dense.requestInitialChunks(0, 0, 0, 1);
+        for (int y = -16; y < 32; y++)
+            for (int z = -16; z < 32; z++)
+                for (int x = -16; x < 32; x++)
+                    dense.setBlock(x, y, z, rnd.nextBoolean() ? World.AIR : (byte) (1 + rnd.nextInt(3)));
+        ChunkPos pos = new ChunkPos(0, 0, 0);
+        Chunk c = dense.chunkAt(0, 0, 0);
+        byte[] light = c.lightSnapshot();
+        double buildMs = 0, refMs = 0;
+        int faces = 0;
+        for (int round = 0; round < 3; round++) { // round 0 warms up the JIT
+            int n = 300;
+            long t0 = System.nanoTime();
+            for (int i = 0; i < n; i++) faces = buildFull(dense, pos, c, light).indices.length / 6;
+            long t1 = System.nanoTime();
+            for (int i = 0; i < n; i++) referenceMesh(dense, pos, c, light);
+            buildMs = (t1 - t0) / 1e6 / n;
+            refMs = (System.nanoTime() - t1) / 1e6 / n;
+        }
+        System.out.printf("[SelfCheck] mesher: dense chunk (%d quads): MeshJob.build %.3f ms, reference %.3f ms (%.1fx)%n",
+            faces, buildMs, refMs, refMs / buildMs);
+        jobs.shutdown();
+        return ok;
+    }
+
+    // ---- torn-read ----
+
+    private static volatile long blackhole;
+
+    /**
+     * Uncontended ms per full-detail mesh of chunk {@code pos}: {plain read, MeshJob's optimistic
+     * read}. Both build the mesh and its visibility; the second brackets them with readStamp and
+     * validate, so the difference is what the torn-read guard costs when nobody edits.
+     */
+    public static double[] meshReadMs(World w, ChunkPos pos, int n) {
+        Chunk c = w.chunkAt(pos.x, pos.y, pos.z);
+        double plain = 0, validated = 0;
+        long sink = 0;
+        for (int round = 0; round < 3; round++) { // round 0 warms up the JIT
+            long t0 = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                MeshBlob m = buildFull(w, pos, c, c.lightSnapshot());
+                sink += m.contentHash + SectionVisibility.compute(c);
+            }
+            long t1 = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                int stamp = c.readStamp();
+                MeshBlob m = buildFull(w, pos, c, c.lightSnapshot());
+                sink += m.contentHash + SectionVisibility.compute(c);
+                if (!c.validate(stamp)) throw new IllegalStateException("chunk changed during an uncontended read");
+            }
+            plain = (t1 - t0) / 1e6 / n;
+            validated = (System.nanoTime() - t1) / 1e6 / n;
+        }
+        blackhole = sink; // keeps the meshes from being optimized away
+        return new double[] { plain, validated };
+    }
+
+    private static MeshBlob buildFull(World w, ChunkPos pos, Chunk c, byte[] light) {
+        return World.MeshJob.build(c, light,
+            w.chunkAt(pos.x + 1, pos.y, pos.z), w.chunkAt(pos.x - 1, pos.y, pos.z),
+            w.chunkAt(pos.x, pos.y + 1, pos.z), w.chunkAt(pos.x, pos.y - 1, pos.z),
+            w.chunkAt(pos.x, pos.y, pos.z + 1), w.chunkAt(pos.x, pos.y, pos.z - 1));
+    }
+
+    /**
+     * The mesher spelled out one voxel at a time: a face wherever the block id next to a non-air
+     * voxel is air (world lookups across borders, unloaded reads as air), lit by the brightest of
+     * the cell and its neighbors inside the chunk.
+     */
+    static MeshBlob referenceMesh(World w, ChunkPos pos, Chunk c, byte[] light) {
+        World.FloatArray va = new World.FloatArray(4_096);
+        World.IntArray ia = new World.IntArray(6_144);
+        int ox = pos.x * World.CHUNK_SIZE_X, oy = pos.y * World.CHUNK_SIZE_Y, oz = pos.z * World.CHUNK_SIZE_Z;
+        for (int y = 0; y < World.CHUNK_SIZE_Y; y++)
+            for (int z = 0; z < World.CHUNK_SIZE_Z; z++)
+                for (int x = 0; x < World.CHUNK_SIZE_X; x++) {
+                    byte id = c.get(x, y, z);
+                    if (id == World.AIR) continue;
+                    int max = 0;
+                    for (int f = -1; f < 6; f++) {
+                        int nx = x + (f < 0 ? 0 : World.FACE_DX[f]), ny = y + (f < 0 ? 0 : World.FACE_DY[f]);
+                        int nz = z + (f < 0 ? 0 : World.FACE_DZ[f]);
+                        if (nx < 0 || ny < 0 || nz < 0 || nx >= World.CHUNK_SIZE_X || ny >= World.CHUNK_SIZE_Y || nz >= World.CHUNK_SIZE_Z)
+                            continue;
+                        max = Math.max(max, light[Chunk.idx(nx, ny, nz)] & 0xFF);
+                    }
+                    float lit = 0.2f + 0.8f * (max / (float) World.MAX_LIGHT);
+                    for (int f = 0; f < 6; f++) {
+                        if (w.getBlock(ox + x + World.FACE_DX[f], oy + y + World.FACE_DY[f], oz + z + World.FACE_DZ[f]) != World.AIR)
+                            continue;
+                        World.emitFace(va, ia, x + 0.5f, y + 0.5f, z + 0.5f, 0.5f,
+                            World.FACE_DX[f], World.FACE_DY[f], World.FACE_DZ[f], World.colorFor(id), lit);
+                    }
+                }
+        return (ia.size() == 0) ? null : new MeshBlob(va.toArray(), ia.toArray());
+    }
+
+    /** Each quad's four corners (position + colour) in index order, sorted: emission order does not matter. */
+    private static List<float[]> quads(MeshBlob m) {
+        List<float[]> out = new ArrayList<>();
+        if (m == null) return out;
+        for (int q = 0; q < m.indices.length; q += 6) {
+            float[] quad = new float[24];
+            int[] corners = { m.indices[q], m.indices[q + 1], m.indices[q + 2], m.indices[q + 5] };
+            for (int k = 0; k < 4; k++) System.arraycopy(m.vertices, corners[k] * 6, quad, k * 6, 6);
+            out.add(quad);
+        }
+        out.sort(Arrays::compare);
+        return out;
+    }
+
+    // ---- lod ----
+
+    /**
+     * ChunkLod: level thresholds, the 2×2×2 merge (at least half solid, most common id), border
+     * faces of a full chunk at every level, and World.lodFor rebuilding after Chunk.set.
+     */
+    public static boolean lod() {
+        boolean ok = true;
+        int[][] levels = { { 0, 0 }, { 4, 0 }, { 5, 1 }, { 8, 1 }, { 9, 2 }, { 16, 2 }, { 17, 3 }, { 1000, 3 } };
+        for (int[] d : levels)
+            ok &= expect(ChunkLod.levelForDistance(d[0]) == d[1],
+                "distance " + d[0] + ": level " + ChunkLod.levelForDistance(d[0]) + ", expected " + d[1]);
+
+        // level-1 cells along x, each filled from its 8 children (child i = x+(i&1), y+(i>>1&1), z+(i>>2))
+        byte G = World.GRASS, D = World.DIRT, S = World.STONE, A = World.AIR;
+        byte[][] children = {
+            { S, S, S, S, A, A, A, A }, // exactly half solid: solid
+            { S, S, S, A, A, A, A, A }, // three of eight: air
+            { G, S, G, A, S, G, A, A }, // grass 3, stone 2: grass
+            { D, D, S, S, S, D, D, G }, // dirt 4, stone 3, grass 1: dirt
+            { S, S, S, S, S, S, S, S }, // full
+        };
+        byte[] want = { S, A, G, D, S };
+        Chunk c = new Chunk();
+        for (int cell = 0; cell < children.length; cell++)
+            for (int i = 0; i < 8; i++)
+                if (children[cell][i] != A) c.set(2 * cell + (i & 1), (i >> 1) & 1, (i >> 2) & 1, children[cell][i]);
+        ChunkLod lod = ChunkLod.build(new ChunkPos(0, 0, 0), c);
+        for (int cell = 0; cell < children.length; cell++)
+            ok &= expect(lod.get(1, cell, 0, 0) == want[cell],
+                "cell " + cell + ": id " + lod.get(1, cell, 0, 0) + ", expected " + want[cell]);
+
+        // a full chunk shows only its border at every level: 6 sides of (16>>L)² cells
+        Chunk full = new Chunk();
+        for (int y = 0; y < World.CHUNK_SIZE_Y; y++)
+            for (int z = 0; z < World.CHUNK_SIZE_Z; z++)
+                for (int x = 0; x < World.CHUNK_SIZE_X; x++) full.set(x, y, z, S);
+        lod = ChunkLod.build(new ChunkPos(0, 0, 0), full);
+        for (int l = 0; l < ChunkLod.LEVELS; l++) {
+            int side = World.CHUNK_SIZE_X >> l, quads = lod.mesh(l).indices.length / 6;
+            ok &= expect(quads == 6 * side * side, "full chunk, level " + l + ": " + quads + " quads, expected " + 6 * side * side);
+        }
+
+        // World.lodFor keeps a pyramid until the chunk's version moves on
+        JobSystem jobs = inlineJobs();
+        World w = new World(jobs, new InputState(), null, null);
+        w.setMeshing(false);
+        ChunkPos pos = new ChunkPos(0, 0, 0);
+        Chunk ground = w.ensureChunk(0, 0, 0);
+        ChunkLod first = w.lodFor(pos, ground);
+        ok &= expect(w.lodFor(pos, ground) == first, "unchanged chunk: pyramid rebuilt");
+        ok &= expect(first.sourceVersion == ground.version, "pyramid built from version " + first.sourceVersion
+            + ", chunk is at " + ground.version);
+        ground.set(6, 14, 6, S); // above the grass at y=12
+        ChunkLod second = w.lodFor(pos, ground);
+        ok &= expect(second != first && second.sourceVersion == ground.version, "edited chunk: stale pyramid kept");
+        ok &= expect(first.get(0, 6, 14, 6) == A && second.get(0, 6, 14, 6) == S, "rebuilt pyramid misses the edit");
+        System.out.printf("[SelfCheck] lod: %d thresholds, %d merged cells, %d levels of full-chunk faces%n",
+            levels.length, children.length, ChunkLod.LEVELS);
+        jobs.shutdown();
+        return ok;
+    }
+
+    // ---- shared ----
+
+    /**
+     * SharedArrays: identical chunks hold one array and an edit copies before writing, pool
+     * references come and go with loaded chunks, and retained heap per chunk for the flat world
+     * and a heightfield (unique surface chunks; stone and air still pooled).
+     */
+    public static boolean shared() throws InterruptedException {
+        SharedArrays pool = SharedArrays.POOL;
+        JobSystem jobs = inlineJobs();
+        World w = new World(jobs, new InputState(), null, null);
+        w.setMeshing(false);
+        boolean ok = true;
+
+        // isolation: three identical surface chunks, one edited
+        Chunk a = w.ensureChunk(0, 0, 0), b = w.ensureChunk(1, 0, 0), c = w.ensureChunk(2, 0, 0);
+        ok &= expect(a.isShared() && a.voxels() == b.voxels() && b.voxels() == c.voxels(), "identical chunks do not share voxels");
+        long refs = pool.references();
+        a.set(5, 13, 5, World.STONE);
+        ok &= expect(a.get(5, 13, 5) == World.STONE && b.get(5, 13, 5) == World.AIR && c.get(5, 13, 5) == World.AIR,
+            "an edit to shared content leaked into another chunk");
+        ok &= expect(a.voxels() != b.voxels() && b.voxels() == c.voxels(), "the edited chunk still holds the pooled array");
+        ok &= expect(pool.references() == refs - 1, "edit left " + pool.references() + " references, expected " + (refs - 1));
+        a.set(5, 13, 5, World.AIR); // same content again, but private until the chunk is interned anew
+        ok &= expect(b.get(5, 13, 5) == World.AIR && a.voxels() != b.voxels(), "undoing the edit touched the pool");
+
+        // references follow load and unload; the arrays come back to what other holders keep
+        int r = 3;
+        long refs0 = pool.references(), arrays0 = pool.arrays();
+        w.requestInitialChunks(100, 0, 100, r);
+        int n = (2 * r + 1) * (2 * r + 1) * (2 * r + 1);
+        long loadedRefs = pool.references() - refs0, loadedArrays = pool.arrays();
+        ok &= expect(loadedRefs == 2L * n, n + " chunks loaded hold " + loadedRefs + " pool references, expected " + 2 * n);
+        for (int y = -r; y <= r; y++)
+            for (int z = -r; z <= r; z++)
+                for (int x = -r; x <= r; x++) w.unloadChunk(new ChunkPos(100 + x, y, 100 + z));
+        ok &= expect(pool.references() == refs0 && pool.arrays() == arrays0, "after unload: " + pool.references()
+            + " references / " + pool.arrays() + " arrays, expected " + refs0 + " / " + arrays0);
+        System.out.printf("[SelfCheck] shared: %d chunks loaded and unloaded, %d distinct arrays while loaded%n", n, loadedArrays);
+
+        // retained heap per chunk
+        long before = usedHeap();
+        w.requestInitialChunks(-100, 0, -100, r);
+        long flat = (usedHeap() - before) / n;
+        Chunk[] field = new Chunk[n];
+        before = usedHeap();
+        for (int i = 0; i < n; i++) field[i] = heightfieldChunk(i % 7, i / 49 - r, (i / 7) % 7);
+        long hills = (usedHeap() - before) / n;
+        Reference.reachabilityFence(field);
+        Reference.reachabilityFence(w);
+        System.out.printf("[SelfCheck] shared: heap per chunk: flat %d B, heightfield %d B (unshared vox + light: %d B)%n",
+            flat, hills, 2 * ChunkCodec.VOXELS);
+        jobs.shutdown();
+        return ok;
+    }
+
+    /** Rolling terrain: height 2..14 inside chunk layer 0, stone below three dirt and a grass top. */
+    private static Chunk heightfieldChunk(int cx, int cy, int cz) {
+        Chunk c = new Chunk();
+        for (int z = 0; z < World.CHUNK_SIZE_Z; z++)
+            for (int x = 0; x < World.CHUNK_SIZE_X; x++) {
+                int wx = cx * World.CHUNK_SIZE_X + x, wz = cz * World.CHUNK_SIZE_Z + z;
+                int h = 8 + (int) Math.round(6 * Math.sin(wx / 9.0) * Math.cos(wz / 7.0));
+                for (int y = 0; y < World.CHUNK_SIZE_Y; y++) {
+                    int wy = cy * World.CHUNK_SIZE_Y + y;
+                    if (wy > h) break;
+                    c.set(x, y, z, wy == h ? World.GRASS : wy >= h - 3 ? World.DIRT : World.STONE);
+                }
+            }
+        c.intern();
+        return c;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    // ---- pack ----
+
+    /**
+     * Cold tier: PackJob then InflateJob on random chunks must give back voxels, light and
+     * solidity masks byte for byte (and ChunkCodec.packRuns/unpackRuns the raw arrays, including
+     * ones too noisy to pack); then Chunk.set against packing and inflating on N workers.
+     */
+    public static boolean pack(int chunks, int workers, int seconds) throws InterruptedException {
+        JobSystem jobs = inlineJobs();
+        World w = new World(jobs, new InputState(), null, null);
+        w.setMeshing(false);
+        Random rnd = new Random(41);
+        ByteBuffer big = ByteBuffer.allocate(2 * ChunkCodec.maxEncodedBytes());
+        boolean ok = true;
+        int packed = 0, packedBytes = 0;
+        for (int i = 0; i < chunks && ok; i++) {
+            Chunk c = randomChunk(rnd, i);
+            byte[] vox = c.voxels().clone(), light = c.lightSnapshot().clone();
+            char[] solid = solidMasks(c);
+            boolean empty = c.isEmpty();
+
+            for (byte[] a : new byte[][] { vox, light }) {
+                big.clear();
+                ok &= expect(ChunkCodec.packRuns(a, big), "chunk " + i + ": packRuns overflowed its worst case");
+                byte[] back = new byte[a.length];
+                big.flip();
+                ChunkCodec.unpackRuns(big, back);
+                ok &= expect(Arrays.equals(a, back) && !big.hasRemaining(), "chunk " + i + ": packRuns round trip differs");
+            }
+
+            ChunkPos pos = new ChunkPos(i, 0, 0);
+            new World.PackJob(w, pos, c).run();
+            if (c.isPacked()) {
+                packed++;
+                packedBytes += c.packedBytes();
+                ok &= expect(Arrays.equals(solidMasks(c), solid), "chunk " + i + ": solidity changed while packed");
+                new World.InflateJob(w, pos, c).run();
+                ok &= expect(!c.isPacked(), "chunk " + i + ": InflateJob left it packed");
+            }
+            ok &= expect(Arrays.equals(c.voxels(), vox), "chunk " + i + ": voxels differ after pack + inflate");
+            ok &= expect(Arrays.equals(c.lightSnapshot(), light), "chunk " + i + ": light differs after pack + inflate");
+            ok &= expect(Arrays.equals(solidMasks(c), solid) && c.isEmpty() == empty, "chunk " + i + ": masks differ after pack + inflate");
+            c.discard();
+        }
+        ok &= expect(packed > chunks / 2, "only " + packed + " of " + chunks + " chunks packed");
+        System.out.printf("[SelfCheck] pack: %d chunks round-tripped, %d packed (avg %d B of %d)%n",
+            chunks, packed, packed == 0 ? 0 : packedBytes / packed, 2 * ChunkCodec.VOXELS);
+        jobs.shutdown();
+        if (!ok) return false;
+
+        // set() on the sim thread against packing and inflating on workers; a shadow copy says
+        // what the chunk must hold once everything settles
+        EngineConfig cfg = new EngineConfig();
+        cfg.enableAutoscale = false;
+        cfg.minWorkers = cfg.maxWorkers = workers;
+        jobs = new JobSystem(cfg, new Telemetry());
+        w = new World(jobs, new InputState(), null, null);
+        w.setMeshing(false);
+        ChunkPos pos = new ChunkPos(0, 0, 0);
+        Chunk c = w.ensureChunk(0, 0, 0);
+        byte[] shadow = c.voxels().clone(), light = c.lightSnapshot().clone();
+        long edits = 0, cycles = 0, end = System.nanoTime() + seconds * 1_000_000_000L;
+        while (System.nanoTime() < end) {
+            if (jobs.defaultTenant().queued() < 2 * workers) {
+                jobs.submit(new World.PackJob(w, pos, c));
+                jobs.submit(new World.InflateJob(w, pos, c));
+                cycles++;
+            }
+            int x = rnd.nextInt(16), y = rnd.nextInt(16), z = rnd.nextInt(16);
+            byte id = rnd.nextInt(4) == 0 ? World.AIR : (byte) (1 + rnd.nextInt(3));
+            c.set(x, y, z, id);
+            shadow[Chunk.idx(x, y, z)] = id;
+            if ((++edits & 63) == 0) Thread.yield(); // interleave with the workers even on one core
+        }
+        while (jobs.defaultTenant().queued() > 0) Thread.sleep(10);
+        Thread.sleep(50); // last running job
+        jobs.shutdown();
+        ok &= expect(Arrays.equals(c.voxels(), shadow), "edits lost or torn against packing");
+        ok &= expect(Arrays.equals(c.lightSnapshot(), light), "light changed by packing");
+        Chunk fresh = new Chunk();
+        for (int i = 0; i < shadow.length; i++)
+            if (shadow[i] != World.AIR) fresh.set(Chunk.lx(i), Chunk.ly(i), Chunk.lz(i), shadow[i]);
+        ok &= expect(Arrays.equals(solidMasks(c), solidMasks(fresh)) && c.isEmpty() == fresh.isEmpty(),
+            "solidity masks out of step with the voxels");
+        System.out.printf("[SelfCheck] pack: %d workers, %d edits against %d pack/inflate cycles%n", workers, edits, cycles);
+        return ok;
+    }
+
+    /** Mixed content: layers, noise of varying density and air, with light in runs or noise. */
+    private static Chunk randomChunk(Random rnd, int i) {
+        Chunk c = new Chunk();
+        double density = (i % 5) * 0.25; // 0, 1/4, 1/2, 3/4, 1
+        boolean layered = i % 3 == 0;
+        for (int y = 0; y < World.CHUNK_SIZE_Y; y++) {
+            byte layerId = (byte) (1 + rnd.nextInt(3));
+            for (int z = 0; z < World.CHUNK_SIZE_Z; z++)
+                for (int x = 0; x < World.CHUNK_SIZE_X; x++) {
+                    if (layered ? y > 16 * density : rnd.nextDouble() >= density) continue;
+                    c.set(x, y, z, layered ? layerId : (byte) (1 + rnd.nextInt(3)));
+                }
+        }
+        byte[] l = new byte[ChunkCodec.VOXELS];
+        if (i % 7 == 6) for (int k = 0; k < l.length; k++) l[k] = (byte) rnd.nextInt(World.MAX_LIGHT + 1);
+        else for (int k = 0; k < l.length; k++) l[k] = (byte) Math.max(0, World.MAX_LIGHT - Chunk.ly(k) / 2 - (i & 3));
+        synchronized (c) { c.publishLight(l); }
+        if (i % 2 == 0) c.intern(); // pooled arrays take the same path out of and back into the pool
+        return c;
+    }
+
+    private static char[] solidMasks(Chunk c) {
+        char[] m = new char[World.CHUNK_SIZE_X * World.CHUNK_SIZE_Z];
+        for (int z = 0; z < World.CHUNK_SIZE_Z; z++)
+            for (int x = 0; x < World.CHUNK_SIZE_X; x++) m[x + z * World.CHUNK_SIZE_X] = (char) c.solidColumn(x, z);
+        return m;
+    }
+
+    // ---- helpers ----
+
+    /** No workers: jobs run only when {@link #drain} runs them, on this thread. */
+    private static JobSystem inlineJobs() {
+        EngineConfig cfg = new EngineConfig();
+        cfg.enableAutoscale = false;
+        cfg.minWorkers = cfg.maxWorkers = 0;
+        return new JobSystem(cfg, new Telemetry());
+    }
+
+    private static void drain(JobSystem jobs) {
+        for (;;) {
+            int q = 0;
+            for (JobPriority p : JobPriority.values()) q += jobs.queuedFor(p);
+            if (q == 0) return;
+            jobs.runInlineFor(50);
+        }
+    }
+
+    private static boolean expect(boolean cond, String failure) {
+        if (!cond) System.out.println("[SelfCheck] " + failure);
+        return cond;
+    }
+}